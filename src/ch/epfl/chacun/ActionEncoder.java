@@ -1,11 +1,11 @@
 package ch.epfl.chacun;
 
 import java.io.Serializable;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 
 import static ch.epfl.chacun.Base32.*;
+import static ch.epfl.chacun.Occupant.Kind.HUT;
 import static ch.epfl.chacun.Occupant.Kind.PAWN;
 
 /**
@@ -37,8 +37,7 @@ public final class ActionEncoder implements Serializable {
      * @return the corresponding StateAction
      */
     public static StateAction withPlacedTile(GameState gameState, PlacedTile tile){
-        List<Pos> positions = getSortedPositions(gameState);
-        int bit = positions.indexOf(tile.pos());
+        int bit = gameState.board().placementOracle().rankOf(tile.pos());
         bit = (bit << 2) | tile.rotation().ordinal();
 
         return new StateAction(gameState.withPlacedTile(tile), encodeBits10(bit));
@@ -75,8 +74,10 @@ public final class ActionEncoder implements Serializable {
     public static StateAction withOccupantRemoved(GameState gameState, Occupant occupant){
         int bit = NONE; // no pawn must be taken back
         if (occupant != null) {
-            List<Occupant> occupants = getSortedOccupants(gameState);
-            bit = occupants.indexOf(occupant);
+            Board board = gameState.board();
+            bit = -1;
+            for (int index = 0; index < board.pawnCount() && occupant.kind() == PAWN; index += 1)
+                if (board.pawnZoneIdAt(index) == occupant.zoneId()) bit = index;
         }
         return new StateAction(gameState.withOccupantRemoved(occupant), encodeBits5(bit));
     }
@@ -100,97 +101,312 @@ public final class ActionEncoder implements Serializable {
 
     private static StateAction decodeAndApplyInternal(GameState gameState, String string)
             throws DecodingException {
-        if (!isValid(string)) throw new DecodingException();
+        if (!isValid(string)) throw new DecodingException(Failure.INVALID_STRING);
 
+        return new StateAction(applyInternal(gameState, Base32.decode(string)), string);
+    }
+
+    /**
+     * Applies the actions represented by the given base32 strings, one after the other, to the
+     * given game state, and returns either the final game state or the index and cause of the
+     * first invalid action.
+     *
+     * @param gameState the initial game state
+     * @param strings the base 32 encodings of the actions, in the order they are applied
+     * @return the final game state, or the index and cause of the first invalid action
+     */
+    public static BatchResult decodeAndApplyAll(GameState gameState, List<String> strings) {
+        int index = 0;
+        try {
+            for (String string : strings) {
+                if (!isValid(string)) throw new DecodingException(Failure.INVALID_STRING);
+                gameState = applyInternal(gameState, Base32.decode(string));
+                index += 1;
+            }
+            return new BatchResult(gameState, BatchResult.NO_FAILURE, null);
+        } catch (DecodingException e) {
+            return new BatchResult(gameState, index, e.failure);
+        }
+    }
+
+    /**
+     * Applies the actions with the given codes (see apply), one after the other, to the given game
+     * state, and returns either the final game state or the index and cause of the first invalid
+     * action.
+     *
+     * @param gameState the initial game state
+     * @param actions the codes of the actions, in the order they are applied
+     * @return the final game state, or the index and cause of the first invalid action
+     */
+    public static BatchResult applyAll(GameState gameState, int[] actions) {
+        int index = 0;
+        try {
+            for (; index < actions.length; index += 1)
+                gameState = applyInternal(gameState, actions[index]);
+            return new BatchResult(gameState, BatchResult.NO_FAILURE, null);
+        } catch (DecodingException e) {
+            return new BatchResult(gameState, index, e.failure);
+        }
+    }
+
+    /**
+     * Returns the game state after the action with the given code, in the format expected by the
+     * next action of the given game state, is applied to it.
+     *
+     * @param gameState the initial game state
+     * @param action the code of the action (10 bits for a tile placement, 5 bits otherwise)
+     * @return the game state after the action is applied
+     * @throws IllegalArgumentException if the given code doesn't represent a valid action
+     */
+    static GameState apply(GameState gameState, int action) {
+        try {
+            return applyInternal(gameState, action);
+        } catch (DecodingException e) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private static GameState applyInternal(GameState gameState, int bit) throws DecodingException {
         switch (gameState.nextAction()) {
             case PLACE_TILE -> {
-                return decodePlaceTileAction(gameState, string);
+                return applyPlaceTileAction(gameState, bit);
             }
             case RETAKE_PAWN -> {
-                return decodeRetakePawnAction(gameState, string);
+                return applyRetakePawnAction(gameState, bit);
             }
             case OCCUPY_TILE -> {
-                return decodeOccupyTileAction(gameState, string);
+                return applyOccupyTileAction(gameState, bit);
             }
-            default -> throw new DecodingException();
+            default -> throw new DecodingException(Failure.UNEXPECTED_ACTION);
         }
     }
 
-    private static StateAction decodePlaceTileAction(GameState gameState, String string)
+    private static GameState applyPlaceTileAction(GameState gameState, int bit)
             throws DecodingException {
-        int bit = Base32.decode(string);
         int index = bit >>> TILE_MASK;
         int rotation = bit & ROTATION_MASK;
 
-        List<Pos> positions = getSortedPositions(gameState);
-        if (index > positions.size() || rotation > Rotation.ALL.size())
-            throw new DecodingException();
+        PlacementOracle oracle = gameState.board().placementOracle();
+        if (bit < 0 || index >= oracle.positionCount())
+            throw new DecodingException(Failure.INVALID_POSITION);
 
         PlacedTile tile = new PlacedTile(gameState.tileToPlace(),
                 gameState.currentPlayer(),
                 Rotation.ALL.get(rotation),
-                positions.get(index));
+                oracle.positionAt(index));
 
         if (!gameState.board().canAddTile(tile))
-            throw new DecodingException();
+            throw new DecodingException(Failure.TILE_DOES_NOT_FIT);
 
-        return new StateAction(gameState.withPlacedTile(tile), string);
+        return gameState.withPlacedTile(tile);
     }
 
-    private static StateAction decodeOccupyTileAction(GameState gameState, String string)
+    private static GameState applyOccupyTileAction(GameState gameState, int bit)
             throws DecodingException {
-        int bit = Base32.decode(string);
         Occupant occupant = null;
 
         if (bit != NONE) {
-            int kind = bit >>> KIND_MASK;
-            int id = bit & ID_MASK;
+            if (bit < 0 || bit > NONE || (occupantCodes(gameState) & 1 << bit) == 0)
+                throw new DecodingException(Failure.INVALID_OCCUPANT);
 
-            occupant = gameState.lastTilePotentialOccupants().stream()
-                    .filter(o -> o.kind().ordinal() == kind && Zone.localId(o.zoneId()) == id)
-                    .findFirst()
-                    .orElseThrow(DecodingException::new);
+            int tileId = gameState.board().lastPlacedTile().id();
+            occupant = new Occupant(Occupant.Kind.values()[bit >>> KIND_MASK],
+                    tileId * 10 + (bit & ID_MASK));
         }
 
-        return new StateAction(gameState.withNewOccupant(occupant), string);
+        return gameState.withNewOccupant(occupant);
     }
 
-    private static StateAction decodeRetakePawnAction(GameState gameState, String string)
+    private static GameState applyRetakePawnAction(GameState gameState, int bit)
             throws DecodingException {
-        int bit = Base32.decode(string);
         Occupant occupant = null;
 
         if (bit != NONE) {
-            List<Occupant> occupants = getSortedOccupants(gameState);
+            Board board = gameState.board();
+            if (bit < 0 || bit >= board.pawnCount())
+                throw new DecodingException(Failure.INVALID_PAWN);
 
-            if (bit >= occupants.size())
-                throw new DecodingException();
-
-            occupant = occupants.get(bit);
+            occupant = new Occupant(PAWN, board.pawnZoneIdAt(bit));
             int tileId = Zone.tileId(occupant.zoneId());
 
-            if (gameState.board().tileWithId(tileId).placer() != gameState.currentPlayer())
-                throw new DecodingException();
+            if (board.tileWithId(tileId).placer() != gameState.currentPlayer())
+                throw new DecodingException(Failure.PAWN_OF_OTHER_PLAYER);
+        }
+
+        return gameState.withOccupantRemoved(occupant);
+    }
+
+    /**
+     * Writes the codes of all the legal actions of the given game state (in the format expected by
+     * its next action, see apply) in increasing order at the beginning of the given array, as far
+     * as it has room for them, and returns their number. The codes of the actions which do not
+     * fit in the array are not written, so that the array must be at least as long as the
+     * returned number for all legal actions to be written.
+     * <p>
+     * The actions are generated without allocating anything: insertion positions are read by rank
+     * from the placement oracle, occupants are checked zone by zone on the last placed tile, and
+     * pawns are read by index from the board, sorted by zone.
+     *
+     * @param gameState the given game state
+     * @param actions the array in which the codes are written
+     * @return the number of legal actions
+     */
+    public static int legalActions(GameState gameState, int[] actions) {
+        return switch (gameState.nextAction()) {
+            case PLACE_TILE -> legalPlaceTileActions(gameState, actions);
+            case RETAKE_PAWN -> legalRetakePawnActions(gameState, actions);
+            case OCCUPY_TILE -> legalOccupyTileActions(gameState, actions);
+            case START_GAME, END_GAME -> 0;
+        };
+    }
+
+    private static int legalPlaceTileActions(GameState gameState, int[] actions) {
+        PlacementOracle oracle = gameState.board().placementOracle();
+        Tile tile = gameState.tileToPlace();
+
+        int count = 0;
+        for (int index = 0; index < oracle.positionCount(); index += 1) {
+            int rotations = oracle.rotationsAt(tile, oracle.positionAt(index));
+            for (; rotations != 0; rotations &= rotations - 1) {
+                int rotation = Integer.numberOfTrailingZeros(rotations);
+                count = written(actions, count, index << TILE_MASK | rotation);
+            }
+        }
+        return count;
+    }
+
+    private static int legalOccupyTileActions(GameState gameState, int[] actions) {
+        int codes = occupantCodes(gameState);
+        int count = 0;
+        for (; codes != 0; codes &= codes - 1)
+            count = written(actions, count, Integer.numberOfTrailingZeros(codes));
+        return written(actions, count, NONE);
+    }
+
+    private static int legalRetakePawnActions(GameState gameState, int[] actions) {
+        Board board = gameState.board();
+
+        int count = 0;
+        for (int index = 0; index < board.pawnCount() && index < NONE; index += 1) {
+            int tileId = Zone.tileId(board.pawnZoneIdAt(index));
+            if (board.tileWithId(tileId).placer() == gameState.currentPlayer())
+                count = written(actions, count, index);
         }
+        return written(actions, count, NONE);
+    }
+
+    private static int written(int[] actions, int count, int action) {
+        if (count < actions.length) actions[count] = action;
+        return count + 1;
+    }
 
-        return new StateAction(gameState.withOccupantRemoved(occupant), string);
+    /**
+     * Returns the set of the (5-bit) codes of the occupants which the current player can place on
+     * the last placed tile, as a bitmask, with the same rules as
+     * GameState.lastTilePotentialOccupants.
+     */
+    private static int occupantCodes(GameState gameState) {
+        Board board = gameState.board();
+        PlacedTile tile = board.lastPlacedTile();
+        if (tile.placer() == null)
+            return 0;
+
+        PlayerColor player = gameState.currentPlayer();
+        boolean hasPawn = gameState.freeOccupantsCount(player, PAWN) > 0;
+        boolean hasHut = gameState.freeOccupantsCount(player, HUT) > 0;
+        int pawnCodes = 0;
+        int hutCodes = 0;
+        for (int localId = 0; localId < Tile.LOCAL_ID_COUNT; localId += 1) {
+            // tested in turn rather than with a pattern switch, whose bootstrap allocates
+            Zone zone = tile.tile().zoneWithLocalId(localId);
+            if (zone instanceof Zone.Forest forest) {
+                if (hasPawn && !board.forestArea(forest).isOccupied())
+                    pawnCodes |= 1 << localId;
+            } else if (zone instanceof Zone.Meadow meadow) {
+                if (hasPawn && !board.meadowArea(meadow).isOccupied())
+                    pawnCodes |= 1 << localId;
+            } else if (zone instanceof Zone.River river) {
+                if (hasPawn && !board.riverArea(river).isOccupied())
+                    pawnCodes |= 1 << localId;
+                if (hasHut && !river.hasLake() && !board.riverSystemArea(river).isOccupied())
+                    hutCodes |= 1 << localId;
+            } else if (zone instanceof Zone.Lake lake) {
+                if (hasHut && !board.riverSystemArea(lake).isOccupied())
+                    hutCodes |= 1 << localId;
+            }
+        }
+        return pawnCodes << (PAWN.ordinal() << KIND_MASK)
+                | hutCodes << (HUT.ordinal() << KIND_MASK);
     }
 
-    private static List<Pos> getSortedPositions(GameState gameState) {
-        return gameState.board().insertionPositions().stream()
-                .sorted(Comparator.comparingInt(Pos::x)
-                        .thenComparingInt(Pos::y))
-                .toList();
+    private static class DecodingException extends Exception {
+        private final Failure failure;
+
+        private DecodingException(Failure failure) {
+            // the stack trace is never looked at, and filling it in would slow down batches
+            super(null, null, false, false);
+            this.failure = failure;
+        }
     }
 
-    private static List<Occupant> getSortedOccupants(GameState gameState) {
-        return gameState.board().occupants().stream()
-                .filter(o -> o.kind() == PAWN)
-                .sorted(Comparator.comparingInt(Occupant::zoneId))
-                .toList();
+    /**
+     * Represents the reason why an action is invalid.
+     */
+    public enum Failure {
+        /**
+         * The string is not a base32 string of one or two characters.
+         */
+        INVALID_STRING,
+        /**
+         * The game state does not expect any action (its game has not started or is over).
+         */
+        UNEXPECTED_ACTION,
+        /**
+         * The tile is placed on a position which is not an insertion position.
+         */
+        INVALID_POSITION,
+        /**
+         * The tile, once rotated, does not fit on its position.
+         */
+        TILE_DOES_NOT_FIT,
+        /**
+         * The occupant cannot be placed on the last placed tile.
+         */
+        INVALID_OCCUPANT,
+        /**
+         * There is no pawn with that index on the board.
+         */
+        INVALID_PAWN,
+        /**
+         * The pawn is not on a tile placed by the current player.
+         */
+        PAWN_OF_OTHER_PLAYER
     }
 
-    private static class DecodingException extends Exception {}
+    /**
+     * Represents the result of the application of a sequence of actions: the final game state if
+     * all of them are valid, otherwise the game state before the first invalid one, with its index
+     * and the reason why it is invalid.
+     *
+     * @param gameState the final game state, or the game state before the first invalid action
+     * @param failureIndex the index of the first invalid action, or NO_FAILURE
+     * @param failure the reason why the first invalid action is invalid, or null
+     */
+    public record BatchResult(GameState gameState, int failureIndex, Failure failure) {
+        /**
+         * Index of the first invalid action when all actions are valid.
+         */
+        public static final int NO_FAILURE = -1;
+
+        /**
+         * Returns true iff all actions are valid.
+         *
+         * @return true iff all actions are valid
+         */
+        public boolean isSuccess() {
+            return failure == null;
+        }
+    }
 
     /**
      * Represents a pair of the game state and the string representing the action.
@@ -7,28 +7,160 @@ import static ch.epfl.chacun.Preconditions.checkArgument;
 
 /**
  * Represents an area.
+ * <p>
+ * Besides its zones, an area keeps the identifiers of its zones and of their tiles as bit sets, and
+ * the aggregates needed for scoring (menhirs, mushroom groups, fish, lakes, animals and zones with
+ * a special power), which are merged when areas are connected instead of being recomputed from
+ * the zones every time they are needed. Zones are identified by their identifier.
  *
  * @author Sam Lee (375535)
  *
- * @param zones all the zones constituting the area
- * @param occupants the colors of any players occupying the area
- * @param openConnections the number of open connections in the area
+ * @param <Z> the type parameter representing the zone type
  */
-public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, int openConnections)
-        implements Serializable {
+public final class Area<Z extends Zone> implements Serializable {
+    private static final long serialVersionUID = 1;
+
+    /**
+     * The zones constituting the area, without duplicates.
+     */
+    private final List<Z> zoneList;
+
     /**
-     * A compact constructor of Area.
+     * Identifiers of the zones of the area.
+     */
+    private final BitSet zoneIds;
+
+    /**
+     * Identifiers of the tiles containing the zones of the area.
+     */
+    private final BitSet tileIdBits;
+
+    /**
+     * The colors of the players occupying the area, sorted.
+     */
+    private final List<PlayerColor> occupants;
+
+    /**
+     * The number of open connections in the area.
+     */
+    private final int openConnections;
+
+    /**
+     * Scoring aggregates of the zones of the area.
+     */
+    private final Aggregates aggregates;
+
+    /**
+     * The set of zones and the set of tile identifiers, computed when first needed.
+     */
+    private transient Set<Z> zones;
+    private transient Set<Integer> tileIds;
+
+    private Area(List<Z> zoneList,
+                 BitSet zoneIds,
+                 BitSet tileIdBits,
+                 List<PlayerColor> occupants,
+                 int openConnections,
+                 Aggregates aggregates) {
+        checkArgument(openConnections >= 0);
+        this.zoneList = zoneList;
+        this.zoneIds = zoneIds;
+        this.tileIdBits = tileIdBits;
+        this.occupants = occupants;
+        this.openConnections = openConnections;
+        this.aggregates = aggregates;
+    }
+
+    /**
+     * Constructs an area.
      *
+     * @param zones all the zones constituting the area
+     * @param occupants the colors of any players occupying the area
+     * @param openConnections the number of open connections in the area
      * @throws IllegalArgumentException if open connection is not positive or zero
      */
-    public Area {
+    public Area(Set<Z> zones, List<PlayerColor> occupants, int openConnections) {
         checkArgument(openConnections >= 0);
 
-        zones = Set.copyOf(zones);
+        List<Z> myZones = List.copyOf(zones);
+        BitSet myZoneIds = new BitSet();
+        BitSet myTileIds = new BitSet();
+        Aggregates myAggregates = Aggregates.EMPTY;
+        for (Z zone : myZones) {
+            myZoneIds.set(zone.id());
+            myTileIds.set(zone.tileId());
+            myAggregates = myAggregates.merged(Aggregates.of(zone));
+        }
 
+        this.zoneList = myZones;
+        this.zoneIds = myZoneIds;
+        this.tileIdBits = myTileIds;
+        this.occupants = sorted(occupants);
+        this.openConnections = openConnections;
+        this.aggregates = myAggregates;
+        this.zones = Set.copyOf(zones);
+    }
+
+    private static List<PlayerColor> sorted(List<PlayerColor> occupants) {
         List<PlayerColor> sortedOccupants = new ArrayList<>(occupants);
         Collections.sort(sortedOccupants);
-        occupants = List.copyOf(sortedOccupants);
+        return List.copyOf(sortedOccupants);
+    }
+
+    /**
+     * Returns all the zones constituting the area.
+     *
+     * @return all the zones constituting the area
+     */
+    public Set<Z> zones() {
+        if (zones == null) zones = Set.copyOf(zoneList);
+        return zones;
+    }
+
+    /**
+     * Returns the zones constituting the area as an unmodifiable list, without building their set.
+     *
+     * @return the zones constituting the area, as a list
+     */
+    List<Z> zoneList() {
+        return zoneList;
+    }
+
+    /**
+     * Returns the number of zones constituting the area.
+     *
+     * @return the number of zones constituting the area
+     */
+    int zoneCount() {
+        return zoneList.size();
+    }
+
+    /**
+     * Returns the colors of the players occupying the area, sorted.
+     *
+     * @return the colors of the players occupying the area, sorted
+     */
+    public List<PlayerColor> occupants() {
+        return occupants;
+    }
+
+    /**
+     * Returns the number of open connections in the area.
+     *
+     * @return the number of open connections in the area
+     */
+    public int openConnections() {
+        return openConnections;
+    }
+
+    /**
+     * Returns true iff the area contains a zone with the identifier of the given zone.
+     *
+     * @param zone the given zone
+     * @return true iff the area contains a zone with the identifier of the given zone
+     */
+    public boolean contains(Z zone) {
+        return zone.id() >= 0 && zoneIds.get(zone.id());
     }
 
     /**
@@ -38,10 +170,7 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
      * @return true if and only if the given forest contains at least one menhir
      */
     public static boolean hasMenhir(Area<Zone.Forest> forest) {
-        for (Zone.Forest f : forest.zones())
-            if (f.kind() == Zone.Forest.Kind.WITH_MENHIR)
-                return true;
-        return false;
+        return forest.aggregates.menhirCount() > 0;
     }
 
     /**
@@ -51,10 +180,7 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
      * @return the number of groups of mushrooms that the given forest contains
      */
     public static int mushroomGroupCount(Area<Zone.Forest> forest) {
-        int count = 0;
-        for (Zone.Forest f : forest.zones())
-            if (f.kind() == Zone.Forest.Kind.WITH_MUSHROOMS) count++;
-        return count;
+        return forest.aggregates.mushroomGroupCount();
     }
 
     /**
@@ -67,12 +193,41 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
      * set of given canceled animals
      */
     public static Set<Animal> animals(Area<Zone.Meadow> meadow, Set<Animal> cancelledAnimals) {
-        Set<Animal> availableAnimals = new HashSet<>();
-        for (Zone.Meadow zone : meadow.zones()) availableAnimals.addAll(zone.animals());
-        availableAnimals.removeAll(cancelledAnimals);
+        Set<Animal> availableAnimals = new HashSet<>(meadow.aggregates.animals());
+        if (!cancelledAnimals.isEmpty()) availableAnimals.removeAll(cancelledAnimals);
         return availableAnimals;
     }
 
+    /**
+     * Returns the animals found in the given meadow, cancelled or not, as an unmodifiable list.
+     *
+     * @param meadow the given meadow
+     * @return the animals found in the given meadow
+     */
+    static List<Animal> animalList(Area<Zone.Meadow> meadow) {
+        return meadow.aggregates.animals();
+    }
+
+    /**
+     * Returns the number of animals of the given kind found in the given meadow but which are not
+     * part of the set of given cancelled animals, read from the counts kept by the meadow.
+     *
+     * @param meadow the given meadow
+     * @param kind the given kind of animal
+     * @param cancelledAnimals the set of given cancelled animals, which may contain animals of
+     * other meadows
+     * @return the number of animals of the given kind of the meadow which are not cancelled
+     */
+    static int animalCount(Area<Zone.Meadow> meadow,
+                           Animal.Kind kind,
+                           Set<Animal> cancelledAnimals) {
+        int count = meadow.aggregates.animalCounts()[kind.ordinal()];
+        // the identifier of an animal is that of its zone followed by one digit
+        for (Animal animal : cancelledAnimals)
+            if (animal.kind() == kind && meadow.zoneIds.get(animal.id() / 10)) count -= 1;
+        return count;
+    }
+
     /**
      * Returns the number of fish swimming in the given river or in one of the possible lakes at its
      * ends.
@@ -82,15 +237,10 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
      * ends
      */
     public static int riverFishCount(Area<Zone.River> river) {
-        Set<Zone.Lake> encounteredLakes = new HashSet<>();
-        int count = 0;
-        for (Zone.River zone : river.zones()) {
-            count += zone.fishCount();
-            // The fish in a given lake should only be counted once even in the case where a single
-            // lake ends the river at both ends
-            if (zone.hasLake() && encounteredLakes.add(zone.lake()))
-                count += zone.lake().fishCount();
-        }
+        // The fish in a given lake should only be counted once even in the case where a single
+        // lake ends the river at both ends, hence the distinct lakes kept by the aggregates
+        int count = river.aggregates.fishCount();
+        for (Zone.Lake lake : river.aggregates.endLakes()) count += lake.fishCount();
         return count;
     }
 
@@ -101,9 +251,7 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
      * @return the number of fish swimming in the given river system
      */
     public static int riverSystemFishCount(Area<Zone.Water> riverSystem) {
-        int count = 0;
-        for (Zone.Water zone : riverSystem.zones()) count += zone.fishCount();
-        return count;
+        return riverSystem.aggregates.fishCount();
     }
 
     /**
@@ -113,10 +261,7 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
      * @return the number of lakes in the given river system
      */
     public static int lakeCount(Area<Zone.Water> riverSystem) {
-        int count = 0;
-        for (Zone.Water zone : riverSystem.zones())
-            if (zone instanceof Zone.Lake) count++;
-        return count;
+        return riverSystem.aggregates.lakeCount();
     }
 
     /**
@@ -161,24 +306,43 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
 
     /**
      * Returns the area resulting from connecting the receiver (this) to the given area (that).
+     * <p>
+     * The aggregates of disjoint areas are merged, while those of distinct areas sharing zones are
+     * recomputed from the union of their zones, so that no zone is counted twice.
      *
      * @param that the given area
      * @return the area resulting from connecting the receiver (this) to the given area (that)
      */
     public Area<Z> connectTo(Area<Z> that) {
-        Set<Z> myZones = new HashSet<>(zones);
-        List<PlayerColor> myOccupants = new ArrayList<>(occupants);
-        int myOpenConnections;
-
         if (this.equals(that))
-            myOpenConnections = openConnections - 2;
-        else {
-            myZones.addAll(that.zones);
+            return new Area<>(zoneList, zoneIds, tileIdBits, occupants, openConnections - 2, aggregates);
+
+        if (zoneIds.intersects(that.zoneIds)) {
+            Set<Z> myZones = new HashSet<>(zoneList);
+            myZones.addAll(that.zoneList);
+            List<PlayerColor> myOccupants = new ArrayList<>(occupants);
             myOccupants.addAll(that.occupants);
-            myOpenConnections = this.openConnections + that.openConnections - 2;
+            return new Area<>(myZones, myOccupants, openConnections + that.openConnections - 2);
         }
 
-        return new Area<>(myZones, myOccupants, myOpenConnections);
+        List<Z> myZones = new ArrayList<>(zoneList.size() + that.zoneList.size());
+        myZones.addAll(zoneList);
+        myZones.addAll(that.zoneList);
+
+        BitSet myZoneIds = (BitSet) zoneIds.clone();
+        myZoneIds.or(that.zoneIds);
+        BitSet myTileIds = (BitSet) tileIdBits.clone();
+        myTileIds.or(that.tileIdBits);
+
+        List<PlayerColor> myOccupants = new ArrayList<>(occupants);
+        myOccupants.addAll(that.occupants);
+
+        return new Area<>(Collections.unmodifiableList(myZones),
+                myZoneIds,
+                myTileIds,
+                sorted(myOccupants),
+                this.openConnections + that.openConnections - 2,
+                aggregates.merged(that.aggregates));
     }
 
     /**
@@ -190,7 +354,7 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
      */
     public Area<Z> withInitialOccupant(PlayerColor occupant) {
         checkArgument(!isOccupied());
-        return new Area<>(zones, List.of(occupant), openConnections);
+        return new Area<>(zoneList, zoneIds, tileIdBits, List.of(occupant), openConnections, aggregates);
     }
 
     /**
@@ -208,7 +372,7 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
         List<PlayerColor> myOccupants = new ArrayList<>(occupants);
         myOccupants.remove(occupant);
 
-        return new Area<>(zones, myOccupants, openConnections);
+        return new Area<>(zoneList, zoneIds, tileIdBits, List.copyOf(myOccupants), openConnections, aggregates);
     }
 
     /**
@@ -217,7 +381,7 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
      * @return an area identical to the receiver, but completely devoid of occupants
      */
     public Area<Z> withoutOccupants() {
-        return new Area<>(zones, List.of(), openConnections);
+        return new Area<>(zoneList, zoneIds, tileIdBits, List.of(), openConnections, aggregates);
     }
 
     /**
@@ -226,11 +390,19 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
      * @return the set of the tile ids containing the area
      */
     public Set<Integer> tileIds() {
-        Set<Integer> tileIds = new HashSet<>();
-        for (var zone : zones) tileIds.add(zone.tileId());
+        if (tileIds == null) tileIds = Set.copyOf(tileIdBits.stream().boxed().toList());
         return tileIds;
     }
 
+    /**
+     * Returns the number of tiles containing the area.
+     *
+     * @return the number of tiles containing the area
+     */
+    public int tileCount() {
+        return tileIdBits.cardinality();
+    }
+
     /**
      * Returns the zone of the area that has the given special power, or null if none exists.
      *
@@ -238,9 +410,116 @@ public record Area<Z extends Zone>(Set<Z> zones, List<PlayerColor> occupants, in
      * @return the zone of the area that has the given special power, or null if none exists
      */
     public Zone zoneWithSpecialPower(Zone.SpecialPower specialPower) {
-        for (Zone zone : zones)
+        for (Zone zone : aggregates.specialPowerZones())
             if (zone.specialPower() == specialPower)
                 return zone;
         return null;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof Area<?> that
+                && openConnections == that.openConnections
+                && occupants.equals(that.occupants)
+                && zoneIds.equals(that.zoneIds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(zoneIds, occupants, openConnections);
+    }
+
+    @Override
+    public String toString() {
+        return STR."Area[zones=\{zones()}, occupants=\{occupants}, openConnections=\{openConnections}]";
+    }
+
+    /**
+     * Scoring aggregates of a set of zones.
+     *
+     * @param menhirCount the number of forest zones with a menhir
+     * @param mushroomGroupCount the number of forest zones with mushrooms
+     * @param fishCount the number of fish in the water zones (lakes at the end of rivers excluded)
+     * @param lakeCount the number of lake zones
+     * @param endLakes the distinct lakes at the end of the river zones
+     * @param animals the animals of the meadow zones
+     * @param animalCounts the number of animals of the meadow zones by kind (ordinal), which is
+     * never modified
+     * @param specialPowerZones the zones with a special power
+     */
+    private record Aggregates(int menhirCount,
+                              int mushroomGroupCount,
+                              int fishCount,
+                              int lakeCount,
+                              List<Zone.Lake> endLakes,
+                              List<Animal> animals,
+                              int[] animalCounts,
+                              List<Zone> specialPowerZones) implements Serializable {
+        private static final int[] NO_ANIMAL_COUNTS = new int[Animal.Kind.values().length];
+        private static final Aggregates EMPTY =
+                new Aggregates(0, 0, 0, 0, List.of(), List.of(), NO_ANIMAL_COUNTS, List.of());
+
+        private static Aggregates of(Zone zone) {
+            List<Zone> specialPowerZones = zone.specialPower() == null ? List.of() : List.of(zone);
+            return switch (zone) {
+                case Zone.Forest forest -> new Aggregates(
+                        forest.kind() == Zone.Forest.Kind.WITH_MENHIR ? 1 : 0,
+                        forest.kind() == Zone.Forest.Kind.WITH_MUSHROOMS ? 1 : 0,
+                        0, 0, List.of(), List.of(), NO_ANIMAL_COUNTS, specialPowerZones);
+                case Zone.Meadow meadow -> new Aggregates(0, 0, 0, 0, List.of(),
+                        meadow.animals(), animalCounts(meadow.animals()), specialPowerZones);
+                case Zone.River river -> new Aggregates(0, 0, river.fishCount(), 0,
+                        river.hasLake() ? List.of(river.lake()) : List.of(),
+                        List.of(), NO_ANIMAL_COUNTS, specialPowerZones);
+                case Zone.Lake lake -> new Aggregates(0, 0, lake.fishCount(), 1,
+                        List.of(), List.of(), NO_ANIMAL_COUNTS, specialPowerZones);
+            };
+        }
+
+        private static int[] animalCounts(List<Animal> animals) {
+            if (animals.isEmpty()) return NO_ANIMAL_COUNTS;
+            int[] counts = new int[NO_ANIMAL_COUNTS.length];
+            for (Animal animal : animals) counts[animal.kind().ordinal()] += 1;
+            return counts;
+        }
+
+        private static int[] summed(int[] counts1, int[] counts2) {
+            if (counts2 == NO_ANIMAL_COUNTS) return counts1;
+            if (counts1 == NO_ANIMAL_COUNTS) return counts2;
+
+            int[] counts = counts1.clone();
+            for (int i = 0; i < counts.length; i += 1) counts[i] += counts2[i];
+            return counts;
+        }
+
+        private Aggregates merged(Aggregates that) {
+            if (that == EMPTY) return this;
+            if (this == EMPTY) return that;
+
+            return new Aggregates(menhirCount + that.menhirCount,
+                    mushroomGroupCount + that.mushroomGroupCount,
+                    fishCount + that.fishCount,
+                    lakeCount + that.lakeCount,
+                    distinctConcat(endLakes, that.endLakes),
+                    concat(animals, that.animals),
+                    summed(animalCounts, that.animalCounts),
+                    concat(specialPowerZones, that.specialPowerZones));
+        }
+
+        private static <T> List<T> concat(List<T> list1, List<T> list2) {
+            if (list2.isEmpty()) return list1;
+            if (list1.isEmpty()) return list2;
+
+            List<T> list = new ArrayList<>(list1);
+            list.addAll(list2);
+            return List.copyOf(list);
+        }
+
+        private static <T> List<T> distinctConcat(List<T> list1, List<T> list2) {
+            List<T> list = new ArrayList<>(list1);
+            for (T element : list2)
+                if (!list.contains(element)) list.add(element);
+            return list.size() == list1.size() ? list1 : List.copyOf(list);
+        }
+    }
+}
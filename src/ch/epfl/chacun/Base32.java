@@ -1,11 +1,19 @@
 package ch.epfl.chacun;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import static ch.epfl.chacun.Preconditions.checkArgument;
 
 /**
  * Contains methods for encoding and decoding base32 binary values.
+ * <p>
+ * Digits are decoded with a table indexed by character, and the strings of all 5-bit and 10-bit
+ * values are built once, so that neither decoding nor encoding allocates. Logs of actions, made
+ * of the strings of the actions separated by whitespace or commas, are decoded in a single pass
+ * from a character sequence or a buffer of ASCII bytes, without building the string of each
+ * action.
  *
  * @author Sam Lee (375535)
  */
@@ -17,20 +25,55 @@ public final class Base32 implements Serializable {
      */
     public static final String ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567";
 
+    /**
+     * Separator of the strings of the actions in the logs written by this class.
+     */
+    public static final char LOG_SEPARATOR = ' ';
+
+    private static final int DIGIT_BITS = 5;
     private static final int MAX_5_BIT = 0b11111;
     private static final int MAX_10_BIT = 0b1111111111;
+    private static final int NOT_A_DIGIT = -1;
+    private static final int SEPARATOR = -2;
+
+    /**
+     * Value of each ASCII character: its digit, SEPARATOR or NOT_A_DIGIT.
+     */
+    private static final byte[] VALUES = new byte[128];
+
+    private static final String[] STRINGS_5 = new String[MAX_5_BIT + 1];
+    private static final String[] STRINGS_10 = new String[MAX_10_BIT + 1];
+
+    static {
+        Arrays.fill(VALUES, (byte) NOT_A_DIGIT);
+        for (char c : " ,\t\r\n".toCharArray())
+            VALUES[c] = SEPARATOR;
+        for (int digit = 0; digit <= MAX_5_BIT; digit += 1) {
+            VALUES[ALPHABET.charAt(digit)] = (byte) digit;
+            STRINGS_5[digit] = String.valueOf(ALPHABET.charAt(digit));
+        }
+        for (int bit = 0; bit <= MAX_10_BIT; bit += 1)
+            STRINGS_10[bit] = STRINGS_5[bit >>> DIGIT_BITS] + STRINGS_5[bit & MAX_5_BIT];
+    }
+
+    private static int value(int c) {
+        return c < VALUES.length && c >= 0 ? VALUES[c] : NOT_A_DIGIT;
+    }
 
     /**
-     * Returns true iff the given string is only composed of characters from the base32 alphabet.
+     * Returns true iff the given sequence is made of one or two characters from the base32
+     * alphabet.
      *
-     * @param string the given string of characters
-     * @return true iff the given string is only composed of characters from the base32 alphabet
+     * @param string the given sequence of characters
+     * @return true iff the given sequence is made of one or two characters from the base32 alphabet
      */
-    public static boolean isValid(String string) {
+    public static boolean isValid(CharSequence string) {
         if (string == null || string.isEmpty() || string.length() > 2)
             return false;
 
-        return string.chars().allMatch(c -> ALPHABET.indexOf(c) != -1);
+        for (int i = 0; i < string.length(); i++)
+            if (value(string.charAt(i)) < 0) return false;
+        return true;
     }
 
     /**
@@ -41,8 +84,8 @@ public final class Base32 implements Serializable {
      * @throws IllegalArgumentException if the given integer can't be converted to a valid Base32 string
      */
     public static String encodeBits5(int bit) {
-        checkArgument(bit <= MAX_5_BIT);
-        return String.valueOf(ALPHABET.charAt(bit));
+        checkArgument(0 <= bit && bit <= MAX_5_BIT);
+        return STRINGS_5[bit];
     }
 
     /**
@@ -53,8 +96,44 @@ public final class Base32 implements Serializable {
      * @throws IllegalArgumentException if the given integer can't be converted to a valid Base32 string
      */
     public static String encodeBits10(int bit) {
-        checkArgument(bit <= MAX_10_BIT);
-        return encodeBits5(bit >>> 5) + encodeBits5(bit & MAX_5_BIT);
+        checkArgument(0 <= bit && bit <= MAX_10_BIT);
+        return STRINGS_10[bit];
+    }
+
+    /**
+     * Appends the base32 encoding of the given integer, on the given number of bits (5 or 10), to
+     * the given log, preceded by LOG_SEPARATOR unless the log is empty.
+     *
+     * @param log the given log
+     * @param bit the given integer
+     * @param bits the number of bits of the integer, 5 or 10
+     * @throws IllegalArgumentException if the number of bits is not 5 or 10, or the given integer
+     * can't be converted to a valid Base32 string of that number of bits
+     */
+    public static void appendTo(StringBuilder log, int bit, int bits) {
+        checkArgument(bits == DIGIT_BITS || bits == 2 * DIGIT_BITS);
+        String string = bits == DIGIT_BITS ? encodeBits5(bit) : encodeBits10(bit);
+        if (!log.isEmpty()) log.append(LOG_SEPARATOR);
+        log.append(string);
+    }
+
+    /**
+     * Puts the base32 encoding of the given integer, on the given number of bits (5 or 10), as
+     * ASCII bytes in the given buffer, preceded by LOG_SEPARATOR unless it is at its start.
+     *
+     * @param log the given buffer
+     * @param bit the given integer
+     * @param bits the number of bits of the integer, 5 or 10
+     * @throws IllegalArgumentException if the number of bits is not 5 or 10, or the given integer
+     * can't be converted to a valid Base32 string of that number of bits
+     * @throws java.nio.BufferOverflowException if the buffer has no room left for it
+     */
+    public static void putTo(ByteBuffer log, int bit, int bits) {
+        checkArgument(bits == DIGIT_BITS || bits == 2 * DIGIT_BITS);
+        checkArgument(0 <= bit && bit < 1 << bits);
+        if (log.position() != 0) log.put((byte) LOG_SEPARATOR);
+        if (bits != DIGIT_BITS) log.put((byte) ALPHABET.charAt(bit >>> DIGIT_BITS));
+        log.put((byte) ALPHABET.charAt(bit & MAX_5_BIT));
     }
 
     /**
@@ -62,12 +141,90 @@ public final class Base32 implements Serializable {
      *
      * @param string the given string
      * @return the corresponding integer from a string of length 1 or 2 representing a base32 number
+     * @throws IllegalArgumentException if the given string is not valid (see isValid)
      */
-    public static int decode(String string) {
+    public static int decode(CharSequence string) {
+        checkArgument(!string.isEmpty() && string.length() <= 2);
         int bit = 0;
-        for (int i = 0; i < string.length(); i++)
-            bit = (bit << 5) | ALPHABET.indexOf(string.charAt(i));
+        for (int i = 0; i < string.length(); i++) {
+            int digit = value(string.charAt(i));
+            checkArgument(digit >= 0);
+            bit = (bit << DIGIT_BITS) | digit;
+        }
 
         return bit;
     }
+
+    /**
+     * Decodes the given log, made of base32 strings of length 1 or 2 separated by whitespace or
+     * commas, writes their values in order at the beginning of the given array, as far as it has
+     * room for them, and returns their number.
+     *
+     * @param log the given log
+     * @param actions the array in which the values are written
+     * @return the number of strings of the log
+     * @throws IllegalArgumentException if the log contains another character, or a longer string
+     */
+    public static int decodeAll(CharSequence log, int[] actions) {
+        LogDecoder decoder = new LogDecoder(actions);
+        for (int i = 0; i < log.length(); i++)
+            decoder.accept(value(log.charAt(i)));
+        return decoder.count();
+    }
+
+    /**
+     * Decodes the remaining ASCII bytes of the given buffer, which form a log of base32 strings of
+     * length 1 or 2 separated by whitespace or commas, writes their values in order at the
+     * beginning of the given array, as far as it has room for them, and returns their number. The
+     * position of the buffer is left unchanged.
+     *
+     * @param log the given buffer
+     * @param actions the array in which the values are written
+     * @return the number of strings of the log
+     * @throws IllegalArgumentException if the log contains another character, or a longer string
+     */
+    public static int decodeAll(ByteBuffer log, int[] actions) {
+        LogDecoder decoder = new LogDecoder(actions);
+        for (int i = log.position(); i < log.limit(); i++)
+            decoder.accept(value(log.get(i)));
+        return decoder.count();
+    }
+
+    /**
+     * Decoder of a log, fed with the values of its characters.
+     */
+    private static final class LogDecoder {
+        private final int[] actions;
+        private int count;
+        private int bit;
+        private int digits;
+
+        private LogDecoder(int[] actions) {
+            this.actions = actions;
+        }
+
+        private void accept(int value) {
+            checkArgument(value != NOT_A_DIGIT);
+            if (value == SEPARATOR) {
+                flush();
+            } else {
+                checkArgument(digits < 2);
+                bit = bit << DIGIT_BITS | value;
+                digits += 1;
+            }
+        }
+
+        private void flush() {
+            if (digits == 0) return;
+            if (count < actions.length) actions[count] = bit;
+            count += 1;
+            bit = 0;
+            digits = 0;
+        }
+
+        private int count() {
+            flush();
+            return count;
+        }
+    }
 }
@@ -2,7 +2,6 @@ package ch.epfl.chacun;
 
 import java.io.Serializable;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static ch.epfl.chacun.Preconditions.checkArgument;
 
@@ -12,15 +11,32 @@ import static ch.epfl.chacun.Preconditions.checkArgument;
  * @author Sam Lee (375535)
  */
 public final class Board implements Serializable {
+    private static final long serialVersionUID = 1;
+
     /**
-     * Array of placed tiles, containing elements mostly equal to null.
+     * Placed tiles by cell key (the packed coordinates of their position).
      */
-    private final PlacedTile[] placedTiles;
+    private final CellTrie placedTiles;
 
     /**
-     * Tile indexes in the order in which they were placed.
+     * Cell keys of the tiles, in the order in which they were placed.
      */
-    private final int[] tileIndexes;
+    private final long[] tileKeys;
+
+    /**
+     * Placement order of the tiles by tile identifier, -1 for the tiles that are not on the board.
+     */
+    private final int[] tileOrdersById;
+
+    /**
+     * Range of the board, UNBOUNDED_REACH if the board has no limit.
+     */
+    private final int reach;
+
+    /**
+     * Smallest range containing all the placed tiles and the insertion positions.
+     */
+    private final int extent;
 
     /**
      * Contains the partitions on the board (those of the zones of the placed tiles).
@@ -32,32 +48,99 @@ public final class Board implements Serializable {
      */
     private final Set<Animal> cancelledAnimals;
 
+    /**
+     * Placement oracle of the positions on which a tile can be inserted (the fringe), kept up to
+     * date by withNewTile.
+     */
+    private final PlacementOracle placementOracle;
+
+    /**
+     * Occupants present on the board, and their count per player and kind.
+     */
+    private final OccupantIndex occupantIndex;
+
+    /**
+     * One zone of each area the last placed tile belongs to, recorded by withNewTile.
+     */
+    private final LastTileAreas lastTileAreas;
+
+    /**
+     * Zobrist key of the placed tiles, occupants and cancelled animals (see Zobrist).
+     */
+    private final long zobristKey;
+
     /**
      * Constructs a new Board instance.
      *
-     * @param placedTiles Array of placed tiles
-     * @param tileIndexes Array of tile indexes
+     * @param placedTiles Trie of placed tiles
+     * @param tileKeys Array of cell keys of the tiles, in placement order
+     * @param tileOrdersById Array of placement orders by tile identifier
+     * @param reach Range of the board
+     * @param extent Range covered by the tiles and the insertion positions
      * @param zonePartitions Zone partitions
      * @param cancelledAnimals Set of cancelled animals
+     * @param placementOracle Placement oracle of the insertion positions
+     * @param occupantIndex Index of the occupants
+     * @param lastTileAreas Zones of the areas the last placed tile belongs to
+     * @param zobristKey Zobrist key of the board
      */
-    private Board(PlacedTile[] placedTiles, int[] tileIndexes, ZonePartitions zonePartitions, Set<Animal> cancelledAnimals) {
+    private Board(CellTrie placedTiles,
+                  long[] tileKeys,
+                  int[] tileOrdersById,
+                  int reach,
+                  int extent,
+                  ZonePartitions zonePartitions,
+                  Set<Animal> cancelledAnimals,
+                  PlacementOracle placementOracle,
+                  OccupantIndex occupantIndex,
+                  LastTileAreas lastTileAreas,
+                  long zobristKey) {
         this.placedTiles = placedTiles;
-        this.tileIndexes = tileIndexes;
+        this.tileKeys = tileKeys;
+        this.tileOrdersById = tileOrdersById;
+        this.reach = reach;
+        this.extent = extent;
         this.zonePartitions = zonePartitions;
         this.cancelledAnimals = cancelledAnimals;
+        this.placementOracle = placementOracle;
+        this.occupantIndex = occupantIndex;
+        this.lastTileAreas = lastTileAreas;
+        this.zobristKey = zobristKey;
     }
 
     /**
      * Represents the range of the board.
      */
     public static final int REACH = 12;
-    private static final int LENGTH = REACH * 2 + 1;
-    private static final int TILES = LENGTH * LENGTH;
 
     /**
-     * Empty board instance.
+     * Range of the boards which have no limit.
+     */
+    public static final int UNBOUNDED_REACH = Integer.MAX_VALUE;
+
+    /**
+     * Empty board instance, whose range is REACH.
      */
-    public static final Board EMPTY = new Board(new PlacedTile[TILES], new int[0], ZonePartitions.EMPTY, Set.of());
+    public static final Board EMPTY = empty(REACH);
+
+    /**
+     * Empty board instance without any limit, for decks which need more room than REACH allows.
+     */
+    public static final Board EMPTY_UNBOUNDED = empty(UNBOUNDED_REACH);
+
+    private static Board empty(int reach) {
+        return new Board(CellTrie.EMPTY,
+                new long[0],
+                new int[0],
+                reach,
+                0,
+                ZonePartitions.EMPTY,
+                Set.of(),
+                PlacementOracle.EMPTY,
+                OccupantIndex.EMPTY,
+                LastTileAreas.EMPTY,
+                0);
+    }
 
     /**
      * Returns the placed tile at the specified position on the board.
@@ -66,19 +149,48 @@ public final class Board implements Serializable {
      * @return the placed tile at the specified position, or null if no tile is present
      */
     public PlacedTile tileAt(Pos pos) {
-        if (Math.abs(pos.x()) <= REACH && Math.abs(pos.y()) <= REACH)
-            return placedTiles[indexOf(pos)];
-        return null;
+        return placedTiles.get(keyOf(pos));
+    }
+
+    /**
+     * Returns the range of the board, i.e. the largest coordinate (in absolute value) a tile can
+     * have, which is UNBOUNDED_REACH if the board has no limit.
+     *
+     * @return the range of the board
+     */
+    public int reach() {
+        return reach;
     }
 
     /**
-     * Returns the index of the given position (without checking if it's in the scope).
+     * Returns the smallest range containing all the placed tiles and all the insertion positions,
+     * i.e. the part of the board which actually has to be displayed.
+     *
+     * @return the smallest range containing all the placed tiles and all the insertion positions
+     */
+    public int extent() {
+        return extent;
+    }
+
+    /**
+     * Returns true iff the given position lies within the reach of the board.
      *
      * @param pos the given position
-     * @return the index of the given position (without checking if it's in the scope)
+     * @return true iff the given position lies within the reach of the board
      */
-    private int indexOf(Pos pos) {
-        return LENGTH * (pos.y() + REACH) + (pos.x() + REACH);
+    private boolean isInRange(Pos pos) {
+        return reach == UNBOUNDED_REACH
+                || -reach <= pos.x() && pos.x() <= reach && -reach <= pos.y() && pos.y() <= reach;
+    }
+
+    /**
+     * Returns the key of the cell at the given position, which packs its two coordinates.
+     *
+     * @param pos the given position
+     * @return the key of the cell at the given position
+     */
+    private static long keyOf(Pos pos) {
+        return (long) pos.x() << Integer.SIZE | pos.y() & 0xFFFF_FFFFL;
     }
 
     /**
@@ -89,10 +201,8 @@ public final class Board implements Serializable {
      * @throws IllegalArgumentException if no tile with the given ID is found
      */
     public PlacedTile tileWithId(int tileId) {
-       for (int i : tileIndexes)
-           if (placedTiles[i].id() == tileId)
-               return placedTiles[i];
-       throw new IllegalArgumentException();
+        checkArgument(tileId >= 0 && tileId < tileOrdersById.length && tileOrdersById[tileId] != -1);
+        return placedTiles.get(tileKeys[tileOrdersById[tileId]]);
     }
 
     /**
@@ -110,11 +220,7 @@ public final class Board implements Serializable {
      * @return a set of occupants
      */
     public Set<Occupant> occupants() {
-        Set<Occupant> allOccupants = new HashSet<>();
-        for (int i : tileIndexes)
-            if (placedTiles[i].occupant() != null)
-                allOccupants.add(placedTiles[i].occupant());
-        return allOccupants;
+        return occupantIndex.occupants();
     }
 
     /**
@@ -198,11 +304,12 @@ public final class Board implements Serializable {
             }
         }
 
+        Area<Zone.Meadow> meadow = meadowArea(meadowZone);
         Set<Zone.Meadow> myMeadows = new HashSet<>();
         for (var zone : adjacentMeadows)
-            if (meadowArea(meadowZone).zones().contains(zone)) myMeadows.add(zone);
+            if (meadow.contains(zone)) myMeadows.add(zone);
 
-        return new Area<>(myMeadows, meadowArea(meadowZone).occupants(), 0);
+        return new Area<>(myMeadows, meadow.occupants(), 0);
     }
 
     /**
@@ -213,15 +320,50 @@ public final class Board implements Serializable {
      * @return the count of occupants of the specified kind belonging to the given player
      */
     public int occupantCount(PlayerColor player, Occupant.Kind occupantKind) {
-        int count = 0;
-        for (int i : tileIndexes) {
-            if (placedTiles[i] != null
-                    && placedTiles[i].occupant() != null
-                    && placedTiles[i].placer() == player
-                    && placedTiles[i].occupant().kind() == occupantKind)
-                count++;
-        }
-        return count;
+        return occupantIndex.count(player, occupantKind);
+    }
+
+    /**
+     * Returns the number of tiles placed on the board.
+     *
+     * @return the number of tiles placed on the board
+     */
+    int placedTileCount() {
+        return tileKeys.length;
+    }
+
+    /**
+     * Returns the tile placed in the given order, the first tile placed having order 0.
+     *
+     * @param order the given order
+     * @return the tile placed in the given order
+     * @throws IndexOutOfBoundsException if the order is negative or not smaller than the number of
+     * tiles placed on the board
+     */
+    PlacedTile placedTileAt(int order) {
+        return placedTiles.get(tileKeys[order]);
+    }
+
+    /**
+     * Returns the number of pawns on the board.
+     *
+     * @return the number of pawns on the board
+     */
+    int pawnCount() {
+        return occupantIndex.pawnZoneIds().length;
+    }
+
+    /**
+     * Returns the identifier of the zone occupied by the pawn of the given index, the pawns on the
+     * board being sorted by the identifier of their zone.
+     *
+     * @param index the given index
+     * @return the identifier of the zone occupied by the pawn of the given index
+     * @throws IndexOutOfBoundsException if the index is negative or not smaller than the number of
+     * pawns on the board
+     */
+    int pawnZoneIdAt(int index) {
+        return occupantIndex.pawnZoneIds()[index];
     }
 
     /**
@@ -230,17 +372,17 @@ public final class Board implements Serializable {
      * @return the set of insertion positions on the board
      */
     public Set<Pos> insertionPositions() {
-        Set<Pos> positions = new HashSet<>();
+        return placementOracle.positions();
+    }
 
-        for (int i : tileIndexes)
-            Direction.ALL.forEach(d -> {
-                Pos pos = placedTiles[i].pos();
-                if (tileAt(pos.neighbor(d)) == null
-                        && Math.abs(pos.neighbor(d).x()) <= REACH
-                        && Math.abs(pos.neighbor(d).y()) <= REACH)
-                    positions.add(pos.neighbor(d));
-            });
-        return positions;
+    /**
+     * Returns the placement oracle of the board, which tells where and with which rotations a
+     * given tile could be placed.
+     *
+     * @return the placement oracle of the board
+     */
+    public PlacementOracle placementOracle() {
+        return placementOracle;
     }
 
     /**
@@ -249,24 +391,60 @@ public final class Board implements Serializable {
      * @return the last placed tile, or null if the board is empty
      */
     public PlacedTile lastPlacedTile() {
-        if (tileIndexes.length != 0) {
-            int lastIndex = tileIndexes[tileIndexes.length - 1];
-            return placedTiles[lastIndex];
-        }
+        if (tileKeys.length != 0)
+            return placedTiles.get(tileKeys[tileKeys.length - 1]);
         return null;
     }
 
+    /**
+     * Returns the set of forest areas the last placed tile belongs to.
+     *
+     * @return the set of forest areas the last placed tile belongs to, or an empty set if the board
+     * is empty
+     */
+    public Set<Area<Zone.Forest>> forestsTouchedByLastTile() {
+        return areasContaining(lastTileAreas.forests(), zonePartitions.forests());
+    }
+
+    /**
+     * Returns the set of meadow areas the last placed tile belongs to.
+     *
+     * @return the set of meadow areas the last placed tile belongs to, or an empty set if the board
+     * is empty
+     */
+    public Set<Area<Zone.Meadow>> meadowsTouchedByLastTile() {
+        return areasContaining(lastTileAreas.meadows(), zonePartitions.meadows());
+    }
+
+    /**
+     * Returns the set of river areas the last placed tile belongs to.
+     *
+     * @return the set of river areas the last placed tile belongs to, or an empty set if the board
+     * is empty
+     */
+    public Set<Area<Zone.River>> riversTouchedByLastTile() {
+        return areasContaining(lastTileAreas.rivers(), zonePartitions.rivers());
+    }
+
+    /**
+     * Returns the set of river system areas the last placed tile belongs to.
+     *
+     * @return the set of river system areas the last placed tile belongs to, or an empty set if the
+     * board is empty
+     */
+    public Set<Area<Zone.Water>> riverSystemsTouchedByLastTile() {
+        return areasContaining(lastTileAreas.riverSystems(), zonePartitions.riverSystems());
+    }
+
     /**
      * Returns the set of forest areas closed by placing the last tile on the board.
      *
      * @return the set of forest areas closed by the last tile, or an empty set if the board is empty
      */
     public Set<Area<Zone.Forest>> forestsClosedByLastTile() {
-        return zonePartitions.forests().areas().stream()
-                .filter(area -> area.isClosed()
-                        && lastPlacedTile() != null
-                        && lastPlacedTile().forestZones().stream().anyMatch(area.zones()::contains))
-                .collect(Collectors.toSet());
+        Set<Area<Zone.Forest>> forests = forestsTouchedByLastTile();
+        forests.removeIf(area -> !area.isClosed());
+        return forests;
     }
 
     /**
@@ -275,11 +453,16 @@ public final class Board implements Serializable {
      * @return the set of river areas closed by the last tile, or an empty set if the board is empty
      */
     public Set<Area<Zone.River>> riversClosedByLastTile() {
-        return zonePartitions.rivers().areas().stream()
-                .filter(area -> area.isClosed()
-                        && lastPlacedTile() != null
-                        && lastPlacedTile().riverZones().stream().anyMatch(area.zones()::contains))
-                .collect(Collectors.toSet());
+        Set<Area<Zone.River>> rivers = riversTouchedByLastTile();
+        rivers.removeIf(area -> !area.isClosed());
+        return rivers;
+    }
+
+    private static <Z extends Zone> Set<Area<Z>> areasContaining(List<Z> zones, ZonePartition<Z> partition) {
+        Set<Area<Z>> areas = new LinkedHashSet<>();
+        for (Z zone : zones)
+            areas.add(partition.areaContaining(zone));
+        return areas;
     }
 
     /**
@@ -291,15 +474,7 @@ public final class Board implements Serializable {
      * @return true iff the given placed tile could be added to the board
      */
     public boolean canAddTile(PlacedTile tile) {
-        if (!insertionPositions().contains(tile.pos()) || tileAt(tile.pos()) != null)
-            return false;
-
-        return Direction.ALL.stream()
-                .allMatch(direction -> {
-                    PlacedTile neighborTile = tileAt(tile.pos().neighbor(direction));
-                    return neighborTile == null
-                            || tile.side(direction).isSameKindAs(neighborTile.side(direction.opposite()));
-                });
+        return placementOracle.canPlace(tile.tile(), tile.rotation(), tile.pos());
     }
 
     /**
@@ -311,10 +486,7 @@ public final class Board implements Serializable {
      * board, possibly after rotation
      */
     public boolean couldPlaceTile(Tile tile) {
-        return insertionPositions().stream()
-                .flatMap(pos -> Rotation.ALL.stream()
-                        .map(rotation -> new PlacedTile(tile, null, rotation, pos)))
-                .anyMatch(this::canAddTile);
+        return placementOracle.canPlaceAnywhere(tile);
     }
 
     /**
@@ -326,24 +498,44 @@ public final class Board implements Serializable {
      * added to the board
      */
     public Board withNewTile(PlacedTile tile) {
-        checkArgument(tileIndexes.length == 0 || canAddTile(tile));
+        checkArgument(tileKeys.length == 0 ? isInRange(tile.pos()) : canAddTile(tile));
 
-        PlacedTile[] myPlacedTiles = placedTiles.clone();
-        int[] myTileIndexes = Arrays.copyOf(tileIndexes, tileIndexes.length + 1);
+        long[] myTileKeys = Arrays.copyOf(tileKeys, tileKeys.length + 1);
         ZonePartitions.Builder builder = new ZonePartitions.Builder(zonePartitions);
 
-        int index = indexOf(tile.pos());
+        long key = keyOf(tile.pos());
 
-        myPlacedTiles[index] = tile;
-        myTileIndexes[myTileIndexes.length - 1] = index;
+        CellTrie myPlacedTiles = placedTiles.with(key, tile);
+        myTileKeys[myTileKeys.length - 1] = key;
+
+        int[] myTileOrdersById = Arrays.copyOf(tileOrdersById,
+                Math.max(tileOrdersById.length, tile.id() + 1));
+        Arrays.fill(myTileOrdersById, tileOrdersById.length, myTileOrdersById.length, -1);
+        myTileOrdersById[tile.id()] = tileKeys.length;
         builder.addTile(tile.tile());
 
-        Direction.ALL.stream()
-                .filter(direction -> tileAt(tile.pos().neighbor(direction)) != null)
-                .forEach(direction -> builder.connectSides(tile.side(direction),
-                            tileAt(tile.pos().neighbor(direction)).side(direction.opposite())));
+        // the insertion positions lie at most one cell away from the tiles
+        int myExtent = Math.max(extent, Math.max(Math.abs(tile.pos().x()), Math.abs(tile.pos().y())) + 1);
 
-        return new Board(myPlacedTiles, myTileIndexes, builder.build(), cancelledAnimals);
+        for (Direction direction : Direction.ALL) {
+            PlacedTile neighbor = tileAt(tile.pos().neighbor(direction));
+            if (neighbor != null)
+                builder.connectSides(tile.side(direction), neighbor.side(direction.opposite()));
+        }
+        ZonePartitions myZonePartitions = builder.build();
+
+        return new Board(myPlacedTiles,
+                myTileKeys,
+                myTileOrdersById,
+                reach,
+                Math.min(myExtent, reach),
+                myZonePartitions,
+                cancelledAnimals,
+                placementOracle.withPlacedTile(tile,
+                        pos -> isInRange(pos) && myPlacedTiles.get(keyOf(pos)) == null),
+                occupantIndex,
+                LastTileAreas.of(tile.tile(), myZonePartitions),
+                zobristKey ^ Zobrist.tile(tile));
     }
 
     /**
@@ -355,17 +547,26 @@ public final class Board implements Serializable {
      * already occupied
      */
     public Board withOccupant(Occupant occupant) {
-        PlacedTile[] myPlacedTiles = placedTiles.clone();
         ZonePartitions.Builder builder = new ZonePartitions.Builder(zonePartitions);
         PlacedTile myTile = tileWithId(Zone.tileId(occupant.zoneId()));
 
         if (myTile != null
                 && myTile.potentialOccupants().contains(occupant)
                 && myTile.idOfZoneOccupiedBy(occupant.kind()) == -1) {
-            myPlacedTiles[indexOf(myTile.pos())] = myTile.withOccupant(occupant);
+            CellTrie myPlacedTiles = placedTiles.with(keyOf(myTile.pos()), myTile.withOccupant(occupant));
             builder.addInitialOccupant(myTile.placer(), occupant.kind(), myTile.zoneWithId(occupant.zoneId()));
 
-            return new Board(myPlacedTiles, tileIndexes, builder.build(), cancelledAnimals);
+            return new Board(myPlacedTiles,
+                    tileKeys,
+                    tileOrdersById,
+                    reach,
+                    extent,
+                    builder.build(),
+                    cancelledAnimals,
+                    placementOracle,
+                    occupantIndex.withOccupant(myTile.placer(), occupant),
+                    lastTileAreas,
+                    zobristKey ^ Zobrist.occupant(occupant));
         }
 
         throw new IllegalArgumentException();
@@ -376,16 +577,27 @@ public final class Board implements Serializable {
      *
      * @param occupant the given occupant
      * @return an identical board to the receiver, but with the given occupant less
+     * @throws IllegalArgumentException if the given occupant is not on the board
      */
     public Board withoutOccupant(Occupant occupant) {
-        PlacedTile[] myPlacedTiles = placedTiles.clone();
         ZonePartitions.Builder builder = new ZonePartitions.Builder(zonePartitions);
         PlacedTile myTile = tileWithId(Zone.tileId(occupant.zoneId()));
+        checkArgument(occupant.equals(myTile.occupant()));
 
-        myPlacedTiles[indexOf(myTile.pos())] = myTile.withNoOccupant();
+        CellTrie myPlacedTiles = placedTiles.with(keyOf(myTile.pos()), myTile.withNoOccupant());
         builder.removePawn(myTile.placer(), myTile.zoneWithId(occupant.zoneId()));
 
-        return new Board(myPlacedTiles, tileIndexes, builder.build(), cancelledAnimals);
+        return new Board(myPlacedTiles,
+                tileKeys,
+                tileOrdersById,
+                reach,
+                extent,
+                builder.build(),
+                cancelledAnimals,
+                placementOracle,
+                occupantIndex.withoutOccupant(myTile.placer(), occupant),
+                lastTileAreas,
+                zobristKey ^ Zobrist.occupant(occupant));
     }
 
     /**
@@ -396,30 +608,43 @@ public final class Board implements Serializable {
      * @return a board identical to the receiver but without any occupant in the given forests and rivers
      */
     public Board withoutGatherersOrFishersIn(Set<Area<Zone.Forest>> forests, Set<Area<Zone.River>> rivers) {
-        PlacedTile[] myPlacedTiles = placedTiles.clone();
         ZonePartitions.Builder builder = new ZonePartitions.Builder(zonePartitions);
-
-        clearOccupants(forests, myPlacedTiles);
-        clearOccupants(rivers, myPlacedTiles);
-
         forests.forEach(builder::clearGatherers);
         rivers.forEach(builder::clearFishers);
 
-        return new Board(myPlacedTiles, tileIndexes, builder.build(), cancelledAnimals);
-    }
+        Set<Integer> zoneIds = new HashSet<>();
+        addZoneIds(forests, zoneIds);
+        addZoneIds(rivers, zoneIds);
+
+        CellTrie myPlacedTiles = placedTiles;
+        OccupantIndex myOccupantIndex = occupantIndex;
+        long myZobristKey = zobristKey;
+        for (Occupant occupant : occupantIndex.occupants()) {
+            if (occupant.kind() == Occupant.Kind.PAWN && zoneIds.contains(occupant.zoneId())) {
+                PlacedTile tile = tileWithId(Zone.tileId(occupant.zoneId()));
+                myPlacedTiles = myPlacedTiles.with(keyOf(tile.pos()), tile.withNoOccupant());
+                myOccupantIndex = myOccupantIndex.withoutOccupant(tile.placer(), occupant);
+                myZobristKey ^= Zobrist.occupant(occupant);
+            }
+        }
 
-    private <Z extends Zone> void clearOccupants(Set<Area<Z>> areas, PlacedTile[] myPlacedTiles) {
-        Set<Integer> zoneIds = areas.stream()
-                .flatMap(area -> area.zones().stream())
-                .map(Zone::id)
-                .collect(Collectors.toSet());
+        return new Board(myPlacedTiles,
+                tileKeys,
+                tileOrdersById,
+                reach,
+                extent,
+                builder.build(),
+                cancelledAnimals,
+                placementOracle,
+                myOccupantIndex,
+                lastTileAreas,
+                myZobristKey);
+    }
 
-        for (int i : tileIndexes) {
-            if (myPlacedTiles[i].occupant() != null
-                    && myPlacedTiles[i].occupant().kind().equals(Occupant.Kind.PAWN)
-                    && zoneIds.contains(myPlacedTiles[i].occupant().zoneId()))
-                myPlacedTiles[i] = myPlacedTiles[i].withNoOccupant();
-        }
+    private static <Z extends Zone> void addZoneIds(Set<Area<Z>> areas, Set<Integer> zoneIds) {
+        for (Area<Z> area : areas)
+            for (Z zone : area.zoneList())
+                zoneIds.add(zone.id());
     }
 
     /**
@@ -431,19 +656,43 @@ public final class Board implements Serializable {
      * of cancelled animals
      */
     public Board withMoreCancelledAnimals(Set<Animal> newlyCancelledAnimals) {
-        PlacedTile[] myPlacedTiles = placedTiles.clone();
-
         Set<Animal> myCancelledAnimals = new HashSet<>(cancelledAnimals);
-        myCancelledAnimals.addAll(newlyCancelledAnimals);
+        long myZobristKey = zobristKey;
+        for (Animal animal : newlyCancelledAnimals)
+            if (myCancelledAnimals.add(animal)) myZobristKey ^= Zobrist.cancelledAnimal(animal);
+
+        return new Board(placedTiles,
+                tileKeys,
+                tileOrdersById,
+                reach,
+                extent,
+                zonePartitions,
+                Set.copyOf(myCancelledAnimals),
+                placementOracle,
+                occupantIndex,
+                lastTileAreas,
+                myZobristKey);
+    }
 
-        return new Board(myPlacedTiles, tileIndexes, zonePartitions, Set.copyOf(myCancelledAnimals));
+    /**
+     * Returns the Zobrist key of the board, which only depends on the placed tiles (with their
+     * position, rotation and placer, but not their placement order), the occupants and the
+     * cancelled animals, and is updated in constant time by each new tile, occupant or cancelled
+     * animal. Equal boards have the same key.
+     *
+     * @return the Zobrist key of the board
+     */
+    public long zobristKey() {
+        return zobristKey;
     }
 
     @Override
     public boolean equals(Object object) {
         if (object instanceof Board board) {
-            return  Arrays.equals(placedTiles, board.placedTiles) &&
-                    Arrays.equals(tileIndexes, board.tileIndexes) &&
+            return  zobristKey == board.zobristKey &&
+                    placedTiles.equals(board.placedTiles) &&
+                    Arrays.equals(tileKeys, board.tileKeys) &&
+                    reach == board.reach &&
                     zonePartitions.equals(board.zonePartitions) &&
                     cancelledAnimals.equals(board.cancelledAnimals);
         }
@@ -452,6 +701,121 @@ public final class Board implements Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(Arrays.hashCode(placedTiles), Arrays.hashCode(tileIndexes), zonePartitions, cancelledAnimals);
+        return Long.hashCode(zobristKey);
+    }
+
+    /**
+     * Zones of the last placed tile, one for each of the areas it belongs to after having been
+     * connected to its neighbours, so that the areas touched by that tile can be found without
+     * looking at the others. Zones are in increasing order of identifier, so that the areas are
+     * always enumerated in the same order.
+     *
+     * @param forests one zone of each forest area the tile belongs to
+     * @param meadows one zone of each meadow area the tile belongs to
+     * @param rivers one zone of each river area the tile belongs to
+     * @param riverSystems one zone of each river system area the tile belongs to
+     */
+    private record LastTileAreas(List<Zone.Forest> forests,
+                                 List<Zone.Meadow> meadows,
+                                 List<Zone.River> rivers,
+                                 List<Zone.Water> riverSystems) implements Serializable {
+        private static final LastTileAreas EMPTY = new LastTileAreas(List.of(), List.of(), List.of(), List.of());
+
+        private static LastTileAreas of(Tile tile, ZonePartitions partitions) {
+            List<Zone.Forest> forests = new ArrayList<>();
+            List<Zone.Meadow> meadows = new ArrayList<>();
+            List<Zone.River> rivers = new ArrayList<>();
+            List<Zone.Water> riverSystems = new ArrayList<>();
+            List<Area<?>> areas = new ArrayList<>();
+
+            List<Zone> zones = new ArrayList<>(tile.zones());
+            zones.sort(Comparator.comparingInt(Zone::id));
+            for (Zone zone : zones) {
+                switch (zone) {
+                    case Zone.Forest forest -> addIfNew(forest, partitions.forests(), forests, areas);
+                    case Zone.Meadow meadow -> addIfNew(meadow, partitions.meadows(), meadows, areas);
+                    case Zone.River river -> {
+                        addIfNew(river, partitions.rivers(), rivers, areas);
+                        addIfNew(river, partitions.riverSystems(), riverSystems, areas);
+                    }
+                    case Zone.Lake lake -> addIfNew(lake, partitions.riverSystems(), riverSystems, areas);
+                }
+            }
+            return new LastTileAreas(List.copyOf(forests), List.copyOf(meadows), List.copyOf(rivers),
+                    List.copyOf(riverSystems));
+        }
+
+        private static <Z extends Zone> void addIfNew(Z zone,
+                                                      ZonePartition<Z> partition,
+                                                      List<? super Z> zones,
+                                                      List<Area<?>> areas) {
+            // areas of a partition are distinct objects, hence the identity comparison
+            Area<Z> area = partition.areaContaining(zone);
+            for (Area<?> knownArea : areas)
+                if (knownArea == area) return;
+            areas.add(area);
+            zones.add(zone);
+        }
+    }
+
+    /**
+     * Index of the occupants present on the board, maintained by the transitions adding or
+     * removing occupants.
+     *
+     * @param occupants the occupants present on the board
+     * @param counts the number of occupants on the board, indexed by player and kind
+     * @param pawnZoneIds the identifiers of the zones occupied by pawns, sorted
+     */
+    private record OccupantIndex(Set<Occupant> occupants, int[] counts, int[] pawnZoneIds)
+            implements Serializable {
+        private static final int KIND_COUNT = Occupant.Kind.values().length;
+        private static final OccupantIndex EMPTY = new OccupantIndex(Set.of(),
+                new int[PlayerColor.ALL.size() * KIND_COUNT],
+                new int[0]);
+
+        private int count(PlayerColor player, Occupant.Kind kind) {
+            return counts[player.ordinal() * KIND_COUNT + kind.ordinal()];
+        }
+
+        private OccupantIndex withOccupant(PlayerColor player, Occupant occupant) {
+            Set<Occupant> myOccupants = new HashSet<>(occupants);
+            myOccupants.add(occupant);
+
+            int[] myPawnZoneIds = pawnZoneIds;
+            if (occupant.kind() == Occupant.Kind.PAWN) {
+                int index = -Arrays.binarySearch(pawnZoneIds, occupant.zoneId()) - 1;
+                myPawnZoneIds = new int[pawnZoneIds.length + 1];
+                System.arraycopy(pawnZoneIds, 0, myPawnZoneIds, 0, index);
+                myPawnZoneIds[index] = occupant.zoneId();
+                System.arraycopy(pawnZoneIds, index, myPawnZoneIds, index + 1,
+                        pawnZoneIds.length - index);
+            }
+            return new OccupantIndex(Collections.unmodifiableSet(myOccupants),
+                    countsWith(player, occupant, 1),
+                    myPawnZoneIds);
+        }
+
+        private OccupantIndex withoutOccupant(PlayerColor player, Occupant occupant) {
+            Set<Occupant> myOccupants = new HashSet<>(occupants);
+            myOccupants.remove(occupant);
+
+            int[] myPawnZoneIds = pawnZoneIds;
+            if (occupant.kind() == Occupant.Kind.PAWN) {
+                int index = Arrays.binarySearch(pawnZoneIds, occupant.zoneId());
+                myPawnZoneIds = new int[pawnZoneIds.length - 1];
+                System.arraycopy(pawnZoneIds, 0, myPawnZoneIds, 0, index);
+                System.arraycopy(pawnZoneIds, index + 1, myPawnZoneIds, index,
+                        myPawnZoneIds.length - index);
+            }
+            return new OccupantIndex(Collections.unmodifiableSet(myOccupants),
+                    countsWith(player, occupant, -1),
+                    myPawnZoneIds);
+        }
+
+        private int[] countsWith(PlayerColor player, Occupant occupant, int delta) {
+            int[] myCounts = counts.clone();
+            myCounts[player.ordinal() * KIND_COUNT + occupant.kind().ordinal()] += delta;
+            return myCounts;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,221 @@
+package ch.epfl.chacun;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Persistent sparse map from packed 64-bit cell keys to placed tiles, stored as a hash array mapped
+ * trie with bitmap-compressed nodes. Its size grows with the number of tiles rather than with the
+ * area they cover, and updating one cell only copies the nodes on the path leading to it, all other
+ * nodes being shared with the original.
+ * <p>
+ * Keys are first mixed with a bijective function, so that two distinct keys never collide and the
+ * shape of the trie only depends on the set of keys it contains.
+ *
+ * @author Sam Lee (375535)
+ */
+final class CellTrie implements Serializable {
+    private static final long serialVersionUID = 1;
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * The empty trie.
+     */
+    static final CellTrie EMPTY = new CellTrie(null, 0);
+
+    /**
+     * Root node, null for the empty trie.
+     */
+    private final Node root;
+
+    /**
+     * Number of cells containing a tile.
+     */
+    private final int size;
+
+    private CellTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of cells containing a tile.
+     *
+     * @return the number of cells containing a tile
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the tile in the cell with the given key, or null if the cell is empty.
+     *
+     * @param key the key of the cell
+     * @return the tile in the cell with the given key, or null if the cell is empty
+     */
+    PlacedTile get(long key) {
+        long hash = mix(key);
+        Node node = root;
+        for (int shift = 0; node != null; shift += BITS) {
+            int bit = 1 << (int) (hash >>> shift & MASK);
+            if ((node.bitmap & bit) == 0)
+                return null;
+
+            Object slot = node.slots[node.slotIndex(bit)];
+            if (slot instanceof Leaf leaf)
+                return leaf.hash == hash ? leaf.tile : null;
+            node = (Node) slot;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a trie identical to the receiver, except that the cell with the given key contains
+     * the given tile.
+     *
+     * @param key the key of the cell
+     * @param tile the tile, or null to empty the cell
+     * @return the updated trie
+     */
+    CellTrie with(long key, PlacedTile tile) {
+        long hash = mix(key);
+        boolean present = get(key) != null;
+        Node myRoot = root == null
+                ? (tile == null ? null : new Node(bitAt(hash, 0), new Object[]{new Leaf(hash, tile)}))
+                : with(root, 0, hash, tile);
+
+        if (myRoot == root)
+            return this;
+        int mySize = size + (tile == null ? 0 : 1) - (present ? 1 : 0);
+        return new CellTrie(myRoot, mySize);
+    }
+
+    private static Node with(Node node, int shift, long hash, PlacedTile tile) {
+        int bit = bitAt(hash, shift);
+        int index = node.slotIndex(bit);
+
+        if ((node.bitmap & bit) == 0)
+            return tile == null ? node : node.inserted(bit, index, new Leaf(hash, tile));
+
+        Object slot = node.slots[index];
+        if (slot instanceof Leaf leaf) {
+            if (leaf.hash == hash)
+                return tile == null ? node.removed(bit, index) : node.replaced(index, new Leaf(hash, tile));
+            return tile == null ? node : node.replaced(index, merged(leaf, new Leaf(hash, tile), shift + BITS));
+        }
+
+        Node child = (Node) slot;
+        Node myChild = with(child, shift + BITS, hash, tile);
+        if (myChild == child)
+            return node;
+        if (myChild == null)
+            return node.removed(bit, index);
+        // a node reduced to a single leaf is replaced by that leaf, to keep the shape canonical
+        if (myChild.slots.length == 1 && myChild.slots[0] instanceof Leaf leaf)
+            return node.replaced(index, leaf);
+        return node.replaced(index, myChild);
+    }
+
+    private static Node merged(Leaf leaf1, Leaf leaf2, int shift) {
+        int bit1 = bitAt(leaf1.hash, shift);
+        int bit2 = bitAt(leaf2.hash, shift);
+        if (bit1 == bit2)
+            return new Node(bit1, new Object[]{merged(leaf1, leaf2, shift + BITS)});
+        return Integer.compareUnsigned(bit1, bit2) < 0
+                ? new Node(bit1 | bit2, new Object[]{leaf1, leaf2})
+                : new Node(bit1 | bit2, new Object[]{leaf2, leaf1});
+    }
+
+    private static int bitAt(long hash, int shift) {
+        return 1 << (int) (hash >>> shift & MASK);
+    }
+
+    /**
+     * Mixes the bits of the given key (the finalizer of SplitMix64, which is a bijection).
+     * <p>
+     * Also used by Zobrist to derive the key of each element of a game state.
+     *
+     * @param key the given key
+     * @return the mixed key
+     */
+    static long mix(long key) {
+        key = (key ^ key >>> 30) * 0xBF58476D1CE4E5B9L;
+        key = (key ^ key >>> 27) * 0x94D049BB133111EBL;
+        return key ^ key >>> 31;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof CellTrie trie
+                && size == trie.size
+                && (root == trie.root || root != null && root.equals(trie.root));
+    }
+
+    @Override
+    public int hashCode() {
+        return root == null ? 0 : root.hashCode();
+    }
+
+    /**
+     * Cell containing a tile.
+     *
+     * @param hash the mixed key of the cell
+     * @param tile the tile
+     */
+    private record Leaf(long hash, PlacedTile tile) implements Serializable {}
+
+    /**
+     * Inner node, whose slots (leaves or nodes) are those of the set bits of its bitmap, in order.
+     */
+    private static final class Node implements Serializable {
+        private static final long serialVersionUID = 1;
+
+        private final int bitmap;
+        private final Object[] slots;
+
+        private Node(int bitmap, Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        }
+
+        private int slotIndex(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Node inserted(int bit, int index, Object slot) {
+            Object[] mySlots = new Object[slots.length + 1];
+            System.arraycopy(slots, 0, mySlots, 0, index);
+            mySlots[index] = slot;
+            System.arraycopy(slots, index, mySlots, index + 1, slots.length - index);
+            return new Node(bitmap | bit, mySlots);
+        }
+
+        private Node replaced(int index, Object slot) {
+            Object[] mySlots = slots.clone();
+            mySlots[index] = slot;
+            return new Node(bitmap, mySlots);
+        }
+
+        private Node removed(int bit, int index) {
+            if (slots.length == 1)
+                return null;
+            Object[] mySlots = new Object[slots.length - 1];
+            System.arraycopy(slots, 0, mySlots, 0, index);
+            System.arraycopy(slots, index + 1, mySlots, index, slots.length - index - 1);
+            return new Node(bitmap & ~bit, mySlots);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Node node
+                    && bitmap == node.bitmap
+                    && Arrays.equals(slots, node.slots);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * bitmap + Arrays.hashCode(slots);
+        }
+    }
+}
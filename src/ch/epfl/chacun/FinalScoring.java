@@ -0,0 +1,145 @@
+package ch.epfl.chacun;
+
+import java.util.*;
+
+import static ch.epfl.chacun.Zone.SpecialPower.*;
+
+/**
+ * Scores the end of a game: cancels the animals eaten by tigers or burnt by the wild fire, counts
+ * the points of the meadows, pit traps, rafts and river systems, and declares the winners.
+ * <p>
+ * Each meadow is looked at once: the numbers of its animals of each kind are read from the counts
+ * kept by its area, and its animals are only listed when its tigers eat deer, when the wild fire
+ * burns its tigers, or to count those around the pit trap. The animals cancelled in all meadows
+ * are added to the board at once, and the resulting state is built only once.
+ *
+ * @author Sam Lee (375535)
+ */
+final class FinalScoring {
+    private FinalScoring() {}
+
+    /**
+     * Returns the final state of the game whose last turn has been played in the given state,
+     * with all points counted and the winners declared.
+     * <p>
+     * The winners are the players having the most points, all of them if nobody scored.
+     *
+     * @param state the state of the game once its last turn has been played
+     * @return the final state of the game
+     */
+    static GameState finalState(GameState state) {
+        Board board = state.board();
+        MessageBoard messageBoard = state.messageBoard();
+        Set<Animal> cancelledAnimals = new HashSet<>();
+
+        for (Area<Zone.Meadow> meadow : board.meadowAreas())
+            messageBoard = withScoredMeadow(messageBoard, board, meadow, cancelledAnimals);
+
+        for (Area<Zone.Water> riverSystem : board.riverSystemAreas()) {
+            if (riverSystem.zoneWithSpecialPower(RAFT) != null)
+                messageBoard = messageBoard.withScoredRaft(riverSystem);
+            messageBoard = messageBoard.withScoredRiverSystem(riverSystem);
+        }
+
+        int winningPoints = 0;
+        for (PlayerColor player : state.players())
+            winningPoints = Math.max(winningPoints, messageBoard.points(player));
+        Set<PlayerColor> winners = EnumSet.noneOf(PlayerColor.class);
+        for (PlayerColor player : state.players())
+            if (messageBoard.points(player) == winningPoints) winners.add(player);
+
+        return new GameState(state.players(),
+                state.tileDecks(),
+                null,
+                cancelledAnimals.isEmpty() ? board : board.withMoreCancelledAnimals(cancelledAnimals),
+                GameState.Action.END_GAME,
+                messageBoard.withWinners(winners, winningPoints));
+    }
+
+    // Scores the given meadow (and its pit trap), adding the animals it cancels to the given set
+    private static MessageBoard withScoredMeadow(MessageBoard messageBoard,
+                                                 Board board,
+                                                 Area<Zone.Meadow> meadow,
+                                                 Set<Animal> cancelledAnimals) {
+        Set<Animal> boardCancelledAnimals = board.cancelledAnimals();
+        boolean wildFire = meadow.zoneWithSpecialPower(WILD_FIRE) != null;
+        Zone pitTrap = meadow.zoneWithSpecialPower(PIT_TRAP);
+        Pos pitPos = pitTrap == null ? null : board.tileWithId(pitTrap.tileId()).pos();
+
+        int[] counts = new int[Animal.Kind.values().length];
+        for (Animal.Kind kind : Animal.Kind.values())
+            counts[kind.ordinal()] = Area.animalCount(meadow, kind, boardCancelledAnimals);
+        int tigerCount = wildFire ? 0 : counts[Animal.Kind.TIGER.ordinal()];
+        int deerCount = counts[Animal.Kind.DEER.ordinal()];
+
+        // the animals are only listed when some of them are cancelled, deer being eaten in the
+        // order they are listed in, the ones out of reach of the pit trap first
+        boolean burntTigers = wildFire && counts[Animal.Kind.TIGER.ordinal()] > 0;
+        if (burntTigers || tigerCount > 0 && deerCount > 0) {
+            List<Animal> deer = new ArrayList<>();
+            List<Animal> deerInReach = new ArrayList<>();
+            for (Animal animal : Area.animalList(meadow)) {
+                if (boardCancelledAnimals.contains(animal)) continue;
+                switch (animal.kind()) {
+                    case DEER -> {
+                        boolean inReach = pitPos != null && isInReach(board, animal.tileId(), pitPos);
+                        (inReach ? deerInReach : deer).add(animal);
+                    }
+                    case TIGER -> {
+                        if (wildFire) cancelledAnimals.add(animal);
+                    }
+                    default -> {}
+                }
+            }
+            deer.addAll(deerInReach);
+            List<Animal> eatenDeer = deer.subList(0, Math.min(tigerCount, deer.size()));
+            cancelledAnimals.addAll(eatenDeer);
+            counts[Animal.Kind.DEER.ordinal()] -= eatenDeer.size();
+            counts[Animal.Kind.TIGER.ordinal()] = tigerCount;
+        }
+
+        if (!meadow.isOccupied())
+            return messageBoard;
+        Set<PlayerColor> scorers = meadow.majorityOccupants();
+
+        if (pitPos != null) {
+            Map<Animal.Kind, Integer> pitTrapAnimals = new HashMap<>();
+            for (Animal animal : Area.animalList(meadow)) {
+                if (boardCancelledAnimals.contains(animal) || cancelledAnimals.contains(animal))
+                    continue;
+                if (isInReach(board, animal.tileId(), pitPos))
+                    pitTrapAnimals.merge(animal.kind(), 1, Integer::sum);
+            }
+
+            int points = points(pitTrapAnimals);
+            if (points > 0) {
+                Set<Integer> tileIds = new HashSet<>();
+                for (Zone.Meadow zone : meadow.zoneList())
+                    if (isInReach(board, zone.tileId(), pitPos)) tileIds.add(zone.tileId());
+                messageBoard = messageBoard.withEvent(
+                        new ScoringEvent.PitTrapScored(scorers, points, pitTrapAnimals, tileIds));
+            }
+        }
+
+        // only the kinds of which there are animals are in the map
+        Map<Animal.Kind, Integer> meadowAnimals = new HashMap<>();
+        for (Animal.Kind kind : Animal.Kind.values())
+            if (counts[kind.ordinal()] > 0) meadowAnimals.put(kind, counts[kind.ordinal()]);
+        int points = points(meadowAnimals);
+        if (points > 0)
+            messageBoard = messageBoard.withEvent(
+                    new ScoringEvent.MeadowScored(scorers, points, meadowAnimals, meadow.tileIds()));
+        return messageBoard;
+    }
+
+    private static boolean isInReach(Board board, int tileId, Pos pitPos) {
+        Pos pos = board.tileWithId(tileId).pos();
+        return Math.abs(pos.x() - pitPos.x()) <= 1 && Math.abs(pos.y() - pitPos.y()) <= 1;
+    }
+
+    private static int points(Map<Animal.Kind, Integer> animals) {
+        return Points.forMeadow(animals.getOrDefault(Animal.Kind.MAMMOTH, 0),
+                animals.getOrDefault(Animal.Kind.AUROCHS, 0),
+                animals.getOrDefault(Animal.Kind.DEER, 0));
+    }
+}
@@ -0,0 +1,295 @@
+package ch.epfl.chacun;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Persistent map from the insertion positions of a board (its fringe) to their constraint
+ * signatures (see PlacementOracle), stored as a treap ordered by x, then y. Updating one position
+ * only copies the nodes on the path leading to it, all other nodes being shared with the original.
+ * <p>
+ * The priority of a node is obtained by mixing its key, so that the shape of the treap only depends
+ * on the set of positions it contains, and its expected depth is logarithmic in their number. Each
+ * node also knows the size of its subtree and the set of the constraint signatures found in it, so
+ * that the rank of a position, the position of a given rank and the distinct signatures of the
+ * fringe are found by following a single path.
+ *
+ * @author Sam Lee (375535)
+ */
+final class FringeTree implements Serializable {
+    private static final long serialVersionUID = 1;
+
+    /**
+     * Number of distinct constraint signatures.
+     */
+    static final int SIGNATURE_COUNT = 1 << 2 * Direction.COUNT;
+
+    /**
+     * The empty tree.
+     */
+    static final FringeTree EMPTY = new FringeTree(null);
+
+    private static final long[] NO_SIGNATURES = new long[SIGNATURE_COUNT / Long.SIZE];
+
+    /**
+     * Root node, null for the empty tree.
+     */
+    private final Node root;
+
+    private FringeTree(Node root) {
+        this.root = root;
+    }
+
+    // the sign bit of y is flipped, so that keys are ordered by x, then y
+    private static long key(Pos pos) {
+        return (long) pos.x() << Integer.SIZE | (pos.y() ^ Integer.MIN_VALUE) & 0xFFFF_FFFFL;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Returns the number of positions of the tree.
+     *
+     * @return the number of positions of the tree
+     */
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * Returns the constraint signature of the given position, or 0 if it is not in the tree.
+     *
+     * @param pos the given position
+     * @return the constraint signature of the given position, or 0 if it is not in the tree
+     */
+    int constraintAt(Pos pos) {
+        long key = key(pos);
+        Node node = root;
+        while (node != null && node.key != key)
+            node = key < node.key ? node.left : node.right;
+        return node == null ? 0 : node.constraint;
+    }
+
+    /**
+     * Returns the rank of the given position among those of the tree, or -1 if it is not in it.
+     *
+     * @param pos the given position
+     * @return the rank of the given position among those of the tree, or -1
+     */
+    int rankOf(Pos pos) {
+        long key = key(pos);
+        int rank = 0;
+        Node node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else {
+                int leftSize = size(node.left);
+                if (key == node.key)
+                    return rank + leftSize;
+                rank += leftSize + 1;
+                node = node.right;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position of the given rank, which must be valid.
+     *
+     * @param rank the given rank
+     * @return the position of the given rank
+     */
+    Pos positionAt(int rank) {
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (rank == leftSize)
+                return node.pos;
+            if (rank < leftSize) {
+                node = node.left;
+            } else {
+                rank -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the set of the constraint signatures of the positions, as a bitset which must not be
+     * modified.
+     *
+     * @return the set of the constraint signatures of the positions
+     */
+    long[] signatures() {
+        return root == null ? NO_SIGNATURES : root.signatures;
+    }
+
+    /**
+     * Returns an unmodifiable view of the positions of the tree, iterated in order.
+     *
+     * @return an unmodifiable view of the positions of the tree
+     */
+    Set<Pos> positions() {
+        return new AbstractSet<>() {
+            @Override
+            public int size() {
+                return FringeTree.this.size();
+            }
+
+            @Override
+            public boolean contains(Object object) {
+                return object instanceof Pos pos && constraintAt(pos) != 0;
+            }
+
+            @Override
+            public Iterator<Pos> iterator() {
+                return new Iterator<>() {
+                    private final Deque<Node> path = new ArrayDeque<>();
+
+                    {
+                        pushLeftmost(root);
+                    }
+
+                    private void pushLeftmost(Node node) {
+                        for (; node != null; node = node.left)
+                            path.push(node);
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return !path.isEmpty();
+                    }
+
+                    @Override
+                    public Pos next() {
+                        if (path.isEmpty())
+                            throw new NoSuchElementException();
+                        Node node = path.pop();
+                        pushLeftmost(node.right);
+                        return node.pos;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns the tree in which the given position has the given constraint signature.
+     *
+     * @param pos the given position
+     * @param constraint the constraint signature, which is not 0
+     * @return the updated tree
+     */
+    FringeTree with(Pos pos, int constraint) {
+        return new FringeTree(with(root, key(pos), pos, constraint));
+    }
+
+    private static Node with(Node node, long key, Pos pos, int constraint) {
+        if (node == null)
+            return new Node(key, pos, constraint, null, null);
+        if (key == node.key)
+            return new Node(key, node.pos, constraint, node.left, node.right);
+
+        if (key < node.key) {
+            Node left = with(node.left, key, pos, constraint);
+            return left.priority > node.priority
+                    ? left.withRight(node.withLeft(left.right))
+                    : node.withLeft(left);
+        } else {
+            Node right = with(node.right, key, pos, constraint);
+            return right.priority > node.priority
+                    ? right.withLeft(node.withRight(right.left))
+                    : node.withRight(right);
+        }
+    }
+
+    /**
+     * Returns the tree without the given position.
+     *
+     * @param pos the given position
+     * @return the updated tree, or the receiver if the position is not in it
+     */
+    FringeTree without(Pos pos) {
+        Node myRoot = without(root, key(pos));
+        return myRoot == root ? this : new FringeTree(myRoot);
+    }
+
+    private static Node without(Node node, long key) {
+        if (node == null)
+            return null;
+        if (key == node.key)
+            return merged(node.left, node.right);
+
+        if (key < node.key) {
+            Node left = without(node.left, key);
+            return left == node.left ? node : node.withLeft(left);
+        } else {
+            Node right = without(node.right, key);
+            return right == node.right ? node : node.withRight(right);
+        }
+    }
+
+    // merges two trees, all the keys of the first being smaller than those of the second
+    private static Node merged(Node left, Node right) {
+        if (left == null)
+            return right;
+        if (right == null)
+            return left;
+        return left.priority > right.priority
+                ? left.withRight(merged(left.right, right))
+                : right.withLeft(merged(left, right.left));
+    }
+
+    /**
+     * Node of the tree, holding one position.
+     */
+    private static final class Node implements Serializable {
+        private static final long serialVersionUID = 1;
+
+        private final long key;
+        private final Pos pos;
+        private final int constraint;
+        private final long priority;
+        private final Node left;
+        private final Node right;
+        private final int size;
+
+        /**
+         * Constraint signatures of the positions of the subtree, as a bitset.
+         */
+        private final long[] signatures;
+
+        private Node(long key, Pos pos, int constraint, Node left, Node right) {
+            this.key = key;
+            this.pos = pos;
+            this.constraint = constraint;
+            this.priority = CellTrie.mix(key);
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + 1 + size(right);
+
+            long[] mySignatures = left == null ? NO_SIGNATURES.clone() : left.signatures.clone();
+            if (right != null)
+                for (int i = 0; i < mySignatures.length; i += 1)
+                    mySignatures[i] |= right.signatures[i];
+            mySignatures[constraint / Long.SIZE] |= 1L << constraint;
+            this.signatures = mySignatures;
+        }
+
+        private Node withLeft(Node left) {
+            return new Node(key, pos, constraint, left, right);
+        }
+
+        private Node withRight(Node right) {
+            return new Node(key, pos, constraint, left, right);
+        }
+    }
+}
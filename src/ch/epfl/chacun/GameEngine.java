@@ -0,0 +1,1158 @@
+package ch.epfl.chacun;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+import static ch.epfl.chacun.GameState.Action.*;
+import static ch.epfl.chacun.Occupant.Kind.PAWN;
+import static ch.epfl.chacun.Preconditions.checkArgument;
+
+/**
+ * Mutable game engine, which applies actions in place and can undo them, for searches and rollouts
+ * which explore many continuations of a game.
+ * <p>
+ * The engine applies the rules of GameState (menhir turns, special powers, final scoring, etc.) to
+ * its own mutable representation of the game: the tiles are placed on a grid of cells, the
+ * insertion positions are kept as the sorted array of their cells along with the constraint
+ * signature of each (see PlacementOracle), the areas are the sets of two union-find structures
+ * (one for forests, meadows and rivers, one for river systems), whose roots know their open
+ * connections and occupants, and the points of the players are kept as totals. Unions are made by
+ * size and paths are never compressed, so that finding an area takes a logarithmic time, and a
+ * union only writes a few values.
+ * <p>
+ * Every write goes through a trail, which records the value it overwrites, and the position of the
+ * trail at the start of each action is kept, so that undoing an action restores, in reverse order,
+ * the values it overwrote. Apart from the occasional growth of the trail, neither applying nor
+ * undoing an action allocates anything.
+ * <p>
+ * The game state of the current position is only built when asked for, by applying the actions
+ * which lead to it to the initial state, and the states already built are kept until the actions
+ * leading to them are undone.
+ * <p>
+ * Actions are designated by the codes used by ActionEncoder, i.e. the 10-bit code of the position
+ * index and rotation of a tile placement, and the 5-bit code of an occupant placement or removal.
+ *
+ * @author Sam Lee (375535)
+ */
+public final class GameEngine {
+    private static final int COLOR_COUNT = PlayerColor.ALL.size();
+    private static final int OCCUPANT_KIND_COUNT = Occupant.Kind.values().length;
+    private static final int KIND_BITS = 2;
+    private static final GameState.Action[] ACTIONS = GameState.Action.values();
+
+    // codes of the actions, as in ActionEncoder
+    private static final int ROTATION_BITS = 2;
+    private static final int ROTATION_MASK = 0b11;
+    private static final int OCCUPANT_ID_BITS = 4;
+    private static final int OCCUPANT_ID_MASK = 0b1111;
+    private static final int NONE = 0b11111;
+
+    /**
+     * Code kept in the log of the actions for the start of the game.
+     */
+    private static final int START = -1;
+
+    private static final int NO_TILE = -1;
+    private static final int NO_PLAYER = -1;
+    private static final int NO_ZONE = -1;
+
+    // kinds of the zones
+    private static final int FOREST = 1;
+    private static final int MEADOW = 2;
+    private static final int RIVER = 3;
+    private static final int LAKE = 4;
+
+    // indices of the variables of the turn
+    private static final int NEXT_ACTION = 0;
+    private static final int CURRENT_PLAYER = 1;
+    private static final int TILE_TO_PLACE = 2;
+    private static final int LAST_TILE = 3;
+    private static final int NORMAL_TOP = 4;
+    private static final int MENHIR_TOP = 5;
+    private static final int PLACED_TILE_COUNT = 6;
+    private static final int TURN_VARIABLE_COUNT = 7;
+
+    // indices recorded in the trail for the changes of a sorted set
+    private static final int ADDED = 0;
+    private static final int REMOVED = 1;
+
+    /**
+     * Masks keeping the sides of a constraint signature in each subset of the directions.
+     */
+    private static final int[] SIDE_MASKS = new int[1 << Direction.COUNT];
+
+    static {
+        for (int directions = 0; directions < SIDE_MASKS.length; directions += 1)
+            for (int direction = 0; direction < Direction.COUNT; direction += 1)
+                if ((directions >>> direction & 1) != 0)
+                    SIDE_MASKS[directions] |= 0b11 << KIND_BITS * direction;
+    }
+
+    // description of the game, which never changes
+    private final List<PlayerColor> players;
+    private final Tile[] tiles;
+    private final Zone[] zones;
+    private final int[] zoneKinds;
+    private final int[] initialOpenConnections;
+    private final int[] powerZoneIds;
+    private final int[] startDeck;
+    private final int[] normalDeck;
+    private final int[] menhirDeck;
+    private final int reach;
+    private final int offset;
+    private final int side;
+    private final int[] cellSteps;
+
+    // trail of the overwritten values, and position of the trail at the start of each action
+    private Undoable[] trailTargets = new Undoable[1 << 10];
+    private int[] trailIndices = new int[1 << 10];
+    private int[] trailValues = new int[1 << 10];
+    private int trailSize;
+    private int[] actions = new int[1 << 6];
+    private int[] trailMarks = new int[1 << 6];
+    private int depth;
+
+    // state of the game, all writes to which are recorded in the trail
+    private final Ints turn;
+    private final Ints cellTiles;
+    private final Ints constraints;
+    private final Ints constraintCounts;
+    private final SortedInts fringe;
+    private final Ints tileCells;
+    private final Ints tileRotations;
+    private final Ints tilePlacers;
+    private final Ints placedTiles;
+    private final Ints parents;
+    private final Ints sizes;
+    private final Ints nexts;
+    private final Ints openConnections;
+    private final Ints occupants;
+    private final Ints systemParents;
+    private final Ints systemSizes;
+    private final Ints systemNexts;
+    private final Ints huts;
+    private final Ints cancelledAnimals;
+    private final SortedInts pawns;
+    private final Ints occupantCounts;
+    private final Ints totals;
+
+    // marks used to count distinct tiles and zones, which are not part of the state
+    private final int[] tileMarks;
+    private final int[] zoneMarks;
+    private int mark;
+    private final int[] closedAreas = new int[Tile.LOCAL_ID_COUNT];
+    private final int[] animalCounts = new int[Animal.Kind.values().length];
+    private final int[] animalCountsInReach = new int[Animal.Kind.values().length];
+
+    private GameState initialState;
+    private boolean decksShuffled;
+    private final List<GameState> states = new ArrayList<>();
+
+    /**
+     * Constructs an engine starting from the given game state.
+     *
+     * @param state the initial game state
+     */
+    public GameEngine(GameState state) {
+        Board board = state.board();
+        TileDecks tileDecks = state.tileDecks();
+        List<Tile> allTiles = new ArrayList<>();
+        for (int order = 0; order < board.placedTileCount(); order += 1)
+            allTiles.add(board.placedTileAt(order).tile());
+        allTiles.addAll(tileDecks.startTiles());
+        allTiles.addAll(tileDecks.normalTiles());
+        allTiles.addAll(tileDecks.menhirTiles());
+        if (state.tileToPlace() != null) allTiles.add(state.tileToPlace());
+
+        int tileIdCount = 0;
+        for (Tile tile : allTiles)
+            tileIdCount = Math.max(tileIdCount, tile.id() + 1);
+        int zoneIdCount = tileIdCount * Tile.LOCAL_ID_COUNT;
+
+        this.players = state.players();
+        this.tiles = new Tile[tileIdCount];
+        this.zones = new Zone[zoneIdCount];
+        this.zoneKinds = new int[zoneIdCount];
+        this.initialOpenConnections = new int[zoneIdCount];
+        this.powerZoneIds = new int[tileIdCount];
+        Arrays.fill(powerZoneIds, NO_ZONE);
+        for (Tile tile : allTiles)
+            if (tiles[tile.id()] == null) describe(tile);
+        this.startDeck = tileIds(tileDecks.startTiles());
+        this.normalDeck = tileIds(tileDecks.normalTiles());
+        this.menhirDeck = tileIds(tileDecks.menhirTiles());
+
+        // no tile can be further from the origin than the number of tiles
+        this.reach = board.reach();
+        this.offset = Math.min(reach, allTiles.size()) + 1;
+        this.side = 2 * offset + 1;
+        this.cellSteps = new int[]{-1, side, 1, -side};
+        int cellCount = side * side;
+
+        this.turn = new Ints(TURN_VARIABLE_COUNT, 0);
+        this.cellTiles = new Ints(cellCount, NO_TILE);
+        this.constraints = new Ints(cellCount, 0);
+        this.constraintCounts = new Ints(FringeTree.SIGNATURE_COUNT, 0);
+        this.fringe = new SortedInts(cellCount);
+        this.tileCells = new Ints(tileIdCount, 0);
+        this.tileRotations = new Ints(tileIdCount, 0);
+        this.tilePlacers = new Ints(tileIdCount, NO_PLAYER);
+        this.placedTiles = new Ints(tileIdCount, NO_TILE);
+        this.parents = new Ints(zoneIdCount, 0);
+        this.sizes = new Ints(zoneIdCount, 0);
+        this.nexts = new Ints(zoneIdCount, 0);
+        this.openConnections = new Ints(zoneIdCount, 0);
+        this.occupants = new Ints(zoneIdCount * COLOR_COUNT, 0);
+        this.systemParents = new Ints(zoneIdCount, 0);
+        this.systemSizes = new Ints(zoneIdCount, 0);
+        this.systemNexts = new Ints(zoneIdCount, 0);
+        this.huts = new Ints(zoneIdCount * COLOR_COUNT, 0);
+        this.cancelledAnimals = new Ints(zoneIdCount, 0);
+        this.pawns = new SortedInts(COLOR_COUNT * Occupant.occupantsCount(PAWN));
+        this.occupantCounts = new Ints(COLOR_COUNT * OCCUPANT_KIND_COUNT, 0);
+        this.totals = new Ints(COLOR_COUNT, 0);
+        this.tileMarks = new int[tileIdCount];
+        this.zoneMarks = new int[zoneIdCount];
+
+        turn.set(NEXT_ACTION, state.nextAction().ordinal());
+        turn.set(TILE_TO_PLACE, state.tileToPlace() == null ? NO_TILE : state.tileToPlace().id());
+        turn.set(LAST_TILE, NO_TILE);
+        for (int order = 0; order < board.placedTileCount(); order += 1) {
+            PlacedTile tile = board.placedTileAt(order);
+            placeTile(tile.id(),
+                    tile.placer() == null ? NO_PLAYER : tile.placer().ordinal(),
+                    tile.rotation().ordinal(),
+                    cell(tile.pos()));
+        }
+        for (Occupant occupant : board.occupants())
+            addOccupant(occupant.kind(), occupant.zoneId());
+        for (Animal animal : board.cancelledAnimals()) {
+            int zoneId = animal.id() / 10;
+            cancelledAnimals.set(zoneId, cancelledAnimals.get(zoneId) | 1 << animal.id() % 10);
+        }
+        for (PlayerColor player : PlayerColor.ALL)
+            totals.set(player.ordinal(), state.messageBoard().points(player));
+
+        // the initial state is not undone
+        trailSize = 0;
+        this.initialState = state;
+    }
+
+    // records the static description of the given tile
+    private void describe(Tile tile) {
+        tiles[tile.id()] = tile;
+        for (Zone zone : tile.zones()) {
+            zones[zone.id()] = zone;
+            zoneKinds[zone.id()] = switch (zone) {
+                case Zone.Forest _ -> FOREST;
+                case Zone.Meadow _ -> MEADOW;
+                case Zone.River _ -> RIVER;
+                case Zone.Lake _ -> LAKE;
+            };
+            // the first zone with a special power, as in PlacedTile.specialPowerZone
+            if (zone.specialPower() != null && powerZoneIds[tile.id()] == NO_ZONE)
+                powerZoneIds[tile.id()] = zone.id();
+        }
+
+        // as in ZonePartitions.Builder.addTile, a river ending in a lake being counted once in the
+        // partition of the rivers
+        for (TileSide tileSide : tile.sides())
+            for (Zone zone : tileSide.zones()) {
+                initialOpenConnections[zone.id()] += 1;
+                if (zone instanceof Zone.River river && river.hasLake())
+                    initialOpenConnections[zone.id()] += 1;
+            }
+        for (Zone zone : tile.zones())
+            if (zone instanceof Zone.River river && river.hasLake())
+                initialOpenConnections[zone.id()] -= 1;
+    }
+
+    private static int[] tileIds(List<Tile> tiles) {
+        int[] tileIds = new int[tiles.size()];
+        for (int i = 0; i < tileIds.length; i += 1)
+            tileIds[i] = tiles.get(i).id();
+        return tileIds;
+    }
+
+    private int cell(Pos pos) {
+        return (pos.x() + offset) * side + pos.y() + offset;
+    }
+
+    private boolean isInReach(int cell) {
+        return Math.abs(cell / side - offset) <= reach && Math.abs(cell % side - offset) <= reach;
+    }
+
+    /**
+     * Returns the current game state.
+     *
+     * @return the current game state
+     */
+    public GameState toGameState() {
+        if (states.isEmpty()) states.add(initialState());
+        while (states.size() <= depth) {
+            GameState state = states.getLast();
+            int action = actions[states.size() - 1];
+            states.add(action == START
+                    ? state.withStartingTilePlaced()
+                    : ActionEncoder.apply(state, action));
+        }
+        return states.get(depth);
+    }
+
+    private GameState initialState() {
+        if (decksShuffled) {
+            initialState = new GameState(initialState.players(),
+                    new TileDecks(initialState.tileDecks().startTiles(),
+                            deckTiles(normalDeck, turn.get(NORMAL_TOP)),
+                            deckTiles(menhirDeck, turn.get(MENHIR_TOP))),
+                    initialState.tileToPlace(),
+                    initialState.board(),
+                    initialState.nextAction(),
+                    initialState.messageBoard());
+            decksShuffled = false;
+        }
+        return initialState;
+    }
+
+    private List<Tile> deckTiles(int[] deck, int top) {
+        List<Tile> deckTiles = new ArrayList<>(deck.length - top);
+        for (int i = top; i < deck.length; i += 1)
+            deckTiles.add(tiles[deck[i]]);
+        return deckTiles;
+    }
+
+    /**
+     * Returns the next action to perform.
+     *
+     * @return the next action to perform
+     */
+    public GameState.Action nextAction() {
+        return ACTIONS[turn.get(NEXT_ACTION)];
+    }
+
+    /**
+     * Returns true iff the game is over.
+     *
+     * @return true iff the game is over
+     */
+    public boolean isOver() {
+        return nextAction() == END_GAME;
+    }
+
+    /**
+     * Returns the current player, or null if there is none (see GameState.currentPlayer).
+     *
+     * @return the current player, or null if there is none
+     */
+    public PlayerColor currentPlayer() {
+        GameState.Action nextAction = nextAction();
+        return nextAction == START_GAME || nextAction == END_GAME
+                ? null
+                : players.get(turn.get(CURRENT_PLAYER));
+    }
+
+    /**
+     * Returns the points of the given player, as counted by the message board of the current game
+     * state.
+     *
+     * @param player the given player
+     * @return the points of the given player
+     */
+    public int points(PlayerColor player) {
+        return totals.get(player.ordinal());
+    }
+
+    /**
+     * Returns the number of actions which can be undone.
+     *
+     * @return the number of actions which can be undone
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Shuffles the tiles left in the normal and menhir decks with the given generator, e.g. so that
+     * a search does not rely on the actual order of the tiles. This changes the initial game state
+     * of the engine, and can thus only be done before any action is applied.
+     *
+     * @param random the generator used to shuffle the tiles
+     * @throws IllegalArgumentException if an action can be undone
+     */
+    public void shuffleDecks(RandomGenerator random) {
+        checkArgument(depth == 0);
+        shuffle(normalDeck, turn.get(NORMAL_TOP), random);
+        shuffle(menhirDeck, turn.get(MENHIR_TOP), random);
+        decksShuffled = true;
+        states.clear();
+    }
+
+    private static void shuffle(int[] deck, int top, RandomGenerator random) {
+        for (int i = deck.length - 1; i > top; i -= 1) {
+            int j = top + random.nextInt(i - top + 1);
+            int tileId = deck[i];
+            deck[i] = deck[j];
+            deck[j] = tileId;
+        }
+    }
+
+    /**
+     * Writes the codes of the legal actions in the given array, and returns their number (see
+     * ActionEncoder.legalActions).
+     *
+     * @param actions the array in which the codes are written
+     * @return the number of legal actions
+     */
+    public int legalActions(int[] actions) {
+        int count = 0;
+        switch (nextAction()) {
+            case PLACE_TILE -> {
+                Tile tile = tiles[turn.get(TILE_TO_PLACE)];
+                for (int rank = 0; rank < fringe.size(); rank += 1) {
+                    int constraint = constraints.get(fringe.get(rank));
+                    for (int rotation = 0; rotation < Rotation.COUNT; rotation += 1)
+                        if (fits(tile.sideKinds(Rotation.ALL.get(rotation)), constraint))
+                            count = written(actions, count, rank << ROTATION_BITS | rotation);
+                }
+            }
+            case RETAKE_PAWN -> {
+                int player = currentColor();
+                for (int index = 0; index < pawns.size() && index < NONE; index += 1)
+                    if (tilePlacers.get(Zone.tileId(pawns.get(index))) == player)
+                        count = written(actions, count, index);
+                count = written(actions, count, NONE);
+            }
+            case OCCUPY_TILE -> {
+                for (int codes = occupantCodes(); codes != 0; codes &= codes - 1)
+                    count = written(actions, count, Integer.numberOfTrailingZeros(codes));
+                count = written(actions, count, NONE);
+            }
+            case START_GAME, END_GAME -> {
+            }
+        }
+        return count;
+    }
+
+    private static int written(int[] actions, int count, int action) {
+        if (count < actions.length) actions[count] = action;
+        return count + 1;
+    }
+
+    /**
+     * Places the starting tile, which starts the game.
+     *
+     * @throws IllegalArgumentException if the next action is not START_GAME
+     */
+    public void startGame() {
+        checkArgument(nextAction() == START_GAME && startDeck.length > 0 && normalDeck.length > 0);
+        begin(START);
+        placeTile(startDeck[0], NO_PLAYER, Rotation.NONE.ordinal(), cell(Pos.ORIGIN));
+        turn.set(TILE_TO_PLACE, normalDeck[turn.get(NORMAL_TOP)]);
+        turn.add(NORMAL_TOP, 1);
+        turn.set(NEXT_ACTION, PLACE_TILE.ordinal());
+    }
+
+    /**
+     * Applies the action with the given code, in the format expected by the next action.
+     *
+     * @param action the code of the action
+     * @throws IllegalArgumentException if the given code doesn't represent a valid action in the
+     * current game state, in which case the engine is left unchanged
+     */
+    public void apply(int action) {
+        switch (nextAction()) {
+            case PLACE_TILE -> {
+                int rank = action >>> ROTATION_BITS;
+                checkArgument(action >= 0 && rank < fringe.size());
+                int tileId = turn.get(TILE_TO_PLACE);
+                int rotation = action & ROTATION_MASK;
+                int cell = fringe.get(rank);
+                checkArgument(fits(tiles[tileId].sideKinds(Rotation.ALL.get(rotation)),
+                        constraints.get(cell)));
+
+                begin(action);
+                placeTileOfTurn(tileId, rotation, cell);
+            }
+            case RETAKE_PAWN -> {
+                checkArgument(action == NONE || 0 <= action && action < pawns.size()
+                        && tilePlacers.get(Zone.tileId(pawns.get(action))) == currentColor());
+
+                begin(action);
+                if (action != NONE) removePawn(pawns.get(action));
+                occupyOrFinishTurn();
+            }
+            case OCCUPY_TILE -> {
+                checkArgument(action == NONE
+                        || 0 <= action && action < NONE && (occupantCodes() & 1 << action) != 0);
+
+                begin(action);
+                if (action != NONE)
+                    addOccupant(Occupant.Kind.values()[action >>> OCCUPANT_ID_BITS],
+                            turn.get(LAST_TILE) * 10 + (action & OCCUPANT_ID_MASK));
+                finishTurn();
+            }
+            case START_GAME, END_GAME -> throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * Undoes the last action applied (or the start of the game).
+     *
+     * @throws IllegalArgumentException if there is no action to undo
+     */
+    public void undo() {
+        checkArgument(depth > 0);
+        undoUntil(depth - 1);
+    }
+
+    /**
+     * Undoes all actions applied since the given depth was reached.
+     *
+     * @param depth the depth to go back to
+     * @throws IllegalArgumentException if the depth is negative or greater than the current one
+     */
+    public void undoUntil(int depth) {
+        checkArgument(0 <= depth && depth <= this.depth);
+        if (depth == this.depth)
+            return;
+
+        for (int mark = trailMarks[depth]; trailSize > mark; ) {
+            trailSize -= 1;
+            trailTargets[trailSize].restore(trailIndices[trailSize], trailValues[trailSize]);
+        }
+        this.depth = depth;
+        while (states.size() > depth + 1)
+            states.removeLast();
+    }
+
+    // starts the action with the given code, whose writes can then be undone
+    private void begin(int action) {
+        if (depth == actions.length) {
+            actions = Arrays.copyOf(actions, 2 * depth);
+            trailMarks = Arrays.copyOf(trailMarks, 2 * depth);
+        }
+        actions[depth] = action;
+        trailMarks[depth] = trailSize;
+        depth += 1;
+    }
+
+    private void log(Undoable target, int index, int value) {
+        if (trailSize == trailTargets.length) {
+            trailTargets = Arrays.copyOf(trailTargets, 2 * trailSize);
+            trailIndices = Arrays.copyOf(trailIndices, 2 * trailSize);
+            trailValues = Arrays.copyOf(trailValues, 2 * trailSize);
+        }
+        trailTargets[trailSize] = target;
+        trailIndices[trailSize] = index;
+        trailValues[trailSize] = value;
+        trailSize += 1;
+    }
+
+    private int currentColor() {
+        return players.get(turn.get(CURRENT_PLAYER)).ordinal();
+    }
+
+    private int occupantCount(int player, Occupant.Kind kind) {
+        return occupantCounts.get(player * OCCUPANT_KIND_COUNT + kind.ordinal());
+    }
+
+    // same test as PlacementOracle.fits
+    private static boolean fits(int signature, int constraint) {
+        int mask = (constraint | constraint >>> 1) & 0b01010101;
+        return (signature & (mask | mask << 1)) == constraint;
+    }
+
+    // a constraint fits a signature iff it is made of some of its sides
+    private boolean canPlaceAnywhere(Tile tile) {
+        for (Rotation rotation : Rotation.ALL) {
+            int signature = tile.sideKinds(rotation);
+            for (int directions = 1; directions < SIDE_MASKS.length; directions += 1)
+                if (constraintCounts.get(signature & SIDE_MASKS[directions]) > 0)
+                    return true;
+        }
+        return false;
+    }
+
+    // returns the index of the first placeable tile of the given deck, from the given top
+    private int placeableTop(int[] deck, int top) {
+        while (top < deck.length && !canPlaceAnywhere(tiles[deck[top]]))
+            top += 1;
+        return top;
+    }
+
+    // places the given tile, connecting its zones and updating the insertion positions
+    private void placeTile(int tileId, int placer, int rotation, int cell) {
+        Tile tile = tiles[tileId];
+        cellTiles.set(cell, tileId);
+        tileCells.set(tileId, cell);
+        tileRotations.set(tileId, rotation);
+        tilePlacers.set(tileId, placer);
+        placedTiles.set(turn.get(PLACED_TILE_COUNT), tileId);
+        turn.add(PLACED_TILE_COUNT, 1);
+        turn.set(LAST_TILE, tileId);
+
+        for (int zoneId = tileId * 10; zoneId < (tileId + 1) * 10; zoneId += 1) {
+            switch (zoneKinds[zoneId]) {
+                case FOREST, MEADOW -> addArea(zoneId);
+                case RIVER -> {
+                    addArea(zoneId);
+                    addSystem(zoneId);
+                }
+                case LAKE -> addSystem(zoneId);
+                default -> {
+                }
+            }
+        }
+        for (int zoneId = tileId * 10; zoneId < (tileId + 1) * 10; zoneId += 1)
+            if (zones[zoneId] instanceof Zone.River river && river.hasLake())
+                connectSystems(zoneId, river.lake().id());
+
+        int constraint = constraints.get(cell);
+        if (constraint != 0) {
+            fringe.remove(cell);
+            constraintCounts.add(constraint, -1);
+            constraints.set(cell, 0);
+        }
+
+        Rotation tileRotation = Rotation.ALL.get(rotation);
+        int signature = tile.sideKinds(tileRotation);
+        for (int direction = 0; direction < Direction.COUNT; direction += 1) {
+            int neighbor = cell + cellSteps[direction];
+            int neighborId = cellTiles.get(neighbor);
+            Direction opposite = Direction.ALL.get(direction).opposite();
+            if (neighborId != NO_TILE) {
+                connectSides(tile.side(tileRotation, Direction.ALL.get(direction)),
+                        tiles[neighborId].side(Rotation.ALL.get(tileRotations.get(neighborId)),
+                                opposite));
+            } else if (isInReach(neighbor)) {
+                int neighborConstraint = constraints.get(neighbor);
+                int kind = signature >>> KIND_BITS * direction & 0b11;
+                int myConstraint = neighborConstraint | kind << KIND_BITS * opposite.ordinal();
+                if (neighborConstraint == 0)
+                    fringe.add(neighbor);
+                else
+                    constraintCounts.add(neighborConstraint, -1);
+                constraintCounts.add(myConstraint, 1);
+                constraints.set(neighbor, myConstraint);
+            }
+        }
+    }
+
+    // same connections as ZonePartitions.Builder.connectSides
+    private void connectSides(TileSide side1, TileSide side2) {
+        if (side1 instanceof TileSide.Forest forest1 && side2 instanceof TileSide.Forest forest2) {
+            connectAreas(forest1.forest().id(), forest2.forest().id());
+        } else if (side1 instanceof TileSide.Meadow meadow1
+                && side2 instanceof TileSide.Meadow meadow2) {
+            connectAreas(meadow1.meadow().id(), meadow2.meadow().id());
+        } else if (side1 instanceof TileSide.River river1
+                && side2 instanceof TileSide.River river2) {
+            connectAreas(river1.river().id(), river2.river().id());
+            connectSystems(river1.river().id(), river2.river().id());
+            connectAreas(river1.meadow1().id(), river2.meadow2().id());
+            connectAreas(river2.meadow1().id(), river1.meadow2().id());
+        } else {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    private void addArea(int zoneId) {
+        parents.set(zoneId, zoneId);
+        sizes.set(zoneId, 1);
+        nexts.set(zoneId, zoneId);
+        openConnections.set(zoneId, initialOpenConnections[zoneId]);
+    }
+
+    private void addSystem(int zoneId) {
+        systemParents.set(zoneId, zoneId);
+        systemSizes.set(zoneId, 1);
+        systemNexts.set(zoneId, zoneId);
+    }
+
+    private int area(int zoneId) {
+        while (parents.get(zoneId) != zoneId)
+            zoneId = parents.get(zoneId);
+        return zoneId;
+    }
+
+    private int system(int zoneId) {
+        while (systemParents.get(zoneId) != zoneId)
+            zoneId = systemParents.get(zoneId);
+        return zoneId;
+    }
+
+    private void connectAreas(int zoneId1, int zoneId2) {
+        int root1 = area(zoneId1);
+        int root2 = area(zoneId2);
+        if (root1 == root2) {
+            openConnections.add(root1, -2);
+            return;
+        }
+        if (sizes.get(root1) < sizes.get(root2)) {
+            int root = root1;
+            root1 = root2;
+            root2 = root;
+        }
+
+        parents.set(root2, root1);
+        sizes.add(root1, sizes.get(root2));
+        openConnections.add(root1, openConnections.get(root2) - 2);
+        for (int color = 0; color < COLOR_COUNT; color += 1)
+            occupants.add(root1 * COLOR_COUNT + color, occupants.get(root2 * COLOR_COUNT + color));
+        // splicing the two circular lists of zones joins them
+        int next1 = nexts.get(root1);
+        nexts.set(root1, nexts.get(root2));
+        nexts.set(root2, next1);
+    }
+
+    private void connectSystems(int zoneId1, int zoneId2) {
+        int root1 = system(zoneId1);
+        int root2 = system(zoneId2);
+        if (root1 == root2)
+            return;
+        if (systemSizes.get(root1) < systemSizes.get(root2)) {
+            int root = root1;
+            root1 = root2;
+            root2 = root;
+        }
+
+        systemParents.set(root2, root1);
+        systemSizes.add(root1, systemSizes.get(root2));
+        for (int color = 0; color < COLOR_COUNT; color += 1)
+            huts.add(root1 * COLOR_COUNT + color, huts.get(root2 * COLOR_COUNT + color));
+        int next1 = systemNexts.get(root1);
+        systemNexts.set(root1, systemNexts.get(root2));
+        systemNexts.set(root2, next1);
+    }
+
+    private static boolean isOccupied(Ints occupants, int root) {
+        for (int color = 0; color < COLOR_COUNT; color += 1)
+            if (occupants.get(root * COLOR_COUNT + color) > 0)
+                return true;
+        return false;
+    }
+
+    // gives the given points to the majority occupants of the area with the given root
+    private void award(Ints occupants, int root, int points) {
+        int max = 0;
+        for (int color = 0; color < COLOR_COUNT; color += 1)
+            max = Math.max(max, occupants.get(root * COLOR_COUNT + color));
+        for (int color = 0; color < COLOR_COUNT && max > 0; color += 1)
+            if (occupants.get(root * COLOR_COUNT + color) == max)
+                totals.add(color, points);
+    }
+
+    private void addOccupant(Occupant.Kind kind, int zoneId) {
+        int placer = tilePlacers.get(Zone.tileId(zoneId));
+        if (kind == PAWN) {
+            occupants.add(area(zoneId) * COLOR_COUNT + placer, 1);
+            pawns.add(zoneId);
+        } else {
+            huts.add(system(zoneId) * COLOR_COUNT + placer, 1);
+        }
+        occupantCounts.add(placer * OCCUPANT_KIND_COUNT + kind.ordinal(), 1);
+    }
+
+    private void removePawn(int zoneId) {
+        int placer = tilePlacers.get(Zone.tileId(zoneId));
+        occupants.add(area(zoneId) * COLOR_COUNT + placer, -1);
+        pawns.remove(zoneId);
+        occupantCounts.add(placer * OCCUPANT_KIND_COUNT + PAWN.ordinal(), -1);
+    }
+
+    // the codes of the occupants which can be placed on the last tile, as in ActionEncoder
+    private int occupantCodes() {
+        int tileId = turn.get(LAST_TILE);
+        if (tilePlacers.get(tileId) == NO_PLAYER)
+            return 0;
+
+        int player = currentColor();
+        boolean hasPawn = occupantCount(player, PAWN) < Occupant.occupantsCount(PAWN);
+        boolean hasHut = occupantCount(player, Occupant.Kind.HUT)
+                < Occupant.occupantsCount(Occupant.Kind.HUT);
+        int pawnCodes = 0;
+        int hutCodes = 0;
+        for (int localId = 0; localId < Tile.LOCAL_ID_COUNT; localId += 1) {
+            int zoneId = tileId * 10 + localId;
+            int kind = zoneKinds[zoneId];
+            if (hasPawn && (kind == FOREST || kind == MEADOW || kind == RIVER)
+                    && !isOccupied(occupants, area(zoneId)))
+                pawnCodes |= 1 << localId;
+            if (hasHut && (kind == LAKE || kind == RIVER && !((Zone.River) zones[zoneId]).hasLake())
+                    && !isOccupied(huts, system(zoneId)))
+                hutCodes |= 1 << localId;
+        }
+        return pawnCodes << (PAWN.ordinal() << OCCUPANT_ID_BITS)
+                | hutCodes << (Occupant.Kind.HUT.ordinal() << OCCUPANT_ID_BITS);
+    }
+
+    // as in GameState.withPlacedTile
+    private void placeTileOfTurn(int tileId, int rotation, int cell) {
+        int player = currentColor();
+        placeTile(tileId, player, rotation, cell);
+        turn.set(TILE_TO_PLACE, NO_TILE);
+
+        int powerZoneId = powerZoneIds[tileId];
+        if (tiles[tileId].kind() == Tile.Kind.MENHIR && powerZoneId != NO_ZONE) {
+            switch (zones[powerZoneId].specialPower()) {
+                case LOGBOAT ->
+                        totals.add(player, Points.forLogboat(lakeCount(system(powerZoneId))));
+                case HUNTING_TRAP -> scoreHuntingTrap(player, powerZoneId);
+                case SHAMAN -> {
+                    if (occupantCount(player, PAWN) > 0) {
+                        turn.set(NEXT_ACTION, RETAKE_PAWN.ordinal());
+                        return;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        occupyOrFinishTurn();
+    }
+
+    private void occupyOrFinishTurn() {
+        turn.set(NEXT_ACTION, OCCUPY_TILE.ordinal());
+        if (occupantCodes() == 0)
+            finishTurn();
+    }
+
+    private int lakeCount(int root) {
+        int lakeCount = 0;
+        int zoneId = root;
+        do {
+            if (zoneKinds[zoneId] == LAKE) lakeCount += 1;
+            zoneId = systemNexts.get(zoneId);
+        } while (zoneId != root);
+        return lakeCount;
+    }
+
+    // scores the animals of the meadow around the hunting trap, which are then all cancelled
+    private void scoreHuntingTrap(int player, int trapZoneId) {
+        int root = area(trapZoneId);
+        int trapCell = tileCells.get(Zone.tileId(trapZoneId));
+        int[] counts = animalCounts;
+        Arrays.fill(counts, 0);
+        for (int dx = -1; dx <= 1; dx += 1) {
+            for (int dy = -1; dy <= 1; dy += 1) {
+                int tileId = cellTiles.get(trapCell + dx * side + dy);
+                if (tileId == NO_TILE)
+                    continue;
+                for (int zoneId = tileId * 10; zoneId < (tileId + 1) * 10; zoneId += 1) {
+                    if (zoneKinds[zoneId] != MEADOW || area(zoneId) != root)
+                        continue;
+                    // as in GameState, the animals already cancelled are counted again
+                    List<Animal> animals = ((Zone.Meadow) zones[zoneId]).animals();
+                    int cancelled = cancelledAnimals.get(zoneId);
+                    for (int i = 0; i < animals.size(); i += 1) {
+                        counts[animals.get(i).kind().ordinal()] += 1;
+                        cancelled |= 1 << animals.get(i).id() % 10;
+                    }
+                    cancelledAnimals.set(zoneId, cancelled);
+                }
+            }
+        }
+
+        int deerCount = counts[Animal.Kind.DEER.ordinal()];
+        int points = Points.forMeadow(counts[Animal.Kind.MAMMOTH.ordinal()],
+                counts[Animal.Kind.AUROCHS.ordinal()],
+                deerCount - Math.min(counts[Animal.Kind.TIGER.ordinal()], deerCount));
+        if (points > 0) totals.add(player, points);
+    }
+
+    // as in GameState.withTurnFinished
+    private void finishTurn() {
+        int tileId = turn.get(LAST_TILE);
+        int closedCount = 0;
+        boolean closedMenhirForest = false;
+        for (int zoneId = tileId * 10; zoneId < (tileId + 1) * 10; zoneId += 1) {
+            int kind = zoneKinds[zoneId];
+            if (kind != FOREST && kind != RIVER)
+                continue;
+            int root = area(zoneId);
+            if (openConnections.get(root) != 0 || indexOf(closedAreas, closedCount, root) != -1)
+                continue;
+
+            closedAreas[closedCount++] = root;
+            boolean hasMenhir = scoreClosedArea(root, kind);
+            closedMenhirForest |= hasMenhir;
+        }
+
+        for (int index = pawns.size() - 1; index >= 0; index -= 1) {
+            int zoneId = pawns.get(index);
+            int kind = zoneKinds[zoneId];
+            if ((kind == FOREST || kind == RIVER)
+                    && indexOf(closedAreas, closedCount, area(zoneId)) != -1) {
+                int placer = tilePlacers.get(Zone.tileId(zoneId));
+                pawns.remove(zoneId);
+                occupantCounts.add(placer * OCCUPANT_KIND_COUNT + PAWN.ordinal(), -1);
+            }
+        }
+        for (int i = 0; i < closedCount; i += 1)
+            for (int color = 0; color < COLOR_COUNT; color += 1)
+                occupants.set(closedAreas[i] * COLOR_COUNT + color, 0);
+
+        if (closedMenhirForest && tiles[tileId].kind() == Tile.Kind.NORMAL) {
+            int top = placeableTop(menhirDeck, turn.get(MENHIR_TOP));
+            if (top < menhirDeck.length) {
+                turn.set(MENHIR_TOP, top + 1);
+                turn.set(TILE_TO_PLACE, menhirDeck[top]);
+                turn.set(NEXT_ACTION, PLACE_TILE.ordinal());
+                return;
+            }
+            turn.set(MENHIR_TOP, top);
+        }
+
+        turn.set(CURRENT_PLAYER, (turn.get(CURRENT_PLAYER) + 1) % players.size());
+        int top = placeableTop(normalDeck, turn.get(NORMAL_TOP));
+        if (top == normalDeck.length) {
+            turn.set(NORMAL_TOP, top);
+            turn.set(NEXT_ACTION, END_GAME.ordinal());
+            scoreFinalPoints();
+        } else {
+            turn.set(NORMAL_TOP, top + 1);
+            turn.set(TILE_TO_PLACE, normalDeck[top]);
+            turn.set(NEXT_ACTION, PLACE_TILE.ordinal());
+        }
+    }
+
+    private static int indexOf(int[] values, int count, int value) {
+        for (int i = 0; i < count; i += 1)
+            if (values[i] == value)
+                return i;
+        return -1;
+    }
+
+    // scores the closed forest or river with the given root, and returns true iff it has a menhir
+    private boolean scoreClosedArea(int root, int kind) {
+        mark += 1;
+        int tileCount = 0;
+        int mushroomGroupCount = 0;
+        int fishCount = 0;
+        boolean hasMenhir = false;
+        int zoneId = root;
+        do {
+            if (tileMarks[Zone.tileId(zoneId)] != mark) {
+                tileMarks[Zone.tileId(zoneId)] = mark;
+                tileCount += 1;
+            }
+            // tested in turn rather than with a pattern switch, whose bootstrap allocates
+            if (zones[zoneId] instanceof Zone.Forest forest) {
+                hasMenhir |= forest.kind() == Zone.Forest.Kind.WITH_MENHIR;
+                if (forest.kind() == Zone.Forest.Kind.WITH_MUSHROOMS) mushroomGroupCount += 1;
+            } else if (zones[zoneId] instanceof Zone.River river) {
+                fishCount += river.fishCount();
+                // a lake ending the river at both ends is only counted once
+                if (river.hasLake() && zoneMarks[river.lake().id()] != mark) {
+                    zoneMarks[river.lake().id()] = mark;
+                    fishCount += river.lake().fishCount();
+                }
+            }
+            zoneId = nexts.get(zoneId);
+        } while (zoneId != root);
+
+        if (isOccupied(occupants, root))
+            award(occupants, root, kind == FOREST
+                    ? Points.forClosedForest(tileCount, mushroomGroupCount)
+                    : Points.forClosedRiver(tileCount, fishCount));
+        return hasMenhir;
+    }
+
+    // as in FinalScoring, without cancelling the animals, which no longer matter
+    private void scoreFinalPoints() {
+        mark += 1;
+        int finalMark = mark;
+        for (int order = 0; order < turn.get(PLACED_TILE_COUNT); order += 1) {
+            int tileId = placedTiles.get(order);
+            for (int zoneId = tileId * 10; zoneId < (tileId + 1) * 10; zoneId += 1) {
+                int kind = zoneKinds[zoneId];
+                if (kind == MEADOW) {
+                    int root = area(zoneId);
+                    if (zoneMarks[root] != finalMark) scoreMeadow(root);
+                    zoneMarks[root] = finalMark;
+                } else if (kind == RIVER || kind == LAKE) {
+                    int root = system(zoneId);
+                    if (zoneMarks[root] != finalMark) scoreRiverSystem(root);
+                    zoneMarks[root] = finalMark;
+                }
+            }
+        }
+    }
+
+    private void scoreMeadow(int root) {
+        if (!isOccupied(occupants, root))
+            return;
+
+        int pitCell = -1;
+        boolean wildFire = false;
+        int zoneId = root;
+        do {
+            Zone.SpecialPower specialPower = zones[zoneId].specialPower();
+            if (specialPower == Zone.SpecialPower.PIT_TRAP && pitCell == -1)
+                pitCell = tileCells.get(Zone.tileId(zoneId));
+            wildFire |= specialPower == Zone.SpecialPower.WILD_FIRE;
+            zoneId = nexts.get(zoneId);
+        } while (zoneId != root);
+
+        // the counts of the animals of the meadow, and of those in reach of the pit trap
+        int[] counts = animalCounts;
+        int[] countsInReach = animalCountsInReach;
+        Arrays.fill(counts, 0);
+        Arrays.fill(countsInReach, 0);
+        do {
+            boolean inReach =
+                    pitCell != -1 && isAround(tileCells.get(Zone.tileId(zoneId)), pitCell);
+            List<Animal> animals = ((Zone.Meadow) zones[zoneId]).animals();
+            int cancelled = cancelledAnimals.get(zoneId);
+            for (int i = 0; i < animals.size(); i += 1) {
+                Animal animal = animals.get(i);
+                if ((cancelled >>> animal.id() % 10 & 1) != 0)
+                    continue;
+                counts[animal.kind().ordinal()] += 1;
+                if (inReach) countsInReach[animal.kind().ordinal()] += 1;
+            }
+            zoneId = nexts.get(zoneId);
+        } while (zoneId != root);
+
+        // tigers eat the deer out of reach of the pit trap first, and flee a wild fire
+        int deer = Animal.Kind.DEER.ordinal();
+        int tigerCount = wildFire ? 0 : counts[Animal.Kind.TIGER.ordinal()];
+        int eatenCount = Math.min(tigerCount, counts[deer]);
+        int eatenInReachCount = Math.max(0, eatenCount - (counts[deer] - countsInReach[deer]));
+        counts[deer] -= eatenCount;
+        countsInReach[deer] -= eatenInReachCount;
+
+        if (pitCell != -1) {
+            int points = meadowPoints(countsInReach);
+            if (points > 0) award(occupants, root, points);
+        }
+        int points = meadowPoints(counts);
+        if (points > 0) award(occupants, root, points);
+    }
+
+    private boolean isAround(int cell1, int cell2) {
+        return Math.abs(cell1 / side - cell2 / side) <= 1
+                && Math.abs(cell1 % side - cell2 % side) <= 1;
+    }
+
+    private static int meadowPoints(int[] counts) {
+        return Points.forMeadow(counts[Animal.Kind.MAMMOTH.ordinal()],
+                counts[Animal.Kind.AUROCHS.ordinal()],
+                counts[Animal.Kind.DEER.ordinal()]);
+    }
+
+    private void scoreRiverSystem(int root) {
+        if (!isOccupied(huts, root))
+            return;
+
+        int lakeCount = 0;
+        int fishCount = 0;
+        boolean hasRaft = false;
+        int zoneId = root;
+        do {
+            Zone.Water water = (Zone.Water) zones[zoneId];
+            if (water instanceof Zone.Lake) lakeCount += 1;
+            fishCount += water.fishCount();
+            hasRaft |= water.specialPower() == Zone.SpecialPower.RAFT;
+            zoneId = systemNexts.get(zoneId);
+        } while (zoneId != root);
+
+        if (hasRaft) award(huts, root, Points.forRaft(lakeCount));
+        if (fishCount > 0) award(huts, root, Points.forRiverSystem(fishCount));
+    }
+
+    /**
+     * Part of the state whose writes can be undone.
+     */
+    private abstract static class Undoable {
+        /**
+         * Restores the given value, recorded in the trail with the given index.
+         */
+        abstract void restore(int index, int value);
+    }
+
+    /**
+     * Array of integers, whose writes are recorded in the trail.
+     */
+    private final class Ints extends Undoable {
+        private final int[] values;
+
+        private Ints(int size, int initialValue) {
+            this.values = new int[size];
+            Arrays.fill(values, initialValue);
+        }
+
+        private int get(int index) {
+            return values[index];
+        }
+
+        private void set(int index, int value) {
+            if (values[index] != value) {
+                log(this, index, values[index]);
+                values[index] = value;
+            }
+        }
+
+        private void add(int index, int delta) {
+            set(index, values[index] + delta);
+        }
+
+        @Override
+        void restore(int index, int value) {
+            values[index] = value;
+        }
+    }
+
+    /**
+     * Sorted set of integers, whose additions and removals are recorded in the trail.
+     */
+    private final class SortedInts extends Undoable {
+        private final int[] values;
+        private int size;
+
+        private SortedInts(int capacity) {
+            this.values = new int[capacity];
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int get(int index) {
+            return values[index];
+        }
+
+        private void add(int value) {
+            insert(value);
+            log(this, ADDED, value);
+        }
+
+        private void remove(int value) {
+            delete(value);
+            log(this, REMOVED, value);
+        }
+
+        private void insert(int value) {
+            int index = -Arrays.binarySearch(values, 0, size, value) - 1;
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size += 1;
+        }
+
+        private void delete(int value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            size -= 1;
+        }
+
+        @Override
+        void restore(int index, int value) {
+            if (index == ADDED)
+                delete(value);
+            else
+                insert(value);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package ch.epfl.chacun;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.*;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+import static ch.epfl.chacun.Preconditions.checkArgument;
+
+/**
+ * Represents a game by what determines it: its players, the seed with which its tiles were
+ * shuffled, and the codes of the actions played (see ActionEncoder), from which its state is
+ * rebuilt by replaying them.
+ * <p>
+ * Its binary form starts with the bytes 'C', 'C', 'N', 'R' and the version of the format, followed
+ * by a stream of bits, from the most significant one: the number of players (3 bits), their
+ * colors (3 bits each), the seed (64 bits), the number of actions (32 bits) and the codes of the
+ * actions, on 10 bits for tile placements and on 5 bits otherwise, the last byte being padded with
+ * zeros.
+ *
+ * @author Sam Lee (375535)
+ *
+ * @param players the players of the game, in the order in which they play
+ * @param seed the seed with which the tiles were shuffled (see tileDecks)
+ * @param actions the codes of the actions played since the start of the game
+ */
+public record GameRecord(List<PlayerColor> players, long seed, List<Integer> actions) implements Serializable {
+    /**
+     * Version of the binary form written by toBytes.
+     */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'C', 'C', 'N', 'R'};
+    private static final int PLAYER_COUNT_BITS = 3;
+    private static final int COLOR_BITS = 3;
+    private static final int ACTION_COUNT_BITS = 32;
+    private static final int PLACEMENT_BITS = 10;
+    private static final int OCCUPATION_BITS = 5;
+
+    /**
+     * The generator algorithm the tiles are shuffled with, which is the default one of the Java
+     * versions the project runs on, named explicitly so that records do not depend on that default.
+     */
+    public static final RandomGeneratorFactory<RandomGenerator> GENERATOR_FACTORY =
+            RandomGeneratorFactory.of("L32X64MixRandom");
+
+    /**
+     * Compact constructor of GameRecord.
+     *
+     * @throws IllegalArgumentException if there are less than 2 players, or some player appears
+     * twice
+     */
+    public GameRecord {
+        players = List.copyOf(players);
+        actions = List.copyOf(actions);
+        checkArgument(players.size() >= 2 && Set.copyOf(players).size() == players.size());
+    }
+
+    /**
+     * Returns the tile decks of the games whose tiles were shuffled with the given seed.
+     *
+     * @param seed the given seed
+     * @return the tile decks shuffled with the given seed
+     */
+    public static TileDecks tileDecks(long seed) {
+        return TileDecks.shuffled(Tiles.TILES, GENERATOR_FACTORY.create(seed));
+    }
+
+    /**
+     * Returns the record of the game with the given players and seed, whose actions are given as
+     * base32 strings (see ActionEncoder).
+     *
+     * @param players the players of the game
+     * @param seed the seed with which the tiles were shuffled
+     * @param actionStrings the base32 strings of the actions played
+     * @return the record of the game
+     * @throws IllegalArgumentException if one of the strings is not a valid base32 string
+     */
+    public static GameRecord of(List<PlayerColor> players, long seed, List<String> actionStrings) {
+        List<Integer> actions = new ArrayList<>(actionStrings.size());
+        for (String string : actionStrings) {
+            checkArgument(Base32.isValid(string));
+            actions.add(Base32.decode(string));
+        }
+        return new GameRecord(players, seed, actions);
+    }
+
+    /**
+     * Returns the record of the game with the given players and seed, whose actions are given as a
+     * log of base32 strings separated by whitespace or commas (see Base32.decodeAll).
+     *
+     * @param players the players of the game
+     * @param seed the seed with which the tiles were shuffled
+     * @param log the log of the actions played
+     * @return the record of the game
+     * @throws IllegalArgumentException if the log is not a valid log of base32 strings
+     */
+    public static GameRecord ofLog(List<PlayerColor> players, long seed, CharSequence log) {
+        // a log has at least two characters per action, except for the last one
+        int[] actions = new int[(log.length() + 1) / 2];
+        int count = Base32.decodeAll(log, actions);
+        return new GameRecord(players, seed, Arrays.stream(actions, 0, count).boxed().toList());
+    }
+
+    /**
+     * Returns the state of the game before its first action, with the given text maker.
+     *
+     * @param textMaker the text maker of the messages, or null for messages without text
+     * @return the state of the game before its first action
+     */
+    public GameState initialState(TextMaker textMaker) {
+        return GameState.initial(players, tileDecks(seed), textMaker);
+    }
+
+    /**
+     * Returns the state of the game after all its actions, rebuilt by replaying them.
+     *
+     * @param textMaker the text maker of the messages, or null for messages without text
+     * @return the state of the game after all its actions
+     * @throws IllegalArgumentException if one of the actions is not legal
+     */
+    public GameState replay(TextMaker textMaker) {
+        GameState state = initialState(textMaker).withStartingTilePlaced();
+        for (int action : actions)
+            state = ActionEncoder.apply(state, action);
+        return state;
+    }
+
+    /**
+     * Returns the base32 strings of the actions (see ActionEncoder).
+     *
+     * @return the base32 strings of the actions
+     * @throws IllegalArgumentException if one of the actions is not legal, its width (which depends
+     * on the action expected) being only known by replaying the game
+     */
+    public List<String> actionStrings() {
+        GameEngine engine = new GameEngine(initialState(null));
+        engine.startGame();
+        List<String> strings = new ArrayList<>(actions.size());
+        for (int action : actions) {
+            strings.add(actionBits(engine) == PLACEMENT_BITS
+                    ? Base32.encodeBits10(action)
+                    : Base32.encodeBits5(action));
+            engine.apply(action);
+        }
+        return strings;
+    }
+
+    /**
+     * Returns the log of the actions: their base32 strings (see ActionEncoder) separated by
+     * Base32.LOG_SEPARATOR.
+     *
+     * @return the log of the actions
+     * @throws IllegalArgumentException if one of the actions is not legal, its width (which depends
+     * on the action expected) being only known by replaying the game
+     */
+    public String actionLog() {
+        GameEngine engine = new GameEngine(initialState(null));
+        engine.startGame();
+        StringBuilder log = new StringBuilder(3 * actions.size());
+        for (int action : actions) {
+            Base32.appendTo(log, action, actionBits(engine));
+            engine.apply(action);
+        }
+        return log.toString();
+    }
+
+    /**
+     * Returns the binary form of the record.
+     *
+     * @return the binary form of the record
+     * @throws IllegalArgumentException if one of the actions is not legal, its width (which depends
+     * on the action expected) being only known by replaying the game
+     */
+    public byte[] toBytes() {
+        BitWriter writer = new BitWriter();
+        writer.write(players.size(), PLAYER_COUNT_BITS);
+        for (PlayerColor player : players)
+            writer.write(player.ordinal(), COLOR_BITS);
+        writer.write(seed >>> Integer.SIZE, Integer.SIZE);
+        writer.write(seed, Integer.SIZE);
+        writer.write(actions.size(), ACTION_COUNT_BITS);
+
+        GameEngine engine = new GameEngine(initialState(null));
+        engine.startGame();
+        for (int action : actions) {
+            writer.write(action, actionBits(engine));
+            engine.apply(action);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Returns the record whose binary form is the given one.
+     *
+     * @param bytes the binary form of a record
+     * @return the record whose binary form is the given one
+     * @throws IllegalArgumentException if the given bytes are not the binary form of a record of a
+     * known version, or one of its actions is not legal
+     */
+    public static GameRecord fromBytes(byte[] bytes) {
+        checkArgument(bytes.length > MAGIC.length
+                && Arrays.equals(bytes, 0, MAGIC.length, MAGIC, 0, MAGIC.length)
+                && bytes[MAGIC.length] == VERSION);
+        BitReader reader = new BitReader(bytes, MAGIC.length + 1);
+
+        int playerCount = (int) reader.read(PLAYER_COUNT_BITS);
+        List<PlayerColor> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i += 1) {
+            int color = (int) reader.read(COLOR_BITS);
+            checkArgument(color < PlayerColor.ALL.size());
+            players.add(PlayerColor.ALL.get(color));
+        }
+        long seed = reader.read(Integer.SIZE) << Integer.SIZE | reader.read(Integer.SIZE);
+        long actionCount = reader.read(ACTION_COUNT_BITS);
+        // each action takes at least one bit, hence a bound on their number
+        checkArgument(actionCount <= 8L * bytes.length);
+
+        // the width of each action depends on the action expected, which the engine knows
+        GameRecord record = new GameRecord(players, seed, List.of());
+        GameEngine engine = new GameEngine(record.initialState(null));
+        engine.startGame();
+        List<Integer> actions = new ArrayList<>((int) actionCount);
+        for (long i = 0; i < actionCount; i += 1) {
+            int action = (int) reader.read(actionBits(engine));
+            engine.apply(action);
+            actions.add(action);
+        }
+        return new GameRecord(players, seed, actions);
+    }
+
+    private static int actionBits(GameEngine engine) {
+        checkArgument(!engine.isOver());
+        return engine.nextAction() == GameState.Action.PLACE_TILE ? PLACEMENT_BITS : OCCUPATION_BITS;
+    }
+
+    /**
+     * Writer of a stream of bits, from the most significant one of each byte.
+     */
+    private static final class BitWriter {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int buffer;
+        private int bufferedBits;
+
+        private BitWriter() {
+            bytes.writeBytes(MAGIC);
+            bytes.write(VERSION);
+        }
+
+        private void write(long value, int bits) {
+            for (int i = bits - 1; i >= 0; i -= 1) {
+                buffer = buffer << 1 | (int) (value >>> i & 1);
+                bufferedBits += 1;
+                if (bufferedBits == Byte.SIZE) {
+                    bytes.write(buffer);
+                    buffer = 0;
+                    bufferedBits = 0;
+                }
+            }
+        }
+
+        private byte[] toByteArray() {
+            if (bufferedBits != 0)
+                write(0, Byte.SIZE - bufferedBits);
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Reader of a stream of bits, from the most significant one of each byte.
+     */
+    private static final class BitReader {
+        private final byte[] bytes;
+        private long position;
+
+        private BitReader(byte[] bytes, int offset) {
+            this.bytes = bytes;
+            this.position = (long) offset * Byte.SIZE;
+        }
+
+        private long read(int bits) {
+            checkArgument(position + bits <= (long) bytes.length * Byte.SIZE);
+            long value = 0;
+            for (int i = 0; i < bits; i += 1, position += 1) {
+                int bit = bytes[(int) (position / Byte.SIZE)] >>> Byte.SIZE - 1 - position % Byte.SIZE & 1;
+                value = value << 1 | bit;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package ch.epfl.chacun;
+
+import static ch.epfl.chacun.Preconditions.checkArgument;
+
+/**
+ * Replays a recorded game once, checking that its actions are legal, and keeps the state reached
+ * every given number of moves (a keyframe), so that the state after any number of moves can then
+ * be rebuilt by applying at most that number of actions minus one to the closest keyframe before
+ * it.
+ * <p>
+ * The actions are checked on a GameEngine, which applies them in place, and the keyframes are
+ * only built, from the closest keyframe before them, when a state after them is first asked for.
+ * The states are immutable, so keeping a keyframe costs no copy, and those of successive keyframes
+ * share most of their content; threads sharing a replay may both build the same keyframe.
+ *
+ * @author Sam Lee (375535)
+ */
+public final class GameReplay {
+    /**
+     * Number of moves between keyframes used by default, a game having about thirty moves.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 8;
+
+    private final GameRecord record;
+    private final int keyframeInterval;
+
+    /**
+     * States after 0, N, 2N, ... moves, N being the keyframe interval, null until built.
+     */
+    private final GameState[] keyframes;
+    private GameState finalState;
+
+    /**
+     * Constructs the replay of the given recorded game, with the given text maker and keyframe
+     * interval.
+     *
+     * @param record the recorded game
+     * @param textMaker the text maker of the messages, or null for messages without text
+     * @param keyframeInterval the number of moves between keyframes
+     * @throws IllegalArgumentException if the keyframe interval is not strictly positive, or one of
+     * the actions of the game is not legal
+     */
+    public GameReplay(GameRecord record, TextMaker textMaker, int keyframeInterval) {
+        checkArgument(keyframeInterval > 0);
+        this.record = record;
+        this.keyframeInterval = keyframeInterval;
+
+        GameState initialState = record.initialState(textMaker);
+        GameEngine engine = new GameEngine(initialState);
+        engine.startGame();
+        for (int action : record.actions())
+            engine.apply(action);
+
+        this.keyframes = new GameState[record.actions().size() / keyframeInterval + 1];
+        this.keyframes[0] = initialState.withStartingTilePlaced();
+    }
+
+    /**
+     * Constructs the replay of the given recorded game, without texts and with the default
+     * keyframe interval.
+     *
+     * @param record the recorded game
+     * @throws IllegalArgumentException if one of the actions of the game is not legal
+     */
+    public GameReplay(GameRecord record) {
+        this(record, null, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Returns the recorded game.
+     *
+     * @return the recorded game
+     */
+    public GameRecord record() {
+        return record;
+    }
+
+    /**
+     * Returns the number of moves between keyframes.
+     *
+     * @return the number of moves between keyframes
+     */
+    public int keyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Returns the number of moves (actions) of the game.
+     *
+     * @return the number of moves of the game
+     */
+    public int moveCount() {
+        return record.actions().size();
+    }
+
+    /**
+     * Returns the state of the game after the given number of moves, the starting tile having been
+     * placed.
+     *
+     * @param moveIndex the given number of moves
+     * @return the state of the game after the given number of moves
+     * @throws IndexOutOfBoundsException if the number of moves is negative or greater than the
+     * number of moves of the game
+     */
+    public GameState stateAt(int moveIndex) {
+        if (moveIndex < 0 || moveIndex > moveCount())
+            throw new IndexOutOfBoundsException(moveIndex);
+        if (moveIndex == moveCount())
+            return finalState();
+
+        int keyframe = moveIndex / keyframeInterval;
+        return applied(keyframe(keyframe), keyframe * keyframeInterval, moveIndex);
+    }
+
+    // returns the given keyframe, building it and those before it from the closest one built
+    private GameState keyframe(int keyframe) {
+        int built = keyframe;
+        while (keyframes[built] == null)
+            built -= 1;
+        for (; built < keyframe; built += 1) {
+            int move = built * keyframeInterval;
+            keyframes[built + 1] = applied(keyframes[built], move, move + keyframeInterval);
+        }
+        return keyframes[keyframe];
+    }
+
+    // returns the state reached by playing, on the given state reached after fromMove moves, the
+    // moves up to toMove (excluded)
+    private GameState applied(GameState state, int fromMove, int toMove) {
+        for (int move = fromMove; move < toMove; move += 1)
+            state = ActionEncoder.apply(state, record.actions().get(move));
+        return state;
+    }
+
+    /**
+     * Returns the state of the game after all its moves.
+     *
+     * @return the state of the game after all its moves
+     */
+    public GameState finalState() {
+        GameState myFinalState = finalState;
+        if (myFinalState == null) {
+            int keyframe = moveCount() / keyframeInterval;
+            finalState = myFinalState =
+                    applied(keyframe(keyframe), keyframe * keyframeInterval, moveCount());
+        }
+        return myFinalState;
+    }
+}
@@ -1,9 +1,12 @@
 package ch.epfl.chacun;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
- * Saves and loads a game.
+ * Saves and loads a game, either as a whole game state (serialized) or as a compact game record
+ * (see GameRecord), from which the state is rebuilt by replay.
 
  * @author Sam Lee (375535)
  */
@@ -23,4 +26,33 @@ public class GameSaveLoad {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Saves the given game record in its binary form, in the file with the given name.
+     *
+     * @param gameRecord the given game record
+     * @param fileName the name of the file
+     */
+    public static void saveRecord(GameRecord gameRecord, String fileName) {
+        try {
+            Files.write(Path.of(fileName), gameRecord.toBytes());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Loads the game record saved in the file with the given name.
+     *
+     * @param fileName the name of the file
+     * @return the game record saved in the file
+     * @throws IllegalArgumentException if the file does not contain a valid game record
+     */
+    public static GameRecord loadRecord(String fileName) {
+        try {
+            return GameRecord.fromBytes(Files.readAllBytes(Path.of(fileName)));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -2,7 +2,6 @@ package ch.epfl.chacun;
 
 import java.io.Serializable;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static ch.epfl.chacun.Area.hasMenhir;
 import static ch.epfl.chacun.Occupant.Kind.*;
@@ -55,14 +54,33 @@ public record GameState(List<PlayerColor> players,
      *
      * @param players   the given players
      * @param tileDecks the given tileDeck
-     * @param textMaker the given textMaker
+     * @param textMaker the given textMaker, or null for messages without text (see MessageBoard)
      * @return the initial game state
      */
     public static GameState initial(List<PlayerColor> players, TileDecks tileDecks, TextMaker textMaker) {
+        return initial(players, tileDecks, textMaker, Board.EMPTY);
+    }
+
+    /**
+     * Returns the initial game state for the given players, tileDecks, and textMaker, played on the
+     * given empty board (e.g. Board.EMPTY_UNBOUNDED for decks which do not fit in Board.REACH).
+     *
+     * @param players   the given players
+     * @param tileDecks the given tileDeck
+     * @param textMaker the given textMaker, or null for messages without text (see MessageBoard)
+     * @param emptyBoard the given empty board
+     * @return the initial game state
+     * @throws IllegalArgumentException if the given board is not empty
+     */
+    public static GameState initial(List<PlayerColor> players,
+                                    TileDecks tileDecks,
+                                    TextMaker textMaker,
+                                    Board emptyBoard) {
+        checkArgument(emptyBoard.lastPlacedTile() == null);
         return new GameState(players,
                 tileDecks,
                 null,
-                Board.EMPTY,
+                emptyBoard,
                 Action.START_GAME,
                 new MessageBoard(textMaker, List.of()));
     }
@@ -78,6 +96,31 @@ public record GameState(List<PlayerColor> players,
         return players.getFirst();
     }
 
+    /**
+     * Returns the Zobrist key of the state, which combines the key of the board with the players
+     * (in their current order), the points they have, the next action, the tile to place and the
+     * sizes of the decks. It is computed in constant time from the key of the board, which is
+     * updated incrementally, and can thus be used to detect already seen states, e.g. in a
+     * transposition table. Equal states have the same key.
+     *
+     * @return the Zobrist key of the state
+     */
+    public long zobristKey() {
+        long key = board.zobristKey()
+                ^ Zobrist.turn(nextAction, tileToPlace)
+                ^ Zobrist.decks(tileDecks);
+        for (int i = 0; i < players.size(); i += 1) {
+            PlayerColor player = players.get(i);
+            key ^= Zobrist.player(player, i) ^ Zobrist.points(player, messageBoard.points(player));
+        }
+        return key;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(zobristKey());
+    }
+
     /**
      * Returns the number of free occupants — which are not currently placed on the game board —
      * of the given type and of the given player.
@@ -172,18 +215,17 @@ public record GameState(List<PlayerColor> players,
 
                 case Zone.Meadow meadow when meadow.specialPower() == HUNTING_TRAP -> {
                     Area<Zone.Meadow> adjacentMeadow = myBoard.adjacentMeadow(tile.pos(), meadow);
-                    Set<Animal> animals = Area.animals(adjacentMeadow, Set.of());
+                    List<Animal> animals = Area.animalList(adjacentMeadow);
 
                     // cancel deer devoured by tigers in the adjacent meadow
-                    int tigerCount = (int) animals.stream()
-                            .filter(a -> a.kind() == Animal.Kind.TIGER).count();
-                    Set<Animal> deadDear = animals.stream()
-                            .filter(a -> a.kind() == Animal.Kind.DEER).limit(tigerCount)
-                            .collect(Collectors.toSet());
+                    int tigerCount = Area.animalCount(adjacentMeadow, Animal.Kind.TIGER, Set.of());
+                    Set<Animal> deadDear = new HashSet<>();
+                    for (int i = 0; i < animals.size() && deadDear.size() < tigerCount; i += 1)
+                        if (animals.get(i).kind() == Animal.Kind.DEER) deadDear.add(animals.get(i));
 
                     // calculate the points with the remaining animals & cancel all animals
                     myMessageBoard = myMessageBoard.withScoredHuntingTrap(currentPlayer(), adjacentMeadow, deadDear);
-                    myBoard = myBoard.withMoreCancelledAnimals(animals);
+                    myBoard = myBoard.withMoreCancelledAnimals(Set.copyOf(animals));
                 }
 
                 case Zone.Meadow meadow when meadow.specialPower() == SHAMAN -> {
@@ -262,31 +304,36 @@ public record GameState(List<PlayerColor> players,
         TileDecks myTileDecks = tileDecks;
         MessageBoard myMessageBoard = messageBoard;
 
-        for (var river : myBoard.riversClosedByLastTile())
+        Set<Area<Zone.Forest>> closedForests = myBoard.forestsClosedByLastTile();
+        Set<Area<Zone.River>> closedRivers = myBoard.riversClosedByLastTile();
+
+        for (var river : closedRivers)
             myMessageBoard = myMessageBoard.withScoredRiver(river);
 
-        for (var forest : myBoard.forestsClosedByLastTile()) {
+        Area<Zone.Forest> menhirForest = null;
+        for (var forest : closedForests) {
             myMessageBoard = myMessageBoard.withScoredForest(forest);
+            if (menhirForest == null && hasMenhir(forest)) menhirForest = forest;
+        }
 
-            if (hasMenhir(forest) && myBoard.lastPlacedTile().tile().kind() == NORMAL) {
-                myTileDecks = myTileDecks.withTopTileDrawnUntil(MENHIR, myBoard::couldPlaceTile);
+        myBoard = myBoard.withoutGatherersOrFishersIn(closedForests, closedRivers);
 
-                if (myTileDecks.topTile(MENHIR) != null) {
-                    myBoard = myBoard.withoutGatherersOrFishersIn(myBoard.forestsClosedByLastTile(), myBoard.riversClosedByLastTile());
-                    myMessageBoard = myMessageBoard.withClosedForestWithMenhir(currentPlayer(), forest);
+        if (menhirForest != null && board.lastPlacedTile().tile().kind() == NORMAL) {
+            myTileDecks = myTileDecks.withTopTileDrawnUntil(MENHIR, myBoard::couldPlaceTile);
 
-                    return new GameState(myPlayers,
-                            myTileDecks.withTopTileDrawn(MENHIR),
-                            tileDecks().topTile(MENHIR),
-                            myBoard,
-                            Action.PLACE_TILE,
-                            myMessageBoard);
-                }
+            if (myTileDecks.topTile(MENHIR) != null) {
+                myMessageBoard = myMessageBoard.withClosedForestWithMenhir(currentPlayer(), menhirForest);
+
+                return new GameState(myPlayers,
+                        myTileDecks.withTopTileDrawn(MENHIR),
+                        myTileDecks.topTile(MENHIR),
+                        myBoard,
+                        Action.PLACE_TILE,
+                        myMessageBoard);
             }
         }
 
         Collections.rotate(myPlayers, -1);
-        myBoard = myBoard.withoutGatherersOrFishersIn(myBoard.forestsClosedByLastTile(), myBoard.riversClosedByLastTile());
         myTileDecks = myTileDecks.withTopTileDrawnUntil(NORMAL, myBoard::couldPlaceTile);
 
         if (myTileDecks.topTile(NORMAL) == null)
@@ -312,66 +359,7 @@ public record GameState(List<PlayerColor> players,
      * @return an updated game state with all points counted, winning message added, deer cancelled
      */
     private GameState withFinalPointsCounted() {
-        Board myBoard = board;
-        MessageBoard myMessageBoard = messageBoard;
-
-        for (var meadow : myBoard.meadowAreas()) {
-            List<Animal> deer = new ArrayList<>(Area.animals(meadow, myBoard.cancelledAnimals()).stream()
-                    .filter(a -> a.kind() == Animal.Kind.DEER).toList());
-
-            if (meadow.zoneWithSpecialPower(WILD_FIRE) != null)
-                myBoard = myBoard.withMoreCancelledAnimals(Area.animals(meadow, Set.of()).stream()
-                        .filter(a -> a.kind() == Animal.Kind.TIGER).collect(Collectors.toSet()));
-
-            if (meadow.zoneWithSpecialPower(PIT_TRAP) != null) {
-                // deer that are not within its range (far away) must be canceled first
-                Pos pitPos = myBoard.tileWithId(meadow.zoneWithSpecialPower(PIT_TRAP).tileId()).pos();
-
-                deer.sort(Comparator.comparing(d ->
-                        Math.abs(board.tileWithId(d.tileId()).pos().x() - pitPos.x()) < 2
-                                && Math.abs(board.tileWithId(d.tileId()).pos().y() - pitPos.y()) < 2));
-
-                myBoard = cancelDeer(meadow, myBoard, deer);
-
-                if (meadow.zoneWithSpecialPower(PIT_TRAP) instanceof Zone.Meadow pitTrapZone) {
-                    Area<Zone.Meadow> adjacentMeadow = myBoard.adjacentMeadow(pitPos, pitTrapZone);
-                    myMessageBoard = myMessageBoard.withScoredPitTrap(adjacentMeadow, myBoard.cancelledAnimals());
-                }
-            } else
-                myBoard = cancelDeer(meadow, myBoard, deer);
-
-            myMessageBoard = myMessageBoard.withScoredMeadow(meadow, myBoard.cancelledAnimals());
-        }
-
-        for (var riverSystem : myBoard.riverSystemAreas()) {
-            if (riverSystem.zoneWithSpecialPower(RAFT) != null)
-                myMessageBoard = myMessageBoard.withScoredRaft(riverSystem);
-            myMessageBoard = myMessageBoard.withScoredRiverSystem(riverSystem);
-        }
-
-        Integer maxPoint = Collections.max(myMessageBoard.points().values());
-
-        Set<PlayerColor> winners = myMessageBoard.points().entrySet()
-                .stream()
-                .filter(e -> e.getValue().equals(maxPoint))
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toSet());
-
-        return new GameState(players,
-                tileDecks,
-                null,
-                myBoard,
-                Action.END_GAME,
-                myMessageBoard.withWinners(winners, maxPoint));
-    }
-
-    // Returns updated board with one deer per tiger in the same area cancelled
-    private Board cancelDeer(Area<Zone.Meadow> meadow, Board myBoard, List<Animal> deer) {
-        int tigerCount = (int) Area.animals(meadow, myBoard.cancelledAnimals()).stream()
-                .filter(a -> a.kind() == Animal.Kind.TIGER).count();
-        Set<Animal> deadDeer = deer.stream().limit(tigerCount).collect(Collectors.toSet());
-
-        return myBoard.withMoreCancelledAnimals(deadDeer);
+        return FinalScoring.finalState(this);
     }
 
     /**
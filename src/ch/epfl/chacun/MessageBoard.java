@@ -8,18 +8,75 @@ import static ch.epfl.chacun.Preconditions.checkArgument;
 
 /**
  * Represents the contents of a bulletin board.
+ * <p>
+ * The messages are kept in a persistent append-only log shared with the previous boards, and the
+ * total number of points of each player is kept up to date as messages are added. Scoring events
+ * are recorded as such, their text being produced by the text maker only when it is asked for; a
+ * board without text maker (text-free mode, for simulations) never produces any text.
  *
  * @author Sam Lee (375535)
- *
- * @param textMaker the TextMaker object providing text for messages
- * @param messages the list of messages to be displayed on the board
  */
-public record MessageBoard(TextMaker textMaker, List<Message> messages) implements Serializable {
+public final class MessageBoard implements Serializable {
+    private static final long serialVersionUID = 1;
+
+    private final TextMaker textMaker;
+    private final MessageLog messages;
+
+    /**
+     * Total number of points of each player, by player ordinal.
+     */
+    private final int[] totals;
+
+    /**
+     * Set of the players appearing in the scorers of at least one message, as a bitmask of their
+     * ordinals.
+     */
+    private final int scorerBits;
+
+    private MessageBoard(TextMaker textMaker, MessageLog messages, int[] totals, int scorerBits) {
+        this.textMaker = textMaker;
+        this.messages = messages;
+        this.totals = totals;
+        this.scorerBits = scorerBits;
+    }
+
     /**
      * Constructs a new MessageBoard with the specified text maker and messages.
+     *
+     * @param textMaker the TextMaker object providing text for messages, or null for a board whose
+     * messages have no text
+     * @param messages the list of messages to be displayed on the board
+     */
+    public MessageBoard(TextMaker textMaker, List<Message> messages) {
+        this.textMaker = textMaker;
+        this.messages = MessageLog.of(messages);
+        this.totals = new int[PlayerColor.ALL.size()];
+
+        int myScorerBits = 0;
+        for (Message message : this.messages)
+            for (PlayerColor scorer : message.scorers()) {
+                totals[scorer.ordinal()] += message.points();
+                myScorerBits |= 1 << scorer.ordinal();
+            }
+        this.scorerBits = myScorerBits;
+    }
+
+    /**
+     * Returns the TextMaker object providing text for messages, or null in text-free mode.
+     *
+     * @return the TextMaker object providing text for messages, or null
+     */
+    public TextMaker textMaker() {
+        return textMaker;
+    }
+
+    /**
+     * Returns the (unmodifiable) list of messages to be displayed on the board.
+     *
+     * @return the list of messages to be displayed on the board
      */
-    public MessageBoard {
-        messages = List.copyOf(messages);
+    public List<Message> messages() {
+        return messages;
     }
 
     /**
@@ -30,12 +87,23 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) implemen
      */
     public Map<PlayerColor, Integer> points() {
         Map<PlayerColor, Integer> pointsMap = new HashMap<>();
-        for (Message message : messages)
-            message.scorers().forEach(scorer -> pointsMap.merge(scorer, message.points(), Integer::sum));
+        for (PlayerColor player : PlayerColor.ALL)
+            if ((scorerBits & 1 << player.ordinal()) != 0)
+                pointsMap.put(player, totals[player.ordinal()]);
 
         return pointsMap;
     }
 
+    /**
+     * Returns the total number of points obtained by the given player.
+     *
+     * @param player the given player
+     * @return the total number of points obtained by the given player (0 if they never scored)
+     */
+    public int points(PlayerColor player) {
+        return totals[player.ordinal()];
+    }
+
     /**
      * Returns an identical message board to the receiver, unless the given forest is occupied, in
      * which case the table contains a new message indicating that its majority occupants have won
@@ -47,14 +115,15 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) implemen
     public MessageBoard withScoredForest(Area<Zone.Forest> forest) {
         if (forest.isOccupied()) {
             Set<PlayerColor> scorers = forest.majorityOccupants();
-            int tileCount = forest.tileIds().size();
+            int tileCount = forest.tileCount();
             int mushroomGroupCount = Area.mushroomGroupCount(forest);
             int points = forClosedForest(tileCount, mushroomGroupCount);
 
-            return update(textMaker.playersScoredForest(scorers, points, mushroomGroupCount, tileCount),
+            return withEvent(new ScoringEvent.ForestScored(scorers,
                     points,
-                    scorers,
-                    forest.tileIds());
+                    mushroomGroupCount,
+                    tileCount,
+                    forest.tileIds()));
         }
         return this;
     }
@@ -69,10 +138,7 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) implemen
      * @return an updated MessageBoard
      */
     public MessageBoard withClosedForestWithMenhir(PlayerColor player, Area<Zone.Forest> forest) {
-        return update(textMaker.playerClosedForestWithMenhir(player),
-                0,
-                Set.of(),
-                forest.tileIds());
+        return withEvent(new ScoringEvent.ForestWithMenhirClosed(player, forest.tileIds()));
     }
 
     /**
@@ -86,14 +152,11 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) implemen
     public MessageBoard withScoredRiver(Area<Zone.River> river) {
         if (river.isOccupied()) {
             Set<PlayerColor> scorers = river.majorityOccupants();
-            int points = forClosedRiver(river.tileIds().size(), Area.riverFishCount(river));
             int fishCount = Area.riverFishCount(river);
-            int tileCount = river.tileIds().size();
+            int tileCount = river.tileCount();
+            int points = forClosedRiver(tileCount, fishCount);
 
-            return update(textMaker.playersScoredRiver(scorers, points, fishCount, tileCount),
-                    points,
-                    scorers,
-                    river.tileIds());
+            return withEvent(new ScoringEvent.RiverScored(scorers, points, fishCount, tileCount, river.tileIds()));
         }
         return this;
     }
@@ -112,11 +175,10 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) implemen
         int points = meadowPoints(adjacentMeadow, cancelledAnimals);
 
         if (points > 0) {
-            return update(textMaker.playerScoredHuntingTrap(scorer, points,
-                    meadowAnimals(adjacentMeadow, cancelledAnimals)),
+            return withEvent(new ScoringEvent.HuntingTrapScored(scorer,
                     points,
-                    Set.of(scorer),
-                    adjacentMeadow.tileIds());
+                    meadowAnimals(adjacentMeadow, cancelledAnimals),
+                    adjacentMeadow.tileIds()));
         }
         return this;
     }
@@ -131,13 +193,10 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) implemen
      * @return an updated MessageBoard
      */
     public MessageBoard withScoredLogboat(PlayerColor scorer, Area<Zone.Water> riverSystem) {
-        int points = forLogboat(Area.lakeCount(riverSystem));
         int lakeCount = Area.lakeCount(riverSystem);
+        int points = forLogboat(lakeCount);
 
-        return update(textMaker.playerScoredLogboat(scorer, points, lakeCount),
-                points,
-                Set.of(scorer),
-                riverSystem.tileIds());
+        return withEvent(new ScoringEvent.LogboatScored(scorer, points, lakeCount, riverSystem.tileIds()));
     }
 
     /**
@@ -154,10 +213,10 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) implemen
         if (meadow.isOccupied() && points > 0) {
             Set<PlayerColor> scorers = meadow.majorityOccupants();
 
-            return update(textMaker.playersScoredMeadow(scorers, points, meadowAnimals(meadow, cancelledAnimals)),
+            return withEvent(new ScoringEvent.MeadowScored(scorers,
                     points,
-                    scorers,
-                    meadow.tileIds());
+                    meadowAnimals(meadow, cancelledAnimals),
+                    meadow.tileIds()));
         }
         return this;
     }
@@ -176,10 +235,7 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) implemen
         if (riverSystem.isOccupied() && points > 0) {
             Set<PlayerColor> scorers = riverSystem.majorityOccupants();
 
-            return update(textMaker.playersScoredRiverSystem(scorers, points, fishCount),
-                    points,
-                    scorers,
-                    riverSystem.tileIds());
+            return withEvent(new ScoringEvent.RiverSystemScored(scorers, points, fishCount, riverSystem.tileIds()));
         }
         return this;
     }
@@ -198,10 +254,10 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) implemen
         if (adjacentMeadow.isOccupied() && points > 0) {
             Set<PlayerColor> scorers = adjacentMeadow.majorityOccupants();
 
-            return update(textMaker.playersScoredPitTrap(scorers, points, meadowAnimals(adjacentMeadow, cancelledAnimals)),
+            return withEvent(new ScoringEvent.PitTrapScored(scorers,
                     points,
-                    scorers,
-                    adjacentMeadow.tileIds());
+                    meadowAnimals(adjacentMeadow, cancelledAnimals),
+                    adjacentMeadow.tileIds()));
         }
         return this;
     }
@@ -216,12 +272,10 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) implemen
     public MessageBoard withScoredRaft(Area<Zone.Water> riverSystem) {
         if (riverSystem.isOccupied()) {
             Set<PlayerColor> scorers = riverSystem.majorityOccupants();
-            int points = forRaft(Area.lakeCount(riverSystem));
+            int lakeCount = Area.lakeCount(riverSystem);
+            int points = forRaft(lakeCount);
 
-            return update(textMaker.playersScoredRaft(scorers, points, Area.lakeCount(riverSystem)),
-                    points,
-                    scorers,
-                    riverSystem.tileIds());
+            return withEvent(new ScoringEvent.RaftScored(scorers, points, lakeCount, riverSystem.tileIds()));
         }
         return this;
     }
@@ -235,52 +289,194 @@ public record MessageBoard(TextMaker textMaker, List<Message> messages) implemen
      * @return an updated MessageBoard
      */
     public MessageBoard withWinners(Set<PlayerColor> winners, int points) {
-        return update(textMaker.playersWon(winners, points), 0, Set.of(), Set.of());
+        return withEvent(new ScoringEvent.GameWon(winners, points));
     }
 
-    private MessageBoard update(String text, int points, Set<PlayerColor> scorers, Set<Integer> tileIds) {
-        List<Message> updatedMessages = new ArrayList<>(messages);
-        updatedMessages.add(new Message(text, points, scorers, tileIds));
-        return new MessageBoard(textMaker, updatedMessages);
+    /**
+     * Returns an identical message board to the receiver, but with a new message reporting the
+     * given event, whose points are added to the totals of its scorers.
+     *
+     * @param event the given event
+     * @return an updated MessageBoard
+     */
+    MessageBoard withEvent(ScoringEvent event) {
+        Message message = new Message(event, textMaker);
+        int[] myTotals = totals;
+        int myScorerBits = scorerBits;
+        if (!event.scorers().isEmpty()) {
+            myTotals = totals.clone();
+            for (PlayerColor scorer : event.scorers()) {
+                myTotals[scorer.ordinal()] += event.points();
+                myScorerBits |= 1 << scorer.ordinal();
+            }
+        }
+        return new MessageBoard(textMaker, messages.with(message), myTotals, myScorerBits);
     }
 
+    // only the kinds of which there are animals are in the map
     private Map<Animal.Kind, Integer> meadowAnimals(Area<Zone.Meadow> meadow, Set<Animal> cancelledAnimals) {
-        Set<Animal> animalSet = Area.animals(meadow, cancelledAnimals);
         Map<Animal.Kind, Integer> animalMap = new HashMap<>();
-        animalSet.forEach(a -> animalMap.merge(a.kind(), 1, Integer::sum));
-
+        for (Animal.Kind kind : Animal.Kind.values()) {
+            int count = Area.animalCount(meadow, kind, cancelledAnimals);
+            if (count > 0) animalMap.put(kind, count);
+        }
         return animalMap;
     }
 
     private int meadowPoints(Area<Zone.Meadow> meadow, Set<Animal> cancelledAnimals) {
-        Map<Animal.Kind, Integer> animalMap = meadowAnimals(meadow, cancelledAnimals);
+        return forMeadow(Area.animalCount(meadow, Animal.Kind.MAMMOTH, cancelledAnimals),
+                Area.animalCount(meadow, Animal.Kind.AUROCHS, cancelledAnimals),
+                Area.animalCount(meadow, Animal.Kind.DEER, cancelledAnimals));
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof MessageBoard board
+                && Objects.equals(textMaker, board.textMaker)
+                && messages.equals(board.messages);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(textMaker, messages);
+    }
 
-        return forMeadow(animalMap.getOrDefault(Animal.Kind.MAMMOTH, 0),
-                animalMap.getOrDefault(Animal.Kind.AUROCHS, 0),
-                animalMap.getOrDefault(Animal.Kind.DEER, 0));
+    @Override
+    public String toString() {
+        return STR."MessageBoard[textMaker=\{textMaker}, messages=\{messages}]";
     }
 
     /**
      * The Message class represents a message on the message board.
      * It contains text, points, scorers, and tile IDs associated with the message.
-     *
-     * @param text the text content of the message
-     * @param points the points associated with the message, which can be zero
-     * @param scorers the set of players who are associated with the message, which can be empty
-     * @param tileIds the set of tile IDs associated with the message, which can be empty
+     * <p>
+     * A message reporting a scoring event only produces its text when it is first asked for, and
+     * has an empty text if the board has no text maker (text-free mode, for simulations).
      */
-    public record Message(String text, int points, Set<PlayerColor> scorers, Set<Integer> tileIds) {
+    public static final class Message implements Serializable {
+        private static final long serialVersionUID = 1;
+
+        private final ScoringEvent event;
+        private final TextMaker textMaker;
+        private final int points;
+        private final Set<PlayerColor> scorers;
+        private final Set<Integer> tileIds;
+
+        /**
+         * The text of the message, null until it is produced.
+         */
+        private String text;
 
         /**
          * Constructs a Message object with the provided parameters.
          *
+         * @param text the text content of the message
+         * @param points the points associated with the message, which can be zero
+         * @param scorers the set of players who are associated with the message, which can be empty
+         * @param tileIds the set of tile IDs associated with the message, which can be empty
          * @throws IllegalArgumentException if the provided text is null or if points are negative
          */
-        public Message {
+        public Message(String text, int points, Set<PlayerColor> scorers, Set<Integer> tileIds) {
             Objects.requireNonNull(text);
             checkArgument(points >= 0);
-            scorers = Set.copyOf(scorers);
-            tileIds = Set.copyOf(tileIds);
+            this.event = null;
+            this.textMaker = null;
+            this.text = text;
+            this.points = points;
+            this.scorers = Set.copyOf(scorers);
+            this.tileIds = Set.copyOf(tileIds);
+        }
+
+        /**
+         * Constructs a Message object reporting the given event, whose text is produced by the
+         * given text maker when first asked for.
+         *
+         * @param event the event reported by the message
+         * @param textMaker the text maker, or null if the message has no text
+         * @throws IllegalArgumentException if the points of the event are negative
+         */
+        public Message(ScoringEvent event, TextMaker textMaker) {
+            checkArgument(event.points() >= 0);
+            this.event = event;
+            this.textMaker = textMaker;
+            this.points = event.points();
+            this.scorers = event.scorers();
+            this.tileIds = event.tileIds();
+        }
+
+        /**
+         * Returns the text content of the message.
+         *
+         * @return the text content of the message
+         */
+        public String text() {
+            // the text is always the same, so that racing threads may both produce it
+            String myText = text;
+            if (myText == null)
+                text = myText = textMaker == null ? "" : event.text(textMaker);
+            return myText;
+        }
+
+        /**
+         * Returns the points associated with the message, which can be zero.
+         *
+         * @return the points associated with the message
+         */
+        public int points() {
+            return points;
+        }
+
+        /**
+         * Returns the set of players who are associated with the message, which can be empty.
+         *
+         * @return the set of players who are associated with the message
+         */
+        public Set<PlayerColor> scorers() {
+            return scorers;
+        }
+
+        /**
+         * Returns the set of tile IDs associated with the message, which can be empty.
+         *
+         * @return the set of tile IDs associated with the message
+         */
+        public Set<Integer> tileIds() {
+            return tileIds;
+        }
+
+        /**
+         * Returns the event reported by the message, or null if it was constructed from its text.
+         *
+         * @return the event reported by the message, or null
+         */
+        public ScoringEvent event() {
+            return event;
+        }
+
+        // two messages reporting events are compared by their event and text maker, without
+        // producing their texts, which are only compared when one message was constructed from it
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Message message
+                    && points == message.points
+                    && scorers.equals(message.scorers)
+                    && tileIds.equals(message.tileIds)))
+                return false;
+            return event != null && message.event != null
+                    ? event.equals(message.event) && Objects.equals(textMaker, message.textMaker)
+                    : text().equals(message.text());
+        }
+
+        // the text is left out, so that the hash of a message reporting an event is that of the
+        // equal message constructed from its text, and is computed without producing the text
+        @Override
+        public int hashCode() {
+            return Objects.hash(points, scorers, tileIds);
+        }
+
+        @Override
+        public String toString() {
+            return STR."Message[text=\{text()}, points=\{points}, scorers=\{scorers}, tileIds=\{tileIds}]";
         }
     }
-}
\ No newline at end of file
+}
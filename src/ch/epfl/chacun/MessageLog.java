@@ -0,0 +1,106 @@
+package ch.epfl.chacun;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent append-only list of messages, whose appends take amortized constant time.
+ * <p>
+ * A log is a prefix of an array shared with the logs it derives from and the logs derived from
+ * it. The first log appending to a given prefix writes its message in the array, the following
+ * ones (which branch off an older log) copy the prefix into a new array. The number of slots
+ * claimed in an array is an atomic counter, so that logs can be shared between threads.
+ *
+ * @author Sam Lee (375535)
+ */
+final class MessageLog extends AbstractList<MessageBoard.Message> implements RandomAccess, Serializable {
+    private static final long serialVersionUID = 1;
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * The empty log.
+     */
+    static final MessageLog EMPTY = new MessageLog(new MessageBoard.Message[0], 0, new AtomicInteger());
+
+    private final MessageBoard.Message[] array;
+    private final int size;
+
+    /**
+     * Number of slots of the array written by some log.
+     */
+    private final AtomicInteger claimed;
+
+    private MessageLog(MessageBoard.Message[] array, int size, AtomicInteger claimed) {
+        this.array = array;
+        this.size = size;
+        this.claimed = claimed;
+    }
+
+    /**
+     * Returns the log made of the given messages.
+     *
+     * @param messages the given messages
+     * @return the log made of the given messages
+     */
+    static MessageLog of(List<MessageBoard.Message> messages) {
+        if (messages instanceof MessageLog log)
+            return log;
+
+        MessageBoard.Message[] array = messages.toArray(new MessageBoard.Message[0]);
+        for (MessageBoard.Message message : array)
+            Objects.requireNonNull(message);
+        return new MessageLog(array, array.length, new AtomicInteger(array.length));
+    }
+
+    /**
+     * Returns the log made of the messages of the receiver followed by the given one.
+     *
+     * @param message the given message
+     * @return the log made of the messages of the receiver followed by the given one
+     */
+    MessageLog with(MessageBoard.Message message) {
+        Objects.requireNonNull(message);
+        if (size < array.length && claimed.compareAndSet(size, size + 1)) {
+            array[size] = message;
+            return new MessageLog(array, size + 1, claimed);
+        }
+
+        MessageBoard.Message[] myArray = Arrays.copyOf(array, Math.max(MIN_CAPACITY, 2 * size));
+        myArray[size] = message;
+        return new MessageLog(myArray, size + 1, new AtomicInteger(size + 1));
+    }
+
+    @Override
+    public MessageBoard.Message get(int index) {
+        Objects.checkIndex(index, size);
+        return array[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Serial
+    private Object writeReplace() {
+        return new SerializedLog(List.copyOf(this));
+    }
+
+    /**
+     * Serialized form of a log, which only contains its own messages.
+     *
+     * @param messages the messages of the log
+     */
+    private record SerializedLog(List<MessageBoard.Message> messages) implements Serializable {
+        @Serial
+        private Object readResolve() {
+            return of(messages);
+        }
+    }
+}
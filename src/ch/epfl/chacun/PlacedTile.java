@@ -64,7 +64,7 @@ public record PlacedTile(Tile tile, PlayerColor placer, Rotation rotation, Pos p
      * applied to the tile
      */
     public TileSide side(Direction direction) {
-        return tile.sides().get(direction.rotated(rotation.negated()).ordinal());
+        return tile.side(rotation, direction);
     }
 
     /**
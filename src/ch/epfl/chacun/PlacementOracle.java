@@ -0,0 +1,223 @@
+package ch.epfl.chacun;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.function.Predicate;
+
+import static ch.epfl.chacun.FringeTree.SIGNATURE_COUNT;
+
+/**
+ * Answers placement queries about the fringe of a board with bitmask tests.
+ * <p>
+ * Each insertion position carries a constraint signature, which packs, for each direction (in the
+ * order N, E, S, W, two bits per direction), the kind of the side of the neighbouring tile that
+ * faces it, or 0 if there is no neighbour in that direction. Each tile, in each rotation, has a
+ * side signature with the same layout, so that a tile fits on a position iff its signature agrees
+ * with the constraint signature on all constrained directions.
+ * <p>
+ * Whether a tile can be placed somewhere only depends on the set of distinct constraint
+ * signatures of the fringe, which changes much less often than the fringe itself. The set of side
+ * signatures fitting one of them is thus computed when first needed, and shared by the successive
+ * oracles whose constraint signatures are the same, so that most placeability queries are answered
+ * by testing four bits.
+ * <p>
+ * The insertion positions and their constraint signatures are kept in a persistent tree sorted by
+ * x, then y (see FringeTree), shared with the oracles of the previous boards: placing a tile only
+ * copies the paths leading to the few positions it changes, and the rank of a position in that
+ * order, or the position of a given rank, are found without sorting them.
+ *
+ * @author Sam Lee (375535)
+ */
+public final class PlacementOracle implements Serializable {
+    private static final long serialVersionUID = 1;
+    private static final int KIND_BITS = 2;
+
+    /**
+     * Oracle of the empty board, which has no insertion position.
+     */
+    public static final PlacementOracle EMPTY = new PlacementOracle(FringeTree.EMPTY);
+
+    /**
+     * Insertion positions, with their constraint signatures.
+     */
+    private final FringeTree fringe;
+
+    /**
+     * Set of the side signatures which fit on at least one insertion position, as a bitset, null
+     * until first needed.
+     */
+    private transient volatile long[] placeableSignatures;
+
+    private PlacementOracle(FringeTree fringe) {
+        this.fringe = fringe;
+    }
+
+    private static boolean fits(int signature, int constraint) {
+        int mask = (constraint | constraint >>> 1) & 0b01010101;
+        return (signature & (mask | mask << 1)) == constraint;
+    }
+
+    /**
+     * Returns the set of insertion positions.
+     *
+     * @return the set of insertion positions
+     */
+    public Set<Pos> positions() {
+        return fringe.positions();
+    }
+
+    /**
+     * Returns the number of insertion positions.
+     *
+     * @return the number of insertion positions
+     */
+    public int positionCount() {
+        return fringe.size();
+    }
+
+    /**
+     * Returns the rank of the given position among the insertion positions sorted by x, then y,
+     * or -1 if it is not an insertion position.
+     *
+     * @param pos the given position
+     * @return the rank of the given position among the sorted insertion positions, or -1
+     */
+    public int rankOf(Pos pos) {
+        return fringe.rankOf(pos);
+    }
+
+    /**
+     * Returns the insertion position of the given rank, the insertion positions being sorted by x,
+     * then y.
+     *
+     * @param rank the given rank
+     * @return the insertion position of the given rank
+     * @throws IndexOutOfBoundsException if the rank is negative or not smaller than the number of
+     * insertion positions
+     */
+    public Pos positionAt(int rank) {
+        Objects.checkIndex(rank, fringe.size());
+        return fringe.positionAt(rank);
+    }
+
+    /**
+     * Returns the bitmask of the rotations (indexed by their ordinal) with which the given tile
+     * fits on the given position, which is 0 if that position is not an insertion position.
+     *
+     * @param tile the given tile
+     * @param pos the given position
+     * @return the bitmask of the rotations with which the given tile fits on the given position
+     */
+    public int rotationsAt(Tile tile, Pos pos) {
+        int constraint = fringe.constraintAt(pos);
+        if (constraint == 0)
+            return 0;
+
+        int rotations = 0;
+        for (int rotation = 0; rotation < Rotation.COUNT; rotation += 1)
+            if (fits(tile.sideKinds(Rotation.ALL.get(rotation)), constraint))
+                rotations |= 1 << rotation;
+        return rotations;
+    }
+
+    /**
+     * Returns true iff the given tile, rotated by the given rotation, fits on the given position.
+     *
+     * @param tile the given tile
+     * @param rotation the given rotation
+     * @param pos the given position
+     * @return true iff the given tile, rotated by the given rotation, fits on the given position
+     */
+    public boolean canPlace(Tile tile, Rotation rotation, Pos pos) {
+        int constraint = fringe.constraintAt(pos);
+        return constraint != 0 && fits(tile.sideKinds(rotation), constraint);
+    }
+
+    /**
+     * Returns true iff the given tile fits on at least one insertion position, in some rotation.
+     *
+     * @param tile the given tile
+     * @return true iff the given tile fits on at least one insertion position, in some rotation
+     */
+    public boolean canPlaceAnywhere(Tile tile) {
+        long[] signatures = placeableSignatures();
+        for (Rotation rotation : Rotation.ALL) {
+            int signature = tile.sideKinds(rotation);
+            if ((signatures[signature / Long.SIZE] & 1L << signature) != 0)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of the given tiles which fit on at least one insertion position, in some
+     * rotation.
+     *
+     * @param tiles the given tiles
+     * @return the number of the given tiles which fit on at least one insertion position
+     */
+    public int placeableCount(Collection<Tile> tiles) {
+        int count = 0;
+        for (Tile tile : tiles)
+            if (canPlaceAnywhere(tile)) count += 1;
+        return count;
+    }
+
+    private long[] placeableSignatures() {
+        long[] signatures = placeableSignatures;
+        if (signatures == null) {
+            // computing the same set in several threads is harmless
+            long[] constraintSignatures = fringe.signatures();
+            signatures = new long[SIGNATURE_COUNT / Long.SIZE];
+            for (int constraint = 0; constraint < SIGNATURE_COUNT; constraint += 1) {
+                if ((constraintSignatures[constraint / Long.SIZE] & 1L << constraint) == 0)
+                    continue;
+                for (int signature = 0; signature < SIGNATURE_COUNT; signature += 1)
+                    if (fits(signature, constraint))
+                        signatures[signature / Long.SIZE] |= 1L << signature;
+            }
+            placeableSignatures = signatures;
+        }
+        return signatures;
+    }
+
+    /**
+     * Returns the set of insertion positions on which the given tile fits, in some rotation.
+     *
+     * @param tile the given tile
+     * @return the set of insertion positions on which the given tile fits, in some rotation
+     */
+    public Set<Pos> placeablePositions(Tile tile) {
+        Set<Pos> placeablePositions = new HashSet<>();
+        for (Pos pos : fringe.positions())
+            if (rotationsAt(tile, pos) != 0)
+                placeablePositions.add(pos);
+        return placeablePositions;
+    }
+
+    /**
+     * Returns the oracle updated after the given tile has been placed: its position is no longer an
+     * insertion position, and each free neighbour is constrained by the side of the tile facing it.
+     *
+     * @param tile the newly placed tile
+     * @param isFree tells whether a position is within reach and does not contain a tile
+     * @return the updated oracle
+     */
+    public PlacementOracle withPlacedTile(PlacedTile tile, Predicate<Pos> isFree) {
+        FringeTree myFringe = fringe.without(tile.pos());
+        int signature = tile.tile().sideKinds(tile.rotation());
+        for (Direction direction : Direction.ALL) {
+            Pos neighbor = tile.pos().neighbor(direction);
+            if (isFree.test(neighbor)) {
+                int kind = signature >>> KIND_BITS * direction.ordinal() & 0b11;
+                int constraint = kind << KIND_BITS * direction.opposite().ordinal();
+                myFringe = myFringe.with(neighbor, myFringe.constraintAt(neighbor) | constraint);
+            }
+        }
+
+        PlacementOracle oracle = new PlacementOracle(myFringe);
+        if (Arrays.equals(myFringe.signatures(), fringe.signatures()))
+            oracle.placeableSignatures = placeableSignatures;
+        return oracle;
+    }
+}
@@ -0,0 +1,312 @@
+package ch.epfl.chacun;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Represents an event reported on the message board — most of them being the scoring of an area —
+ * with all the data needed to describe it, its text being only produced when asked for.
+ *
+ * @author Sam Lee (375535)
+ */
+public sealed interface ScoringEvent extends Serializable {
+    /**
+     * Returns the number of points won by the scorers.
+     *
+     * @return the number of points won by the scorers
+     */
+    default int points() {
+        return 0;
+    }
+
+    /**
+     * Returns the set of players who won the points, which can be empty.
+     *
+     * @return the set of players who won the points
+     */
+    default Set<PlayerColor> scorers() {
+        return Set.of();
+    }
+
+    /**
+     * Returns the set of identifiers of the tiles concerned, which can be empty.
+     *
+     * @return the set of identifiers of the tiles concerned
+     */
+    Set<Integer> tileIds();
+
+    /**
+     * Returns the text describing the event, produced by the given text maker.
+     *
+     * @param textMaker the given text maker
+     * @return the text describing the event
+     */
+    String text(TextMaker textMaker);
+
+    private static Map<Animal.Kind, Integer> copyOf(Map<Animal.Kind, Integer> animals) {
+        // unlike Map.copyOf, a copy of a hash map keeps its iteration order, hence the texts
+        return Collections.unmodifiableMap(new HashMap<>(animals));
+    }
+
+    /**
+     * Represents the closure of an occupied forest.
+     *
+     * @param scorers the majority occupants of the forest
+     * @param points the number of points won
+     * @param mushroomGroupCount the number of mushroom groups of the forest
+     * @param tileCount the number of tiles of the forest
+     * @param tileIds the identifiers of the tiles of the forest
+     */
+    record ForestScored(Set<PlayerColor> scorers,
+                        int points,
+                        int mushroomGroupCount,
+                        int tileCount,
+                        Set<Integer> tileIds) implements ScoringEvent {
+        /**
+         * Constructs the event, copying the given sets.
+         */
+        public ForestScored {
+            scorers = Set.copyOf(scorers);
+            tileIds = Set.copyOf(tileIds);
+        }
+
+        @Override
+        public String text(TextMaker textMaker) {
+            return textMaker.playersScoredForest(scorers, points, mushroomGroupCount, tileCount);
+        }
+    }
+
+    /**
+     * Represents the closure of a forest containing a menhir, which grants a second turn.
+     *
+     * @param player the player who closed the forest
+     * @param tileIds the identifiers of the tiles of the forest
+     */
+    record ForestWithMenhirClosed(PlayerColor player, Set<Integer> tileIds) implements ScoringEvent {
+        /**
+         * Constructs the event, copying the given set.
+         */
+        public ForestWithMenhirClosed {
+            tileIds = Set.copyOf(tileIds);
+        }
+
+        @Override
+        public String text(TextMaker textMaker) {
+            return textMaker.playerClosedForestWithMenhir(player);
+        }
+    }
+
+    /**
+     * Represents the closure of an occupied river.
+     *
+     * @param scorers the majority occupants of the river
+     * @param points the number of points won
+     * @param fishCount the number of fish of the river
+     * @param tileCount the number of tiles of the river
+     * @param tileIds the identifiers of the tiles of the river
+     */
+    record RiverScored(Set<PlayerColor> scorers,
+                       int points,
+                       int fishCount,
+                       int tileCount,
+                       Set<Integer> tileIds) implements ScoringEvent {
+        /**
+         * Constructs the event, copying the given sets.
+         */
+        public RiverScored {
+            scorers = Set.copyOf(scorers);
+            tileIds = Set.copyOf(tileIds);
+        }
+
+        @Override
+        public String text(TextMaker textMaker) {
+            return textMaker.playersScoredRiver(scorers, points, fishCount, tileCount);
+        }
+    }
+
+    /**
+     * Represents the placement of the hunting trap.
+     *
+     * @param scorer the player who placed the hunting trap
+     * @param points the number of points won
+     * @param animals the number of animals of each kind of the adjacent meadow
+     * @param tileIds the identifiers of the tiles of the adjacent meadow
+     */
+    record HuntingTrapScored(PlayerColor scorer,
+                             int points,
+                             Map<Animal.Kind, Integer> animals,
+                             Set<Integer> tileIds) implements ScoringEvent {
+        /**
+         * Constructs the event, copying the given map and set.
+         */
+        public HuntingTrapScored {
+            animals = copyOf(animals);
+            tileIds = Set.copyOf(tileIds);
+        }
+
+        @Override
+        public Set<PlayerColor> scorers() {
+            return Set.of(scorer);
+        }
+
+        @Override
+        public String text(TextMaker textMaker) {
+            return textMaker.playerScoredHuntingTrap(scorer, points, animals);
+        }
+    }
+
+    /**
+     * Represents the placement of the logboat.
+     *
+     * @param scorer the player who placed the logboat
+     * @param points the number of points won
+     * @param lakeCount the number of lakes of the river system
+     * @param tileIds the identifiers of the tiles of the river system
+     */
+    record LogboatScored(PlayerColor scorer, int points, int lakeCount, Set<Integer> tileIds)
+            implements ScoringEvent {
+        /**
+         * Constructs the event, copying the given set.
+         */
+        public LogboatScored {
+            tileIds = Set.copyOf(tileIds);
+        }
+
+        @Override
+        public Set<PlayerColor> scorers() {
+            return Set.of(scorer);
+        }
+
+        @Override
+        public String text(TextMaker textMaker) {
+            return textMaker.playerScoredLogboat(scorer, points, lakeCount);
+        }
+    }
+
+    /**
+     * Represents the final scoring of an occupied meadow.
+     *
+     * @param scorers the majority occupants of the meadow
+     * @param points the number of points won
+     * @param animals the number of (non-cancelled) animals of each kind of the meadow
+     * @param tileIds the identifiers of the tiles of the meadow
+     */
+    record MeadowScored(Set<PlayerColor> scorers,
+                        int points,
+                        Map<Animal.Kind, Integer> animals,
+                        Set<Integer> tileIds) implements ScoringEvent {
+        /**
+         * Constructs the event, copying the given sets and map.
+         */
+        public MeadowScored {
+            scorers = Set.copyOf(scorers);
+            animals = copyOf(animals);
+            tileIds = Set.copyOf(tileIds);
+        }
+
+        @Override
+        public String text(TextMaker textMaker) {
+            return textMaker.playersScoredMeadow(scorers, points, animals);
+        }
+    }
+
+    /**
+     * Represents the final scoring of an occupied river system.
+     *
+     * @param scorers the majority occupants of the river system
+     * @param points the number of points won
+     * @param fishCount the number of fish of the river system
+     * @param tileIds the identifiers of the tiles of the river system
+     */
+    record RiverSystemScored(Set<PlayerColor> scorers, int points, int fishCount, Set<Integer> tileIds)
+            implements ScoringEvent {
+        /**
+         * Constructs the event, copying the given sets.
+         */
+        public RiverSystemScored {
+            scorers = Set.copyOf(scorers);
+            tileIds = Set.copyOf(tileIds);
+        }
+
+        @Override
+        public String text(TextMaker textMaker) {
+            return textMaker.playersScoredRiverSystem(scorers, points, fishCount);
+        }
+    }
+
+    /**
+     * Represents the final scoring of the occupied meadow containing the pit trap.
+     *
+     * @param scorers the majority occupants of the meadow
+     * @param points the number of points won
+     * @param animals the number of (non-cancelled) animals of each kind around the pit trap
+     * @param tileIds the identifiers of the tiles around the pit trap
+     */
+    record PitTrapScored(Set<PlayerColor> scorers,
+                         int points,
+                         Map<Animal.Kind, Integer> animals,
+                         Set<Integer> tileIds) implements ScoringEvent {
+        /**
+         * Constructs the event, copying the given sets and map.
+         */
+        public PitTrapScored {
+            scorers = Set.copyOf(scorers);
+            animals = copyOf(animals);
+            tileIds = Set.copyOf(tileIds);
+        }
+
+        @Override
+        public String text(TextMaker textMaker) {
+            return textMaker.playersScoredPitTrap(scorers, points, animals);
+        }
+    }
+
+    /**
+     * Represents the final scoring of the occupied river system containing the raft.
+     *
+     * @param scorers the majority occupants of the river system
+     * @param points the number of points won
+     * @param lakeCount the number of lakes of the river system
+     * @param tileIds the identifiers of the tiles of the river system
+     */
+    record RaftScored(Set<PlayerColor> scorers, int points, int lakeCount, Set<Integer> tileIds)
+            implements ScoringEvent {
+        /**
+         * Constructs the event, copying the given sets.
+         */
+        public RaftScored {
+            scorers = Set.copyOf(scorers);
+            tileIds = Set.copyOf(tileIds);
+        }
+
+        @Override
+        public String text(TextMaker textMaker) {
+            return textMaker.playersScoredRaft(scorers, points, lakeCount);
+        }
+    }
+
+    /**
+     * Represents the end of the game, which no points are won with.
+     *
+     * @param winners the winners of the game
+     * @param winningPoints the number of points of the winners
+     */
+    record GameWon(Set<PlayerColor> winners, int winningPoints) implements ScoringEvent {
+        /**
+         * Constructs the event, copying the given set.
+         */
+        public GameWon {
+            winners = Set.copyOf(winners);
+        }
+
+        @Override
+        public Set<Integer> tileIds() {
+            return Set.of();
+        }
+
+        @Override
+        public String text(TextMaker textMaker) {
+            return textMaker.playersWon(winners, winningPoints);
+        }
+    }
+}
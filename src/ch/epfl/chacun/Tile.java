@@ -1,32 +1,214 @@
 package ch.epfl.chacun;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * Represents a tile that has not yet been placed.
+ * <p>
+ * Each tile carries a precomputed table of the kinds of its sides in all rotations, which packs,
+ * for each rotation (by ordinal, eight bits per rotation), the 2-bit kind codes of the sides facing
+ * each direction once the tile is rotated (in the order N, E, S, W), so that edge compatibility
+ * checks need neither rotation arithmetic nor allocation.
  *
  * @author Sam Lee (375535)
- *
- * @param id the tile identifier
- * @param kind the type of tile
- * @param n the north side of the tile
- * @param e the east side of the tile
- * @param s the south side of the tile
- * @param w the west side of the tile
  */
-public record Tile(int id, Kind kind, TileSide n, TileSide e, TileSide s, TileSide w)
-        implements Serializable {
+public final class Tile implements Serializable {
+    private static final long serialVersionUID = 1;
+    private static final int KIND_BITS = 2;
+    private static final int SIGNATURE_BITS = Direction.COUNT * KIND_BITS;
+    private static final int SIGNATURE_MASK = (1 << SIGNATURE_BITS) - 1;
+
+    /**
+     * Number of local identifiers of zones (see Zone.localId).
+     */
+    static final int LOCAL_ID_COUNT = 10;
+
+    private final int id;
+    private final Kind kind;
+    private final TileSide n;
+    private final TileSide e;
+    private final TileSide s;
+    private final TileSide w;
+
+    /**
+     * The four sides of the tile, in the order n, e, s, w.
+     */
+    private final List<TileSide> sides;
+
+    /**
+     * Side kind codes of the tile, by rotation and direction.
+     */
+    private final int sideKinds;
+
+    /**
+     * Border zones of the tile, and all its zones, which are asked for each time the tile is
+     * placed or occupied.
+     */
+    private final Set<Zone> sideZones;
+    private final Set<Zone> zones;
+
+    /**
+     * Zones of the tile indexed by their local identifier, null where there is none.
+     */
+    private final Zone[] zonesByLocalId;
+
+    /**
+     * Constructs a tile with the given identifier, kind and sides.
+     *
+     * @param id the tile identifier
+     * @param kind the type of tile
+     * @param n the north side of the tile
+     * @param e the east side of the tile
+     * @param s the south side of the tile
+     * @param w the west side of the tile
+     */
+    public Tile(int id, Kind kind, TileSide n, TileSide e, TileSide s, TileSide w) {
+        this.id = id;
+        this.kind = kind;
+        this.n = n;
+        this.e = e;
+        this.s = s;
+        this.w = w;
+        this.sides = List.of(n, e, s, w);
+
+        int signature = 0;
+        for (int direction = 0; direction < Direction.COUNT; direction += 1)
+            signature |= sides.get(direction).kindCode() << KIND_BITS * direction;
+
+        // rotating the tile by a quarter turn clockwise moves each side to the next direction
+        int table = 0;
+        for (int rotation = 0; rotation < Rotation.COUNT; rotation += 1) {
+            int shift = KIND_BITS * rotation;
+            int rotated = signature << shift | signature >>> SIGNATURE_BITS - shift;
+            table |= (rotated & SIGNATURE_MASK) << SIGNATURE_BITS * rotation;
+        }
+        this.sideKinds = table;
+
+        Set<Zone> mySideZones = sides.stream()
+                .flatMap(side -> side.zones().stream())
+                .collect(Collectors.toSet());
+        Set<Zone> myZones = new HashSet<>(mySideZones);
+        for (Zone zone : mySideZones)
+            if (zone instanceof Zone.River river && river.hasLake()) myZones.add(river.lake());
+        this.sideZones = Collections.unmodifiableSet(mySideZones);
+        this.zones = Collections.unmodifiableSet(myZones);
+        this.zonesByLocalId = new Zone[LOCAL_ID_COUNT];
+        for (Zone zone : myZones)
+            zonesByLocalId[zone.localId()] = zone;
+    }
+
+    /**
+     * Returns the tile identifier.
+     *
+     * @return the tile identifier
+     */
+    public int id() {
+        return id;
+    }
+
+    /**
+     * Returns the type of tile.
+     *
+     * @return the type of tile
+     */
+    public Kind kind() {
+        return kind;
+    }
+
+    /**
+     * Returns the north side of the tile.
+     *
+     * @return the north side of the tile
+     */
+    public TileSide n() {
+        return n;
+    }
+
+    /**
+     * Returns the east side of the tile.
+     *
+     * @return the east side of the tile
+     */
+    public TileSide e() {
+        return e;
+    }
+
+    /**
+     * Returns the south side of the tile.
+     *
+     * @return the south side of the tile
+     */
+    public TileSide s() {
+        return s;
+    }
+
+    /**
+     * Returns the west side of the tile.
+     *
+     * @return the west side of the tile
+     */
+    public TileSide w() {
+        return w;
+    }
+
     /**
      * Returns the list of the four sides of the tile, in the order n, e, s, w.
      *
      * @return the list of the four sides of the tile, in the order n, e, s, w
      */
     public List<TileSide> sides() {
-        return List.of(n, e, s, w);
+        return sides;
+    }
+
+    /**
+     * Returns the side of the tile in the given direction, the tile not being rotated.
+     *
+     * @param direction the given direction
+     * @return the side of the tile in the given direction
+     */
+    public TileSide side(Direction direction) {
+        return sides.get(direction.ordinal());
+    }
+
+    /**
+     * Returns the side of the tile facing the given direction once it is rotated by the given
+     * rotation.
+     *
+     * @param rotation the given rotation
+     * @param direction the given direction
+     * @return the side of the tile facing the given direction once it is rotated
+     */
+    public TileSide side(Rotation rotation, Direction direction) {
+        return sides.get(direction.ordinal() - rotation.quarterTurnsCW() & Direction.COUNT - 1);
+    }
+
+    /**
+     * Returns the kind codes of the sides of the tile once rotated by the given rotation, two bits
+     * per direction in the order N, E, S, W (see {@link TileSide#kindCode()}).
+     *
+     * @param rotation the given rotation
+     * @return the kind codes of the sides of the tile once rotated by the given rotation
+     */
+    public int sideKinds(Rotation rotation) {
+        return sideKinds >>> SIGNATURE_BITS * rotation.ordinal() & SIGNATURE_MASK;
+    }
+
+    /**
+     * Returns the kind code of the side of the tile facing the given direction once it is rotated
+     * by the given rotation.
+     *
+     * @param rotation the given rotation
+     * @param direction the given direction
+     * @return the kind code of the side facing the given direction once the tile is rotated
+     */
+    public int sideKind(Rotation rotation, Direction direction) {
+        return sideKinds(rotation) >>> KIND_BITS * direction.ordinal() & (1 << KIND_BITS) - 1;
     }
 
     /**
@@ -35,9 +217,7 @@ public record Tile(int id, Kind kind, TileSide n, TileSide e, TileSide s, TileSi
      * @return the set of border zones of the tile (except lakes)
      */
     public Set<Zone> sideZones() {
-        return sides().stream()
-                .flatMap(side -> side.zones().stream())
-                .collect(Collectors.toSet());
+        return sideZones;
     }
 
     /**
@@ -46,15 +226,35 @@ public record Tile(int id, Kind kind, TileSide n, TileSide e, TileSide s, TileSi
      * @return the set of all zones of the tile (including lakes)
      */
     public Set<Zone> zones() {
-        Set<Zone> zones = new HashSet<>(sideZones());
+        return zones;
+    }
 
-        Set<Zone> lakes = zones.stream()
-                .filter(zone -> zone instanceof Zone.River r1 && r1.hasLake())
-                .map(zone -> ((Zone.River) zone).lake())
-                .collect(Collectors.toSet());
-        zones.addAll(lakes);
+    /**
+     * Returns the zone of the tile with the given local identifier, or null if there is none.
+     *
+     * @param localId the given local identifier, between 0 (included) and LOCAL_ID_COUNT
+     * @return the zone of the tile with the given local identifier, or null if there is none
+     */
+    Zone zoneWithLocalId(int localId) {
+        return zonesByLocalId[localId];
+    }
 
-        return zones;
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof Tile tile
+                && id == tile.id
+                && kind == tile.kind
+                && sides.equals(tile.sides);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, kind, n, e, s, w);
+    }
+
+    @Override
+    public String toString() {
+        return STR."Tile[id=\{id}, kind=\{kind}, n=\{n}, e=\{e}, s=\{s}, w=\{w}]";
     }
 
     /**
@@ -1,12 +1,17 @@
 package ch.epfl.chacun;
+import java.io.Serial;
 import java.io.Serializable;
-import java.util.List;
+import java.util.*;
 import java.util.function.Predicate;
+import java.util.random.RandomGenerator;
 
 import static ch.epfl.chacun.Preconditions.checkArgument;
 
 /**
  * Represents the piles of the three types of tile that exist — start, normal, menhir.
+ * <p>
+ * Each pile is an immutable view of a range of an array shared with the piles it derives from, so
+ * that drawing tiles only moves the start of the range, in constant time.
  *
  * @author Sam Lee (375535)
  *
@@ -17,12 +22,41 @@ import static ch.epfl.chacun.Preconditions.checkArgument;
 public record TileDecks(List<Tile> startTiles, List<Tile> normalTiles, List<Tile> menhirTiles)
         implements Serializable {
     /**
-     * A compact constructor of TileDecks.
+     * A compact constructor of TileDecks, which copies the given lists unless they already are
+     * piles.
      */
     public TileDecks {
-        startTiles = List.copyOf(startTiles);
-        normalTiles = List.copyOf(normalTiles);
-        menhirTiles = List.copyOf(menhirTiles);
+        startTiles = Deck.of(startTiles);
+        normalTiles = Deck.of(normalTiles);
+        menhirTiles = Deck.of(menhirTiles);
+    }
+
+    /**
+     * Returns the decks made of the given tiles, shuffled with the given generator and grouped by
+     * kind.
+     *
+     * @param tiles the given tiles
+     * @param generator the generator used to shuffle the tiles
+     * @return the decks made of the given tiles, shuffled
+     */
+    public static TileDecks shuffled(List<Tile> tiles, RandomGenerator generator) {
+        List<Tile> shuffledTiles = new ArrayList<>(tiles);
+        Collections.shuffle(shuffledTiles, generator);
+
+        // the three piles share a single array, in which the tiles are grouped by kind
+        Tile[] array = new Tile[shuffledTiles.size()];
+        int[] ends = new int[Tile.Kind.values().length + 1];
+        for (Tile tile : shuffledTiles)
+            ends[tile.kind().ordinal() + 1] += 1;
+        for (int i = 1; i < ends.length; i += 1)
+            ends[i] += ends[i - 1];
+        int[] next = Arrays.copyOf(ends, ends.length - 1);
+        for (Tile tile : shuffledTiles)
+            array[next[tile.kind().ordinal()]++] = tile;
+
+        return new TileDecks(new Deck(array, ends[0], ends[1]),
+                new Deck(array, ends[1], ends[2]),
+                new Deck(array, ends[2], ends[3]));
     }
 
     /**
@@ -84,10 +118,76 @@ public record TileDecks(List<Tile> startTiles, List<Tile> normalTiles, List<Tile
      * @return the updated tile decks
      */
     public TileDecks withTopTileDrawnUntil(Tile.Kind kind, Predicate<Tile> predicate) {
-        TileDecks myDecks = new TileDecks(startTiles, normalTiles, menhirTiles);
-        while (myDecks.deckSize(kind) != 0 && !predicate.test(myDecks.topTile(kind)))
-            myDecks = myDecks.withTopTileDrawn(kind);
+        List<Tile> deck = switch (kind) {
+            case START -> startTiles;
+            case NORMAL -> normalTiles;
+            case MENHIR -> menhirTiles;
+        };
+        int drawnCount = 0;
+        while (drawnCount < deck.size() && !predicate.test(deck.get(drawnCount)))
+            drawnCount += 1;
+        if (drawnCount == 0)
+            return this;
+
+        List<Tile> myDeck = deck.subList(drawnCount, deck.size());
+        return switch (kind) {
+            case START -> new TileDecks(myDeck, normalTiles, menhirTiles);
+            case NORMAL -> new TileDecks(startTiles, myDeck, menhirTiles);
+            case MENHIR -> new TileDecks(startTiles, normalTiles, myDeck);
+        };
+    }
+
+    /**
+     * Immutable pile of tiles, made of the tiles of a shared array between two indices, whose
+     * sub-lists are piles sharing the same array.
+     */
+    private static final class Deck extends AbstractList<Tile> implements RandomAccess, Serializable {
+        private static final long serialVersionUID = 1;
+        private static final Deck EMPTY = new Deck(new Tile[0], 0, 0);
+
+        private final Tile[] array;
+        private final int from;
+        private final int to;
+
+        private Deck(Tile[] array, int from, int to) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+        }
+
+        private static Deck of(List<Tile> tiles) {
+            if (tiles instanceof Deck deck)
+                return deck;
+            if (tiles.isEmpty())
+                return EMPTY;
+
+            Tile[] array = tiles.toArray(new Tile[0]);
+            for (Tile tile : array)
+                Objects.requireNonNull(tile);
+            return new Deck(array, 0, array.length);
+        }
+
+        @Override
+        public Tile get(int index) {
+            Objects.checkIndex(index, size());
+            return array[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public Deck subList(int fromIndex, int toIndex) {
+            Objects.checkFromToIndex(fromIndex, toIndex, size());
+            return new Deck(array, from + fromIndex, from + toIndex);
+        }
 
-        return myDecks;
+        @Serial
+        private Object writeReplace() {
+            // the tiles already drawn are not serialized
+            return List.copyOf(this);
+        }
     }
 }
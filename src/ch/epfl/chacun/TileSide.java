@@ -24,6 +24,14 @@ public sealed interface TileSide {
      */
     boolean isSameKindAs(TileSide that);
 
+    /**
+     * Returns the 2-bit code of the kind of the edge: 1 for a forest, 2 for a meadow and 3 for a
+     * river (never 0, which stands for a missing edge in the signatures built from these codes).
+     *
+     * @return the 2-bit code of the kind of the edge
+     */
+    int kindCode();
+
     /**
      * Represents a forest tile edge.
      *
@@ -40,6 +48,11 @@ public sealed interface TileSide {
         public boolean isSameKindAs(TileSide that) {
             return that instanceof Forest;
         }
+
+        @Override
+        public int kindCode() {
+            return 1;
+        }
     }
 
     /**
@@ -58,6 +71,11 @@ public sealed interface TileSide {
         public boolean isSameKindAs(TileSide that) {
             return that instanceof Meadow;
         }
+
+        @Override
+        public int kindCode() {
+            return 2;
+        }
     }
 
     /**
@@ -79,5 +97,10 @@ public sealed interface TileSide {
         public boolean isSameKindAs(TileSide that) {
             return that instanceof River;
         }
+
+        @Override
+        public int kindCode() {
+            return 3;
+        }
     }
 }
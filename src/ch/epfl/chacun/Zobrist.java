@@ -0,0 +1,109 @@
+package ch.epfl.chacun;
+
+/**
+ * Zobrist keys of the elements of a game state, whose exclusive or gives a 64-bit key of the
+ * state which can be updated in constant time when an element is added or removed.
+ * <p>
+ * Instead of being drawn at random and stored in tables, the key of an element is obtained by
+ * mixing a packed description of it, tagged with its kind, with the finalizer of SplitMix64
+ * (the one CellTrie mixes its keys with):
+ * being a bijection, distinct descriptions never get the same key.
+ *
+ * @author Sam Lee (375535)
+ */
+final class Zobrist {
+    private Zobrist() {}
+
+    private static final long TILE = 1L << 60;
+    private static final long OCCUPANT = 2L << 60;
+    private static final long ANIMAL = 3L << 60;
+    private static final long TURN = 4L << 60;
+    private static final long DECKS = 5L << 60;
+    private static final long PLAYER = 6L << 60;
+    private static final long POINTS = 7L << 60;
+    private static final int COORDINATE_MASK = (1 << 20) - 1;
+
+    /**
+     * Returns the key of the given placed tile, regardless of its occupant.
+     *
+     * @param tile the given placed tile
+     * @return the key of the given placed tile
+     */
+    static long tile(PlacedTile tile) {
+        int placer = tile.placer() == null ? 0 : tile.placer().ordinal() + 1;
+        return CellTrie.mix(TILE
+                | (long) tile.id() << 48
+                | (long) tile.rotation().ordinal() << 46
+                | (long) placer << 40
+                | (long) (tile.pos().x() & COORDINATE_MASK) << 20
+                | tile.pos().y() & COORDINATE_MASK);
+    }
+
+    /**
+     * Returns the key of the given occupant.
+     *
+     * @param occupant the given occupant
+     * @return the key of the given occupant
+     */
+    static long occupant(Occupant occupant) {
+        return CellTrie.mix(OCCUPANT | (long) occupant.kind().ordinal() << 32 | occupant.zoneId());
+    }
+
+    /**
+     * Returns the key of the given cancelled animal.
+     *
+     * @param animal the given animal
+     * @return the key of the given cancelled animal
+     */
+    static long cancelledAnimal(Animal animal) {
+        return CellTrie.mix(ANIMAL | animal.id());
+    }
+
+    /**
+     * Returns the key of the given next action and tile to place.
+     *
+     * @param nextAction the given next action
+     * @param tileToPlace the given tile to place, possibly null
+     * @return the key of the given next action and tile to place
+     */
+    static long turn(GameState.Action nextAction, Tile tileToPlace) {
+        int tile = tileToPlace == null ? 0 : tileToPlace.id() + 1;
+        return CellTrie.mix(TURN | (long) nextAction.ordinal() << 32 | tile);
+    }
+
+    /**
+     * Returns the key of the given tile decks, which only depends on their sizes (the position
+     * reached in each of them).
+     *
+     * @param tileDecks the given tile decks
+     * @return the key of the given tile decks
+     */
+    static long decks(TileDecks tileDecks) {
+        return CellTrie.mix(DECKS
+                | (long) tileDecks.deckSize(Tile.Kind.START) << 40
+                | (long) tileDecks.deckSize(Tile.Kind.NORMAL) << 20
+                | tileDecks.deckSize(Tile.Kind.MENHIR));
+    }
+
+    /**
+     * Returns the key of the given player being at the given index of the list of players.
+     *
+     * @param player the given player
+     * @param index the given index
+     * @return the key of the given player being at the given index
+     */
+    static long player(PlayerColor player, int index) {
+        return CellTrie.mix(PLAYER | (long) index << 8 | player.ordinal());
+    }
+
+    /**
+     * Returns the key of the given player having the given number of points.
+     *
+     * @param player the given player
+     * @param points the given number of points
+     * @return the key of the given player having the given number of points
+     */
+    static long points(PlayerColor player, int points) {
+        return CellTrie.mix(POINTS | (long) player.ordinal() << 32 | points & 0xFFFF_FFFFL);
+    }
+}
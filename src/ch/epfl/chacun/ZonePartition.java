@@ -7,18 +7,65 @@ import static ch.epfl.chacun.Preconditions.checkArgument;
 
 /**
  * Represents a zone partition of a given type.
+ * <p>
+ * The partition is backed by an array giving the representative zone identifier of each zone
+ * identifier, so that the area containing a zone is found in constant time. The array is never
+ * modified once built: builders work on their own copy of it.
  *
  * @author Sam Lee (375535)
  *
- * @param areas the set of areas forming the partition
  * @param <Z> the type parameter representing the zone type
  */
-public record ZonePartition<Z extends Zone>(Set<Area<Z>> areas) implements Serializable {
+public final class ZonePartition<Z extends Zone> implements Serializable {
+    private static final long serialVersionUID = 1;
+    private static final int NO_ZONE = -1;
+
+    /**
+     * Representative zone identifier by zone identifier, NO_ZONE for the zones not in the partition.
+     */
+    private final int[] roots;
+
+    /**
+     * Areas by identifier of their representative zone, null for the other identifiers.
+     */
+    private final List<Area<Z>> areasByRoot;
+
+    /**
+     * The set of areas forming the partition, computed when first needed.
+     */
+    private transient Set<Area<Z>> areas;
+
+    private ZonePartition(int[] roots, List<Area<Z>> areasByRoot) {
+        this.roots = roots;
+        this.areasByRoot = areasByRoot;
+    }
+
     /**
-     * Compact constructor of ZonePartition.
+     * Constructs a partition made of the given set of areas.
+     *
+     * @param areas the set of areas forming the partition
      */
-    public ZonePartition {
-        areas = Set.copyOf(areas);
+    public ZonePartition(Set<Area<Z>> areas) {
+        int maxId = NO_ZONE;
+        for (Area<Z> area : areas)
+            for (Z zone : area.zoneList())
+                maxId = Math.max(maxId, zone.id());
+
+        int[] myRoots = new int[maxId + 1];
+        Arrays.fill(myRoots, NO_ZONE);
+        List<Area<Z>> myAreasByRoot = new ArrayList<>(Collections.nCopies(maxId + 1, null));
+        for (Area<Z> area : areas) {
+            int root = NO_ZONE;
+            for (Z zone : area.zoneList()) {
+                if (root == NO_ZONE) root = zone.id();
+                myRoots[zone.id()] = root;
+            }
+            if (root != NO_ZONE) myAreasByRoot.set(root, area);
+        }
+
+        this.roots = myRoots;
+        this.areasByRoot = myAreasByRoot;
+        this.areas = Set.copyOf(areas);
     }
 
     /**
@@ -29,6 +76,21 @@ public record ZonePartition<Z extends Zone>(Set<Area<Z>> areas) implements Seria
         this(Set.of());
     }
 
+    /**
+     * Returns the set of areas forming the partition.
+     *
+     * @return the set of areas forming the partition
+     */
+    public Set<Area<Z>> areas() {
+        if (areas == null) {
+            List<Area<Z>> myAreas = new ArrayList<>();
+            for (Area<Z> area : areasByRoot)
+                if (area != null) myAreas.add(area);
+            areas = Set.copyOf(myAreas);
+        }
+        return areas;
+    }
+
     /**
      * Returns the area containing the given zone.
      *
@@ -37,24 +99,49 @@ public record ZonePartition<Z extends Zone>(Set<Area<Z>> areas) implements Seria
      * @throws IllegalArgumentException if the zone does not belong to any area of the partition
      */
     public Area<Z> areaContaining(Z zone) {
-        return areaContaining(zone, areas);
+        int id = zone.id();
+        checkArgument(id >= 0 && id < roots.length && roots[id] != NO_ZONE);
+        return areasByRoot.get(roots[id]);
     }
 
-    private static <Z extends Zone> Area<Z> areaContaining(Z zone, Set<Area<Z>> areas) {
-        for (Area<Z> area : areas)
-            if (area.zones().contains(zone))
-                return area;
+    @Override
+    public boolean equals(Object object) {
+        return object instanceof ZonePartition<?> partition && areas().equals(partition.areas());
+    }
 
-        throw new IllegalArgumentException();
+    @Override
+    public int hashCode() {
+        return areas().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return STR."ZonePartition[areas=\{areas()}]";
     }
 
     /**
      * A builder class for constructing ZonePartition instances.
+     * <p>
+     * The builder shares the representatives and the areas of the partition it starts from, and
+     * copies them on their first modification (the representatives are only copied when zones are
+     * added or connected). When connecting two areas, it gives the zones of the smaller one the
+     * representative of the larger one, so that its copy stays up to date and building only hands
+     * the copies over to the new partition, which the builder then starts from.
      *
      * @param <Z> the type parameter representing the type of zones
      */
     public static final class Builder<Z extends Zone> {
-        private final HashSet<Area<Z>> areas;
+        private ZonePartition<Z> initial;
+
+        /**
+         * Copy of the representatives of the initial partition, null until it is modified.
+         */
+        private int[] roots;
+
+        /**
+         * Copy of the areas of the initial partition, null until they are modified.
+         */
+        private List<Area<Z>> areasByRoot;
 
         /**
          * Constructs a builder with the areas from the given partition.
@@ -62,7 +149,18 @@ public record ZonePartition<Z extends Zone>(Set<Area<Z>> areas) implements Seria
          * @param partition the existing zone partition
          */
         public Builder(ZonePartition<Z> partition) {
-            areas = new HashSet<>(partition.areas);
+            initial = partition;
+        }
+
+        private List<Area<Z>> writableAreas() {
+            if (areasByRoot == null) areasByRoot = new ArrayList<>(initial.areasByRoot);
+            return areasByRoot;
+        }
+
+        private int[] writableRoots() {
+            writableAreas();
+            if (roots == null) roots = initial.roots.clone();
+            return roots;
         }
 
         /**
@@ -73,8 +171,17 @@ public record ZonePartition<Z extends Zone>(Set<Area<Z>> areas) implements Seria
          * @param openConnections the number of open connections for the area
          */
         public void addSingleton(Z zone, int openConnections) {
-            Area<Z> newArea = new Area<>(Set.of(zone), List.of(), openConnections);
-            areas.add(newArea);
+            int id = zone.id();
+            int[] myRoots = writableRoots();
+            if (id >= myRoots.length) {
+                int length = myRoots.length;
+                roots = myRoots = Arrays.copyOf(myRoots, Math.max(id + 1, 2 * length));
+                Arrays.fill(myRoots, length, myRoots.length, NO_ZONE);
+                areasByRoot.addAll(Collections.nCopies(myRoots.length - length, null));
+            }
+
+            myRoots[id] = id;
+            areasByRoot.set(id, new Area<>(Set.of(zone), List.of(), openConnections));
         }
 
         /**
@@ -85,9 +192,9 @@ public record ZonePartition<Z extends Zone>(Set<Area<Z>> areas) implements Seria
          * @throws IllegalArgumentException if the area is not found or if it is already occupied
          */
         public void addInitialOccupant(Z zone, PlayerColor color) {
-            Area<Z> area = ZonePartition.areaContaining(zone, areas);
-            areas.add(area.withInitialOccupant(color));
-            areas.remove(area);
+            int root = root(zone);
+            Area<Z> area = area(root).withInitialOccupant(color);
+            writableAreas().set(root, area);
         }
 
         /**
@@ -98,9 +205,9 @@ public record ZonePartition<Z extends Zone>(Set<Area<Z>> areas) implements Seria
          * @throws IllegalArgumentException if the area is not found or if it is not occupied by the given color
          */
         public void removeOccupant(Z zone, PlayerColor color) {
-            Area<Z> area = ZonePartition.areaContaining(zone, areas);
-            areas.add(area.withoutOccupant(color));
-            areas.remove(area);
+            int root = root(zone);
+            Area<Z> area = area(root).withoutOccupant(color);
+            writableAreas().set(root, area);
         }
 
         /**
@@ -110,9 +217,10 @@ public record ZonePartition<Z extends Zone>(Set<Area<Z>> areas) implements Seria
          * @throws IllegalArgumentException if the area is not part of the partition
          */
         public void removeAllOccupantsOf(Area<Z> area) {
-            checkArgument(areas.contains(area));
-            areas.add(area.withoutOccupants());
-            areas.remove(area);
+            checkArgument(area.zoneCount() > 0);
+            int root = root(area.zoneList().getFirst());
+            checkArgument(area(root).equals(area));
+            writableAreas().set(root, area.withoutOccupants());
         }
 
         /**
@@ -124,12 +232,27 @@ public record ZonePartition<Z extends Zone>(Set<Area<Z>> areas) implements Seria
          * partition
          */
         public void union(Z zone1, Z zone2) {
-            Area<Z> area1 = ZonePartition.areaContaining(zone1, areas);
-            Area<Z> area2 = ZonePartition.areaContaining(zone2, areas);
+            int root1 = root(zone1);
+            int root2 = root(zone2);
+            Area<Z> area1 = area(root1);
+            Area<Z> area2 = area(root2);
 
-            areas.add(area1.connectTo(area2));
-            areas.remove(area1);
-            if (!area1.equals(area2)) areas.remove(area2);
+            if (root1 == root2) {
+                writableAreas().set(root1, area1.connectTo(area1));
+                return;
+            }
+
+            // the zones of the smaller area take the representative of the larger one
+            if (area1.zoneCount() < area2.zoneCount()) {
+                int root = root1;
+                root1 = root2;
+                root2 = root;
+            }
+            int[] myRoots = writableRoots();
+            for (Z zone : area(root2).zoneList())
+                myRoots[zone.id()] = root1;
+            areasByRoot.set(root1, area1.connectTo(area2));
+            areasByRoot.set(root2, null);
         }
 
         /**
@@ -138,7 +261,23 @@ public record ZonePartition<Z extends Zone>(Set<Area<Z>> areas) implements Seria
          * @return the constructed zone partition
          */
         public ZonePartition<Z> build() {
-            return new ZonePartition<>(areas);
+            if (areasByRoot != null) {
+                initial = new ZonePartition<>(roots == null ? initial.roots : roots, areasByRoot);
+                roots = null;
+                areasByRoot = null;
+            }
+            return initial;
+        }
+
+        private Area<Z> area(int root) {
+            return (areasByRoot == null ? initial.areasByRoot : areasByRoot).get(root);
+        }
+
+        private int root(Z zone) {
+            int id = zone.id();
+            int[] myRoots = roots == null ? initial.roots : roots;
+            checkArgument(id >= 0 && id < myRoots.length && myRoots[id] != NO_ZONE);
+            return myRoots[id];
         }
     }
 }
@@ -31,12 +31,16 @@ public record ZonePartitions (ZonePartition<Zone.Forest> forests,
 
     /**
      * Serves as a constructor for the class ZonePartitions.
+     * <p>
+     * The builder of each partition is only created when that partition is first modified, and the
+     * partitions which were not modified are shared with the initial group.
      */
     public static final class Builder {
-        private final ZonePartition.Builder<Zone.Forest> forestBuilder;
-        private final ZonePartition.Builder<Zone.Meadow> meadowBuilder;
-        private final ZonePartition.Builder<Zone.River> riverBuilder;
-        private final ZonePartition.Builder<Zone.Water> riverSystemBuilder;
+        private final ZonePartitions initial;
+        private ZonePartition.Builder<Zone.Forest> forestBuilder;
+        private ZonePartition.Builder<Zone.Meadow> meadowBuilder;
+        private ZonePartition.Builder<Zone.River> riverBuilder;
+        private ZonePartition.Builder<Zone.Water> riverSystemBuilder;
 
         /**
          * Constructor of Builder.
@@ -46,10 +50,28 @@ public record ZonePartitions (ZonePartition<Zone.Forest> forests,
          * @param initial the given group of four partitions
          */
         public Builder(ZonePartitions initial) {
-            forestBuilder = new ZonePartition.Builder<>(initial.forests);
-            meadowBuilder = new ZonePartition.Builder<>(initial.meadows);
-            riverBuilder = new ZonePartition.Builder<>(initial.rivers);
-            riverSystemBuilder = new ZonePartition.Builder<>(initial.riverSystems);
+            this.initial = initial;
+        }
+
+        private ZonePartition.Builder<Zone.Forest> forestBuilder() {
+            if (forestBuilder == null) forestBuilder = new ZonePartition.Builder<>(initial.forests);
+            return forestBuilder;
+        }
+
+        private ZonePartition.Builder<Zone.Meadow> meadowBuilder() {
+            if (meadowBuilder == null) meadowBuilder = new ZonePartition.Builder<>(initial.meadows);
+            return meadowBuilder;
+        }
+
+        private ZonePartition.Builder<Zone.River> riverBuilder() {
+            if (riverBuilder == null) riverBuilder = new ZonePartition.Builder<>(initial.rivers);
+            return riverBuilder;
+        }
+
+        private ZonePartition.Builder<Zone.Water> riverSystemBuilder() {
+            if (riverSystemBuilder == null)
+                riverSystemBuilder = new ZonePartition.Builder<>(initial.riverSystems);
+            return riverSystemBuilder;
         }
 
         /**
@@ -77,24 +99,24 @@ public record ZonePartitions (ZonePartition<Zone.Forest> forests,
 
                 switch (zone) {
                     case Zone.Forest forest ->
-                            forestBuilder.addSingleton(forest, openConnectionCount);
+                            forestBuilder().addSingleton(forest, openConnectionCount);
                     case Zone.Meadow meadow ->
-                            meadowBuilder.addSingleton(meadow, openConnectionCount);
+                            meadowBuilder().addSingleton(meadow, openConnectionCount);
                     case Zone.River river -> {
-                        riverSystemBuilder.addSingleton(river, openConnectionCount);
-                        riverBuilder.addSingleton(river,
+                        riverSystemBuilder().addSingleton(river, openConnectionCount);
+                        riverBuilder().addSingleton(river,
                                 river.hasLake() ? openConnectionCount -1 : openConnectionCount);
                         // adjust open connection count if river is connected to a lake
                     }
                     case Zone.Lake lake ->
-                            riverSystemBuilder.addSingleton(lake, openConnectionCount);
+                            riverSystemBuilder().addSingleton(lake, openConnectionCount);
                 }
             }
 
             // go through the rivers with lake and connect them with lakes
             for (Zone zone : tile.zones())
                 if (zone instanceof Zone.River river && river.hasLake())
-                    riverSystemBuilder.union(river, river.lake());
+                    riverSystemBuilder().union(river, river.lake());
         }
 
         /**
@@ -108,16 +130,16 @@ public record ZonePartitions (ZonePartition<Zone.Forest> forests,
             switch (s1) {
                 case TileSide.Forest(Zone.Forest f1)
                         when s2 instanceof TileSide.Forest(Zone.Forest f2) ->
-                        forestBuilder.union(f1, f2);
+                        forestBuilder().union(f1, f2);
                 case TileSide.Meadow(Zone.Meadow m1)
                         when s2 instanceof TileSide.Meadow(Zone.Meadow m2) ->
-                        meadowBuilder.union(m1, m2);
+                        meadowBuilder().union(m1, m2);
                 case TileSide.River(Zone.Meadow m1, Zone.River r1, Zone.Meadow m2)
                         when s2 instanceof TileSide.River(Zone.Meadow z1, Zone.River r2, Zone.Meadow z2) -> {
-                        riverBuilder.union(r1, r2);
-                        riverSystemBuilder.union(r1, r2);
-                        meadowBuilder.union(m1, z2);
-                        meadowBuilder.union(z1, m2);
+                        riverBuilder().union(r1, r2);
+                        riverSystemBuilder().union(r1, r2);
+                        meadowBuilder().union(m1, z2);
+                        meadowBuilder().union(z1, m2);
                         }
                 default -> throw new IllegalArgumentException();
             }
@@ -136,13 +158,13 @@ public record ZonePartitions (ZonePartition<Zone.Forest> forests,
         public void addInitialOccupant(PlayerColor player, Occupant.Kind kind, Zone occupiedZone) {
             switch (occupiedZone) {
                 case Zone.Forest forest
-                        when kind == PAWN -> forestBuilder.addInitialOccupant(forest, player);
+                        when kind == PAWN -> forestBuilder().addInitialOccupant(forest, player);
                 case Zone.Meadow meadow
-                        when kind == PAWN -> meadowBuilder.addInitialOccupant(meadow, player);
+                        when kind == PAWN -> meadowBuilder().addInitialOccupant(meadow, player);
                 case Zone.River river
-                        when kind == PAWN -> riverBuilder.addInitialOccupant(river, player);
+                        when kind == PAWN -> riverBuilder().addInitialOccupant(river, player);
                 case Zone.Water water
-                        when kind == HUT -> riverSystemBuilder.addInitialOccupant(water, player);
+                        when kind == HUT -> riverSystemBuilder().addInitialOccupant(water, player);
                 default -> throw new IllegalArgumentException();
             }
         }
@@ -159,9 +181,9 @@ public record ZonePartitions (ZonePartition<Zone.Forest> forests,
          */
         public void removePawn(PlayerColor player, Zone occupiedZone) {
             switch (occupiedZone) {
-                case Zone.Forest f1 -> forestBuilder.removeOccupant(f1, player);
-                case Zone.Meadow m1 -> meadowBuilder.removeOccupant(m1, player);
-                case Zone.River r1 -> riverBuilder.removeOccupant(r1, player);
+                case Zone.Forest f1 -> forestBuilder().removeOccupant(f1, player);
+                case Zone.Meadow m1 -> meadowBuilder().removeOccupant(m1, player);
+                case Zone.River r1 -> riverBuilder().removeOccupant(r1, player);
                 default -> throw new IllegalArgumentException();
             }
         }
@@ -172,7 +194,7 @@ public record ZonePartitions (ZonePartition<Zone.Forest> forests,
          * @param forest the given forest
          */
         public void clearGatherers(Area<Zone.Forest> forest) {
-            forestBuilder.removeAllOccupantsOf(forest);
+            forestBuilder().removeAllOccupantsOf(forest);
         }
 
         /**
@@ -181,7 +203,7 @@ public record ZonePartitions (ZonePartition<Zone.Forest> forests,
          * @param river the given river
          */
         public void clearFishers(Area<Zone.River> river) {
-            riverBuilder.removeAllOccupantsOf(river);
+            riverBuilder().removeAllOccupantsOf(river);
         }
 
         /**
@@ -190,10 +212,13 @@ public record ZonePartitions (ZonePartition<Zone.Forest> forests,
          * @return the group of four partitions currently being constructed
          */
         public ZonePartitions build() {
-            return new ZonePartitions(forestBuilder.build(),
-                    meadowBuilder.build(),
-                    riverBuilder.build(),
-                    riverSystemBuilder.build());
+            if (forestBuilder == null && meadowBuilder == null && riverBuilder == null
+                    && riverSystemBuilder == null)
+                return initial;
+            return new ZonePartitions(forestBuilder == null ? initial.forests : forestBuilder.build(),
+                    meadowBuilder == null ? initial.meadows : meadowBuilder.build(),
+                    riverBuilder == null ? initial.rivers : riverBuilder.build(),
+                    riverSystemBuilder == null ? initial.riverSystems : riverSystemBuilder.build());
         }
     }
 }
\ No newline at end of file
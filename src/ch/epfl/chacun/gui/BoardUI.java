@@ -20,6 +20,7 @@ import javafx.scene.paint.Color;
 
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static ch.epfl.chacun.Preconditions.checkArgument;
 import static ch.epfl.chacun.gui.ColorMap.fillColor;
@@ -40,7 +41,8 @@ public final class BoardUI {
     /**
      * Creates the graphical interface that displays the game board.
      *
-     * @param scope the scope of the board to be created (equal to 12 in this project)
+     * @param scope the initial scope of the board to be created (equal to 12 in this project), the
+     *              grid growing afterwards to cover the extent of the board
      * @param gameStateO the game state
      * @param rotationO the rotation to apply to the tile to be placed
      * @param visibleOccupantsO all visible occupants
@@ -84,96 +86,100 @@ public final class BoardUI {
 //        stackPane.getChildren().addAll(scrollPane, animalScore);
 //        StackPane.setAlignment(animalScore, javafx.geometry.Pos.TOP_LEFT);
 
-        for (int x = -scope; x <= scope; x++)
-            for (int y = -scope; y <= scope; y++) {
-                ObjectProperty<CellData> cellData = new SimpleObjectProperty<>();
+        // cells are created on demand, as the extent of the board grows beyond the initial scope
+        Function<Pos, Node> newCell = pos -> {
+            ObjectProperty<CellData> cellData = new SimpleObjectProperty<>();
 
-                Group group = new Group();
-                gridPane.add(group, x + scope, y + scope);
+            Group group = new Group();
 
-                ImageView imageView = new ImageView();
-                imageView.setFitWidth(NORMAL_TILE_FIT_SIZE);
-                imageView.setFitHeight(NORMAL_TILE_FIT_SIZE);
-                imageView.imageProperty().bind(cellData.map(CellData::bgImage));
-                group.getChildren().add(imageView);
+            ImageView imageView = new ImageView();
+            imageView.setFitWidth(NORMAL_TILE_FIT_SIZE);
+            imageView.setFitHeight(NORMAL_TILE_FIT_SIZE);
+            imageView.imageProperty().bind(cellData.map(CellData::bgImage));
+            group.getChildren().add(imageView);
 
-                Pos pos = new Pos(x, y);
-                ObservableValue<PlacedTile> tileO = boardO.map(b -> b.tileAt(pos));
+            ObservableValue<PlacedTile> tileO = boardO.map(b -> b.tileAt(pos));
 
-                // only cells containing a tile have occupants and cancellation tokens
-                tileO.addListener((_, oV, nV) -> {
-                    if (oV == null) {
-                        group.getChildren().addAll(markers(nV, boardO));
-                        group.getChildren().addAll(occupants(nV, tileO, visibleOccupantsO, occupantHandler));
-                    }
-                });
-
-                BooleanBinding onFringe = Bindings.createBooleanBinding(
-                        () -> tileToPlaceO.getValue() != null && fringeO.getValue().contains(pos),
-                        tileToPlaceO,
-                        fringeO);
-
-                cellData.bind(Bindings.createObjectBinding(() -> {
-                            PlacedTile tile = tileO.getValue();
-
-                            if (tile != null)
-                                return tileIdsO.getValue().isEmpty() || tileIdsO.getValue().contains(tile.id())
-                                        ? new CellData(tile, Color.TRANSPARENT)
-                                        : new CellData(tile, Color.BLACK);
-
-                            if (onFringe.getValue()
-                                    && currentPlayerO.getValue() != null) {
-                                PlacedTile tileToPlace = new PlacedTile(tileToPlaceO.getValue(),
-                                        currentPlayerO.getValue(),
-                                        rotationO.getValue(),
-                                        pos);
-
-                                if (group.isHover()) {
-                                    Color color = boardO.getValue().canAddTile(tileToPlace)
-                                            ? Color.TRANSPARENT
-                                            : Color.WHITE;
-                                    return new CellData(tileToPlace, color);
-                                }
-                                return new CellData(fillColor(currentPlayerO.getValue()));
-                            }
+            // only cells containing a tile have occupants and cancellation tokens
+            tileO.addListener((_, oV, nV) -> {
+                if (oV == null) {
+                    group.getChildren().addAll(markers(nV, boardO));
+                    group.getChildren().addAll(occupants(nV, tileO, visibleOccupantsO, occupantHandler));
+                }
+            });
 
-                            return new CellData(Color.TRANSPARENT);
-                        },
-                        tileO,
-                        tileIdsO,
-                        group.hoverProperty(),
-                        currentPlayerO,
-                        rotationO,
-                        tileToPlaceO,
-                        onFringe));
-
-                group.setOnMouseClicked(e -> {
-                    if (fringeO.getValue().contains(pos)) {
-                        switch (e.getButton()) {
-                            case PRIMARY -> {
-                                if (e.isStillSincePress()) placeHandler.accept(pos);
-                            }
-                            case SECONDARY -> {
-                                if (e.isStillSincePress())
-                                    rotateHandler.accept(e.isAltDown() ? Rotation.RIGHT : Rotation.LEFT);
+            BooleanBinding onFringe = Bindings.createBooleanBinding(
+                    () -> tileToPlaceO.getValue() != null && fringeO.getValue().contains(pos),
+                    tileToPlaceO,
+                    fringeO);
+
+            cellData.bind(Bindings.createObjectBinding(() -> {
+                        PlacedTile tile = tileO.getValue();
+
+                        if (tile != null)
+                            return tileIdsO.getValue().isEmpty() || tileIdsO.getValue().contains(tile.id())
+                                    ? new CellData(tile, Color.TRANSPARENT)
+                                    : new CellData(tile, Color.BLACK);
+
+                        if (onFringe.getValue()
+                                && currentPlayerO.getValue() != null) {
+                            PlacedTile tileToPlace = new PlacedTile(tileToPlaceO.getValue(),
+                                    currentPlayerO.getValue(),
+                                    rotationO.getValue(),
+                                    pos);
+
+                            if (group.isHover()) {
+                                Color color = boardO.getValue().canAddTile(tileToPlace)
+                                        ? Color.TRANSPARENT
+                                        : Color.WHITE;
+                                return new CellData(tileToPlace, color);
                             }
+                            return new CellData(fillColor(currentPlayerO.getValue()));
+                        }
+
+                        return new CellData(Color.TRANSPARENT);
+                    },
+                    tileO,
+                    tileIdsO,
+                    group.hoverProperty(),
+                    currentPlayerO,
+                    rotationO,
+                    tileToPlaceO,
+                    onFringe));
+
+            group.setOnMouseClicked(e -> {
+                if (fringeO.getValue().contains(pos)) {
+                    switch (e.getButton()) {
+                        case PRIMARY -> {
+                            if (e.isStillSincePress()) placeHandler.accept(pos);
+                        }
+                        case SECONDARY -> {
+                            if (e.isStillSincePress())
+                                rotateHandler.accept(e.isAltDown() ? Rotation.RIGHT : Rotation.LEFT);
                         }
                     }
-                });
+                }
+            });
+
+            group.rotateProperty().bind(cellData.map(CellData::rotation));
 
-                group.rotateProperty().bind(cellData.map(CellData::rotation));
+            group.effectProperty().bind(cellData.map(c -> {
+                ColorInput color =
+                        new ColorInput(0, 0, NORMAL_TILE_FIT_SIZE, NORMAL_TILE_FIT_SIZE, c.veil());
+                Blend blend = new Blend(BlendMode.SRC_OVER);
+                blend.setOpacity(0.5);
+                blend.setTopInput(color);
+                blend.setBottomInput(null);
 
-                group.effectProperty().bind(cellData.map(c -> {
-                    ColorInput color =
-                            new ColorInput(0, 0, NORMAL_TILE_FIT_SIZE, NORMAL_TILE_FIT_SIZE, c.veil());
-                    Blend blend = new Blend(BlendMode.SRC_OVER);
-                    blend.setOpacity(0.5);
-                    blend.setTopInput(color);
-                    blend.setBottomInput(null);
+                return blend;
+            }));
 
-                    return blend;
-                }));
-            }
+            return group;
+        };
+
+        CellGrid cellGrid = new CellGrid(gridPane, newCell);
+        cellGrid.cover(Math.max(scope, boardO.getValue().extent()));
+        boardO.addListener((_, _, board) -> cellGrid.cover(board.extent()));
 
         return scrollPane;
     }
@@ -217,6 +223,38 @@ public final class BoardUI {
         }).toList();
     }
 
+    /**
+     * Grid of the cells of the board, centered on the origin, which grows to cover a given scope.
+     */
+    private static final class CellGrid {
+        private final GridPane gridPane;
+        private final Function<Pos, Node> newCell;
+        private final Map<Pos, Node> cells = new HashMap<>();
+        private int scope = -1;
+
+        private CellGrid(GridPane gridPane, Function<Pos, Node> newCell) {
+            this.gridPane = gridPane;
+            this.newCell = newCell;
+        }
+
+        private void cover(int newScope) {
+            if (newScope <= scope) return;
+            scope = newScope;
+
+            // grid indexes cannot be negative, so existing cells move when the scope grows
+            cells.forEach((pos, cell) -> GridPane.setConstraints(cell, pos.x() + scope, pos.y() + scope));
+            for (int x = -scope; x <= scope; x++)
+                for (int y = -scope; y <= scope; y++) {
+                    Pos pos = new Pos(x, y);
+                    if (!cells.containsKey(pos)) {
+                        Node cell = newCell.apply(pos);
+                        cells.put(pos, cell);
+                        gridPane.add(cell, x + scope, y + scope);
+                    }
+                }
+        }
+    }
+
     private record CellData(Image bgImage, int rotation, Color veil) {
         private static final Map<Integer, Image> IMAGE_CACHE_BY_ID = new HashMap<>();
         private static final WritableImage EMPTY_IMAGE = new WritableImage(1,1);
@@ -1,15 +1,18 @@
 package ch.epfl.chacun.gui;
 
 import ch.epfl.chacun.*;
+import ch.epfl.chacun.sim.MctsPolicy;
 import javafx.animation.FadeTransition;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.property.ObjectProperty;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.BorderPane;
@@ -17,11 +20,13 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-import javafx.util.Duration;
 
 import java.io.File;
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.random.RandomGenerator;
 import java.util.random.RandomGeneratorFactory;
@@ -45,6 +50,7 @@ public final class Main extends Application {
     private static final int SCREEN_WIDTN = 1440;
     private static final int SCREEN_HEIGHT = 1080;
     private static final String GAME_NAME = "ChaCuN";
+    private static final int DEFAULT_THINKING_MILLIS = 1000;
 
     /**
      * Launches the program.
@@ -62,29 +68,23 @@ public final class Main extends Application {
         List<String> playersNames = parameters.getUnnamed();
         assert playersNames.size() >= 2 && playersNames.size() <= 5;
         String seedStr = parameters.getNamed().get("seed");
-
-        // shuffle tiles
+        // the players played by the computer, and the time they think per action
+        String computerNamesStr = parameters.getNamed().getOrDefault("computer", "");
+        String thinkingMillisStr = parameters.getNamed().get("think");
+
+        // shuffle tiles, with a seed drawn at random if none is given, so that the game can be
+        // saved as a record
+        long seed = seedStr != null
+                ? parseUnsignedLong(seedStr)
+                : RandomGenerator.getDefault().nextLong();
         RandomGeneratorFactory<RandomGenerator> generatorFactory =
                 RandomGeneratorFactory.getDefault();
-        RandomGenerator generator = generatorFactory.create();
-
-        if (seedStr != null) {
-            long seed = parseUnsignedLong(seedStr);
-            generator = generatorFactory.create(seed);
-        }
+        RandomGenerator generator = generatorFactory.create(seed);
 
-        List<Tile> tiles = new ArrayList<>(Tiles.TILES);
-        Collections.shuffle(tiles, generator);
+        TileDecks tileDecks = GameRecord.tileDecks(seed);
 
         BorderPane mainPane = new BorderPane();
 
-        Map<Tile.Kind, List<Tile>> tilesByKind = tiles.stream()
-                .collect(Collectors.groupingBy(Tile::kind));
-        TileDecks tileDecks =
-                new TileDecks(tilesByKind.get(START),
-                        tilesByKind.get(NORMAL),
-                        tilesByKind.getOrDefault(Tile.Kind.MENHIR, List.of()));
-
         Map<PlayerColor, String> playerColorMap =
                 IntStream.range(0, playersNames.size()).boxed()
                         .collect(Collectors.toMap(
@@ -108,6 +108,9 @@ public final class Main extends Application {
                 new SimpleObjectProperty<>(Set.of());
         ObjectProperty<List<String>> actionsP =
                 new SimpleObjectProperty<>(List.of());
+        // seed of the game shown, null if it was loaded from a saved state rather than a record
+        ObjectProperty<Long> seedP =
+                new SimpleObjectProperty<>(seed);
 
         visibleoccupantsP.bind(gameStateP.map(gs -> {
             Set<Occupant> newVisibles = new HashSet<>(gs.board().occupants());
@@ -186,23 +189,17 @@ public final class Main extends Application {
                         t -> update(gameStateP,
                                 actionsP,
                                 decodeAndApply(gameStateP.getValue(), t)),
-                        () -> {
-                            FileChooser fileChooser = new FileChooser();
-                            fileChooser.setTitle("Select the path to save the game");
-                            File file = fileChooser.showSaveDialog(primaryStage);
-                            if (file != null)
-                                GameSaveLoad.saveGame(gameStateP.getValue(), file.getAbsolutePath());
-                        },
-                        () -> {
-                            FileChooser fileChooser = new FileChooser();
-                            fileChooser.setTitle("Select the game file to load");
-                            File file = fileChooser.showOpenDialog(primaryStage);
-                            if (file != null) {
-                                GameState loadedGameState = GameSaveLoad.loadGame(file.getAbsolutePath());
-                                if (loadedGameState != null)
-                                    gameStateP.setValue(loadedGameState);
-                            }
-                        });
+                        () -> saveGame(primaryStage,
+                                playerColors,
+                                gameStateP.getValue(),
+                                seedP.getValue(),
+                                actionsP.getValue()),
+                        () -> loadGame(primaryStage,
+                                playerColors,
+                                textMaker,
+                                gameStateP,
+                                seedP,
+                                actionsP));
 
         ObjectProperty<String> textP = new SimpleObjectProperty<>("");
         ObservableValue<GameState.Action> nextActionO = gameStateP.map(GameState::nextAction);
@@ -221,6 +218,22 @@ public final class Main extends Application {
 
         vBox.getChildren().addAll(actionsNode, decksNode);
 
+        Set<PlayerColor> computerPlayers = EnumSet.noneOf(PlayerColor.class);
+        List<String> computerNames = List.of(computerNamesStr.split(","));
+        playerColorMap.forEach((color, name) -> {
+            if (computerNames.contains(name)) computerPlayers.add(color);
+        });
+        if (!computerPlayers.isEmpty()) {
+            int thinkingMillis = thinkingMillisStr != null
+                    ? Integer.parseInt(thinkingMillisStr)
+                    : DEFAULT_THINKING_MILLIS;
+            playComputerPlayers(gameStateP,
+                    actionsP,
+                    computerPlayers,
+                    Duration.ofMillis(thinkingMillis),
+                    generator);
+        }
+
         gameStateP.setValue(gameStateP.getValue().withStartingTilePlaced());
 
         mainScene = new Scene(mainPane, SCREEN_WIDTN, SCREEN_HEIGHT);
@@ -283,6 +296,112 @@ public final class Main extends Application {
                         occupantHandler);
     }
 
+    private static void saveGame(Stage stage,
+                                 List<PlayerColor> playerColors,
+                                 GameState gameState,
+                                 Long seed,
+                                 List<String> actions) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Select the path to save the game");
+        File file = fileChooser.showSaveDialog(stage);
+        if (file == null)
+            return;
+
+        try {
+            // a game loaded from a saved state has no record, and is saved as a state again
+            if (seed != null)
+                GameSaveLoad.saveRecord(GameRecord.of(playerColors, seed, actions),
+                        file.getAbsolutePath());
+            else
+                GameSaveLoad.saveGame(gameState, file.getAbsolutePath());
+        } catch (RuntimeException e) {
+            showError(stage, STR."The game could not be saved: \{e.getMessage()}");
+        }
+    }
+
+    private static void loadGame(Stage stage,
+                                 List<PlayerColor> playerColors,
+                                 TextMaker textMaker,
+                                 ObjectProperty<GameState> gameStateP,
+                                 ObjectProperty<Long> seedP,
+                                 ObjectProperty<List<String>> actionsP) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Select the game file to load");
+        File file = fileChooser.showOpenDialog(stage);
+        if (file == null)
+            return;
+
+        String name = file.getName();
+        GameRecord gameRecord = null;
+        GameState gameState;
+        try {
+            gameRecord = GameSaveLoad.loadRecord(file.getAbsolutePath());
+            gameState = gameRecord.replay(textMaker);
+        } catch (IllegalArgumentException _) {
+            // games loaded from a state are saved as a serialized state, which can only be read
+            // back by a version of the program whose serialized classes have the same form
+            try {
+                gameState = GameSaveLoad.loadGame(file.getAbsolutePath());
+            } catch (RuntimeException _) {
+                showError(stage, STR."\{name} is neither a game record nor a game state saved by"
+                        + " this version (states saved by older versions are not supported).");
+                return;
+            }
+        } catch (RuntimeException e) {
+            showError(stage, STR."\{name} could not be read: \{e.getMessage()}");
+            return;
+        }
+
+        // the players of a state are rotated at each turn
+        if (!Set.copyOf(gameState.players()).equals(Set.copyOf(playerColors))) {
+            showError(stage, STR."\{name} is a game between other players: \{gameState.players()}");
+            return;
+        }
+
+        gameStateP.setValue(gameState);
+        seedP.setValue(gameRecord != null ? gameRecord.seed() : null);
+        actionsP.setValue(gameRecord != null ? gameRecord.actionStrings() : List.of());
+    }
+
+    private static void showError(Stage stage, String message) {
+        Alert alert = new Alert(Alert.AlertType.ERROR, message);
+        alert.initOwner(stage);
+        alert.setHeaderText(null);
+        alert.showAndWait();
+    }
+
+    private static void playComputerPlayers(ObjectProperty<GameState> gameStateP,
+                                            ObjectProperty<List<String>> actionsP,
+                                            Set<PlayerColor> computerPlayers,
+                                            Duration thinkingTime,
+                                            RandomGenerator generator) {
+        MctsPolicy policy =
+                new MctsPolicy(thinkingTime, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        gameStateP.addListener((_, _, state) -> {
+            if (!computerPlayers.contains(state.currentPlayer()))
+                return;
+
+            long seed = generator.nextLong();
+            executor.execute(() -> {
+                int action = policy.bestAction(state, seed);
+                String string = state.nextAction() == PLACE_TILE
+                        ? Base32.encodeBits10(action)
+                        : Base32.encodeBits5(action);
+                Platform.runLater(() -> {
+                    // the action is dropped if the state changed in the meantime (e.g. game loaded)
+                    if (gameStateP.getValue() == state)
+                        update(gameStateP, actionsP, decodeAndApply(state, string));
+                });
+            });
+        });
+    }
+
     private static void update(ObjectProperty<GameState> gameStateP,
                                ObjectProperty<List<String>> actionsP,
                                StateAction newState) {
@@ -37,8 +37,7 @@ public final class PlayersUI  {
         vBox.getStylesheets().add("/players.css");
 
         List<PlayerColor> playerColors = gameStateO.getValue().players();
-        ObservableValue<Map<PlayerColor, Integer>> myPoints =
-                gameStateO.map(gs -> gs.messageBoard().points());
+        ObservableValue<MessageBoard> messageBoardO = gameStateO.map(GameState::messageBoard);
 
         for (var player : playerColors) {
             TextFlow textFlow = new TextFlow();
@@ -57,8 +56,8 @@ public final class PlayersUI  {
             circle.setFill(fillColor(player));
 
             ObservableValue<String> pointsText =
-                    myPoints.map(m -> {
-                        int point = m.getOrDefault(player, 0);
+                    messageBoardO.map(m -> {
+                        int point = m.points(player);
                         return STR." \{tm.playerName(player)} : \{tm.points(point)}\n";
                     });
             Text text = new Text();
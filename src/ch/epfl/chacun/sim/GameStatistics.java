@@ -0,0 +1,124 @@
+package ch.epfl.chacun.sim;
+
+import ch.epfl.chacun.GameEngine;
+import ch.epfl.chacun.PlayerColor;
+
+import java.util.IntSummaryStatistics;
+import java.util.List;
+
+/**
+ * Accumulates statistics about complete games: number of games and moves, and distributions of
+ * the final scores of all players and of the winners.
+ *
+ * @author Sam Lee (375535)
+ */
+public final class GameStatistics {
+    /**
+     * Width, in points, of the buckets of the score histogram.
+     */
+    public static final int BUCKET_WIDTH = 20;
+    private static final int BUCKET_COUNT = 10;
+
+    private long games;
+    private long moves;
+    private final IntSummaryStatistics scores = new IntSummaryStatistics();
+    private final IntSummaryStatistics winningScores = new IntSummaryStatistics();
+
+    /**
+     * Numbers of final scores by bucket, the last one containing all higher scores.
+     */
+    private final long[] histogram = new long[BUCKET_COUNT];
+
+    /**
+     * Adds the finished game between the given players played on the given engine, which took the
+     * given number of moves.
+     *
+     * @param players the players of the game
+     * @param engine the engine on which the game was played, at the end of the game
+     * @param moveCount the number of moves of the game
+     */
+    public void add(List<PlayerColor> players, GameEngine engine, int moveCount) {
+        games += 1;
+        moves += moveCount;
+
+        int winningScore = 0;
+        for (PlayerColor player : players) {
+            int score = engine.points(player);
+            scores.accept(score);
+            histogram[Math.min(score / BUCKET_WIDTH, BUCKET_COUNT - 1)] += 1;
+            winningScore = Math.max(winningScore, score);
+        }
+        winningScores.accept(winningScore);
+    }
+
+    /**
+     * Adds all the games of the given statistics to these ones.
+     *
+     * @param that the given statistics
+     */
+    public void combine(GameStatistics that) {
+        games += that.games;
+        moves += that.moves;
+        scores.combine(that.scores);
+        winningScores.combine(that.winningScores);
+        for (int i = 0; i < BUCKET_COUNT; i += 1)
+            histogram[i] += that.histogram[i];
+    }
+
+    /**
+     * Returns the number of games.
+     *
+     * @return the number of games
+     */
+    public long games() {
+        return games;
+    }
+
+    /**
+     * Returns the total number of moves of the games.
+     *
+     * @return the total number of moves of the games
+     */
+    public long moves() {
+        return moves;
+    }
+
+    /**
+     * Returns the statistics of the final scores of all players.
+     *
+     * @return the statistics of the final scores of all players
+     */
+    public IntSummaryStatistics scores() {
+        return scores;
+    }
+
+    /**
+     * Returns the statistics of the final scores of the winners.
+     *
+     * @return the statistics of the final scores of the winners
+     */
+    public IntSummaryStatistics winningScores() {
+        return winningScores;
+    }
+
+    /**
+     * Returns the number of final scores in the given bucket, i.e. between bucket * BUCKET_WIDTH
+     * (included) and (bucket + 1) * BUCKET_WIDTH (excluded), the last bucket containing all
+     * higher scores.
+     *
+     * @param bucket the index of the bucket
+     * @return the number of final scores in the given bucket
+     */
+    public long scoreCount(int bucket) {
+        return histogram[bucket];
+    }
+
+    /**
+     * Returns the number of buckets of the score histogram.
+     *
+     * @return the number of buckets of the score histogram
+     */
+    public int bucketCount() {
+        return BUCKET_COUNT;
+    }
+}
@@ -0,0 +1,259 @@
+package ch.epfl.chacun.sim;
+
+import ch.epfl.chacun.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.random.RandomGenerator;
+
+import static ch.epfl.chacun.Preconditions.checkArgument;
+
+/**
+ * Policy choosing its actions by Monte Carlo tree search.
+ * <p>
+ * The tree covers the actions of the current turn of the player (placing the tile, taking back a
+ * pawn, occupying the tile), which only depend on information known to the player; each of its
+ * leaves is evaluated by a random playout until the end of the game, on a state whose remaining
+ * decks have been shuffled, so that the search does not rely on the actual order of the tiles.
+ * Each thread plays all its playouts on a single engine, applying the actions in place and undoing
+ * them all before the next playout.
+ * A playout is worth 2 to the player if they win, 1 if they are tied for the lead, 0 otherwise.
+ * <p>
+ * Several threads can search the same tree (tree parallelism): node statistics are atomic
+ * counters, and the visit count of a node is incremented when a thread goes through it, before
+ * the result of its playout is known, which acts as a virtual loss steering the other threads
+ * towards other nodes in the meantime. The threads are created with the policy and kept from one
+ * action to the next.
+ *
+ * @author Sam Lee (375535)
+ */
+public final class MctsPolicy implements Policy {
+    private static final double EXPLORATION = Math.sqrt(2);
+
+    private final long budgetNanos;
+    private final int threads;
+    private final int maxPlayouts;
+
+    /**
+     * The executor running the searches of all the actions, on daemon threads, or null if the
+     * policy searches on a single thread, that of the caller.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a policy searching for the given time budget per action on the given number of
+     * threads.
+     *
+     * @param budget the time budget per action
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if the budget is negative or the number of threads is not
+     * positive
+     */
+    public MctsPolicy(Duration budget, int threads) {
+        this(budget, threads, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructs a policy searching for the given time budget per action on the given number of
+     * threads, and playing at most the given number of playouts per action.
+     *
+     * @param budget the time budget per action
+     * @param threads the number of threads
+     * @param maxPlayouts the maximum number of playouts per action
+     * @throws IllegalArgumentException if the budget is negative, or one of the numbers is not
+     * positive
+     */
+    public MctsPolicy(Duration budget, int threads, int maxPlayouts) {
+        checkArgument(!budget.isNegative() && threads > 0 && maxPlayouts > 0);
+        this.budgetNanos = budget.toNanos();
+        this.threads = threads;
+        this.maxPlayouts = maxPlayouts;
+        this.executor = threads == 1 ? null : Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public int action(GameEngine engine, int[] actions, int count, RandomGenerator random) {
+        return count == 1 ? actions[0] : bestAction(engine.toGameState(), random.nextLong());
+    }
+
+    /**
+     * Returns the code of the action the search finds best for the current player of the given
+     * game state.
+     *
+     * @param state the given game state, in which the current player has an action to perform
+     * @param seed the seed of the generators used by the search
+     * @return the code of the best action found
+     * @throws IllegalArgumentException if the current player has no action to perform
+     * @throws IllegalStateException if the search is interrupted, or fails with a checked exception
+     */
+    public int bestAction(GameState state, long seed) {
+        checkArgument(state.currentPlayer() != null);
+        long deadline = System.nanoTime() + budgetNanos;
+        Node root = new Node(-1);
+        AtomicInteger playouts = new AtomicInteger();
+
+        if (executor == null) {
+            search(root, state, deadline, playouts, seed);
+        } else {
+            List<Future<?>> searches = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i += 1) {
+                long threadSeed = seed + i;
+                searches.add(executor.submit(
+                        () -> search(root, state, deadline, playouts, threadSeed)));
+            }
+            // the failure of a search is thrown to the caller, once all the searches are over
+            Throwable failure = null;
+            for (Future<?> search : searches) {
+                try {
+                    search.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) failure = e.getCause();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            if (failure instanceof RuntimeException e) throw e;
+            if (failure instanceof Error e) throw e;
+            if (failure != null) throw new IllegalStateException(failure);
+        }
+
+        Node bestChild = null;
+        for (Node child : root.children.get())
+            if (bestChild == null || child.visits.get() > bestChild.visits.get())
+                bestChild = child;
+        return bestChild.action;
+    }
+
+    private void search(Node root, GameState state, long deadline, AtomicInteger playouts, long seed) {
+        RandomGenerator random = GameRecord.GENERATOR_FACTORY.create(seed);
+        PlayerColor player = state.currentPlayer();
+        List<Node> path = new ArrayList<>();
+        int[] actions = new int[1 << 10];
+        // each playout is played on this engine, which is then taken back to the searched state
+        GameEngine engine = new GameEngine(state);
+
+        // the root is always expanded, so that there is a child to choose from in the end
+        root.children(engine, actions);
+        do {
+            engine.undoUntil(0);
+            engine.shuffleDecks(random);
+            path.clear();
+            path.add(root);
+            root.visits.incrementAndGet();
+
+            Node node = root;
+            boolean expanded = false;
+            while (!expanded && !isTurnOver(engine)) {
+                node = node.selected(engine, actions);
+                path.add(node);
+                expanded = node.visits.incrementAndGet() == 1;
+                engine.apply(node.action);
+            }
+
+            playOut(engine, random, actions);
+            int reward = reward(engine, player);
+            for (Node visited : path)
+                visited.halfWins.addAndGet(reward);
+        } while (playouts.incrementAndGet() < maxPlayouts && System.nanoTime() < deadline);
+    }
+
+    private static boolean isTurnOver(GameEngine engine) {
+        return engine.nextAction() == GameState.Action.PLACE_TILE && engine.depth() > 0
+                || engine.isOver();
+    }
+
+    private static void playOut(GameEngine engine, RandomGenerator random, int[] actions) {
+        while (!engine.isOver()) {
+            int count = engine.legalActions(actions);
+            int action = count <= actions.length
+                    ? actions[random.nextInt(count)]
+                    : legalAction(engine, random.nextInt(count));
+            engine.apply(action);
+        }
+    }
+
+    private static int legalAction(GameEngine engine, int index) {
+        int[] actions = new int[index + 1];
+        engine.legalActions(actions);
+        return actions[index];
+    }
+
+    private static int reward(GameEngine engine, PlayerColor player) {
+        int playerPoints = engine.points(player);
+        int bestOtherPoints = 0;
+        // the colors which do not play have no points
+        for (PlayerColor other : PlayerColor.ALL)
+            if (other != player) bestOtherPoints = Math.max(bestOtherPoints, engine.points(other));
+        return Integer.compare(playerPoints, bestOtherPoints) + 1;
+    }
+
+    /**
+     * Node of the search tree, reached by the action with the given code from its parent.
+     */
+    private static final class Node {
+        private final int action;
+        private final AtomicInteger visits = new AtomicInteger();
+        private final AtomicLong halfWins = new AtomicLong();
+
+        /**
+         * The children of the node, one per legal action, null until the node is expanded.
+         */
+        private final AtomicReference<Node[]> children = new AtomicReference<>();
+
+        private Node(int action) {
+            this.action = action;
+        }
+
+        private Node[] children(GameEngine engine, int[] actions) {
+            Node[] myChildren = children.get();
+            if (myChildren == null) {
+                int count = engine.legalActions(actions);
+                if (count > actions.length) {
+                    actions = new int[count];
+                    engine.legalActions(actions);
+                }
+
+                myChildren = new Node[count];
+                for (int i = 0; i < count; i += 1)
+                    myChildren[i] = new Node(actions[i]);
+                // another thread may have expanded the node in the meantime
+                if (!children.compareAndSet(null, myChildren))
+                    myChildren = children.get();
+            }
+            return myChildren;
+        }
+
+        private Node selected(GameEngine engine, int[] actions) {
+            double logVisits = Math.log(Math.max(1, visits.get()));
+            Node bestChild = null;
+            double bestScore = Double.NEGATIVE_INFINITY;
+
+            for (Node child : children(engine, actions)) {
+                int childVisits = child.visits.get();
+                if (childVisits == 0)
+                    return child;
+
+                double score = child.halfWins.get() / (2.0 * childVisits)
+                        + EXPLORATION * Math.sqrt(logVisits / childVisits);
+                if (score > bestScore) {
+                    bestChild = child;
+                    bestScore = score;
+                }
+            }
+            return bestChild;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ch.epfl.chacun.sim;
+
+import ch.epfl.chacun.GameEngine;
+import ch.epfl.chacun.PlayerColor;
+
+import java.time.Duration;
+import java.util.random.RandomGenerator;
+
+/**
+ * Represents the way a computer player chooses its actions.
+ *
+ * @author Sam Lee (375535)
+ */
+@FunctionalInterface
+public interface Policy {
+    /**
+     * Policy choosing one of the legal actions uniformly at random.
+     */
+    Policy RANDOM = (engine, actions, count, random) -> actions[random.nextInt(count)];
+
+    /**
+     * Policy choosing the first of the legal actions which bring the most points to the current
+     * player right away.
+     */
+    Policy GREEDY = (engine, actions, count, random) -> {
+        PlayerColor player = engine.currentPlayer();
+        int bestAction = actions[0];
+        int bestPoints = -1;
+        for (int i = 0; i < count; i += 1) {
+            engine.apply(actions[i]);
+            int points = engine.points(player);
+            engine.undo();
+            if (points > bestPoints) {
+                bestAction = actions[i];
+                bestPoints = points;
+            }
+        }
+        return bestAction;
+    };
+
+    /**
+     * Returns the code of the action chosen among the legal actions of the current state of the
+     * given engine. The engine may be used to explore the consequences of the actions, but must be
+     * left in its current state.
+     *
+     * @param engine the engine, in the state in which an action is to be chosen
+     * @param actions the codes of the legal actions (at the beginning of the array)
+     * @param count the number of legal actions (at least one)
+     * @param random the generator to use for random choices
+     * @return the code of the chosen action
+     */
+    int action(GameEngine engine, int[] actions, int count, RandomGenerator random);
+
+    /**
+     * Returns the policy with the given name (random, greedy, or mcts, which searches for 100 ms
+     * per action on a single thread).
+     *
+     * @param name the given name
+     * @return the policy with the given name
+     * @throws IllegalArgumentException if no policy has the given name
+     */
+    static Policy named(String name) {
+        return switch (name) {
+            case "random" -> RANDOM;
+            case "greedy" -> GREEDY;
+            case "mcts" -> new MctsPolicy(Duration.ofMillis(100), 1);
+            default -> throw new IllegalArgumentException();
+        };
+    }
+}
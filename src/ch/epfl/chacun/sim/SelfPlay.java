@@ -0,0 +1,171 @@
+package ch.epfl.chacun.sim;
+
+import ch.epfl.chacun.*;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+import static ch.epfl.chacun.Preconditions.checkArgument;
+
+/**
+ * Headless runner playing complete games between computer players, on all cores.
+ * <p>
+ * The decks of each game are built the way the graphical interface builds them (see
+ * GameRecord.tileDecks), from the seed of the game (the base seed plus the index of the game), and
+ * the players make their random choices with a generator of the same algorithm created from that
+ * seed, so that each game only depends on its seed. Games are distributed among the threads of a
+ * work-stealing pool.
+ * <p>
+ * Usage: SelfPlay [--games=1000] [--players=2] [--seed=0] [--threads=cores]
+ * [--policies=random,greedy,mcts], the policies being assigned to the players in turn.
+ *
+ * @author Sam Lee (375535)
+ */
+public final class SelfPlay {
+    private SelfPlay() {}
+
+    /**
+     * Plays the games described by the given arguments and prints their statistics.
+     *
+     * @param args the arguments received
+     */
+    public static void main(String[] args) {
+        Map<String, String> named = new HashMap<>();
+        for (String arg : args) {
+            checkArgument(arg.startsWith("--") && arg.contains("="));
+            named.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        int games = Integer.parseInt(named.getOrDefault("games", "1000"));
+        int playerCount = Integer.parseInt(named.getOrDefault("players", "2"));
+        long seed = Long.parseUnsignedLong(named.getOrDefault("seed", "0"));
+        int threads = Integer.parseInt(named.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        List<Policy> policies = Arrays.stream(named.getOrDefault("policies", "random").split(","))
+                .map(Policy::named)
+                .toList();
+
+        long start = System.nanoTime();
+        GameStatistics statistics = run(games, playerCount, seed, policies, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d games, %d moves in %.2f s (%d threads)%n",
+                statistics.games(), statistics.moves(), seconds, threads);
+        System.out.printf("%.1f games/s, %.1f moves/s%n",
+                statistics.games() / seconds, statistics.moves() / seconds);
+        System.out.printf("scores: %s%n", statistics.scores());
+        System.out.printf("winning scores: %s%n", statistics.winningScores());
+        for (int bucket = 0; bucket < statistics.bucketCount(); bucket += 1) {
+            int from = bucket * GameStatistics.BUCKET_WIDTH;
+            String range = bucket == statistics.bucketCount() - 1
+                    ? STR."\{from}+"
+                    : STR."\{from}-\{from + GameStatistics.BUCKET_WIDTH - 1}";
+            System.out.printf("%8s %d%n", range, statistics.scoreCount(bucket));
+        }
+    }
+
+    /**
+     * Plays the given number of games between the given number of players on the given number of
+     * threads, and returns their statistics.
+     *
+     * @param games the number of games
+     * @param playerCount the number of players (between 2 and 5)
+     * @param seed the base seed of the games
+     * @param policies the policies of the players, assigned to them in turn
+     * @param threads the number of threads
+     * @return the statistics of the games
+     * @throws IllegalArgumentException if one of the numbers is invalid, or there is no policy
+     */
+    public static GameStatistics run(int games,
+                                     int playerCount,
+                                     long seed,
+                                     List<Policy> policies,
+                                     int threads) {
+        checkArgument(games >= 0 && threads > 0 && !policies.isEmpty());
+        checkArgument(2 <= playerCount && playerCount <= PlayerColor.ALL.size());
+
+        try (ForkJoinPool pool = new ForkJoinPool(threads)) {
+            return pool.invoke(new Games(0, games, playerCount, seed, List.copyOf(policies)));
+        }
+    }
+
+    /**
+     * Plays the game with the given seed and returns the engine on which it was played, at the end
+     * of the game; its final state, which is costly to build, can be obtained with toGameState.
+     *
+     * @param playerCount the number of players
+     * @param seed the seed of the game
+     * @param policies the policies of the players, assigned to them in turn
+     * @param statistics the statistics to which the game is added
+     * @return the engine on which the game was played
+     */
+    public static GameEngine play(int playerCount,
+                                  long seed,
+                                  List<Policy> policies,
+                                  GameStatistics statistics) {
+        RandomGenerator generator = GameRecord.GENERATOR_FACTORY.create(seed);
+
+        // no one reads the messages, which are thus not given any text
+        List<PlayerColor> players = PlayerColor.ALL.subList(0, playerCount);
+        GameEngine engine =
+                new GameEngine(GameState.initial(players, GameRecord.tileDecks(seed), null));
+        engine.startGame();
+
+        int[] actions = new int[64];
+        int moveCount = 0;
+        while (!engine.isOver()) {
+            int count = engine.legalActions(actions);
+            if (count > actions.length) {
+                actions = new int[count];
+                engine.legalActions(actions);
+            }
+
+            Policy policy = policies.get(engine.currentPlayer().ordinal() % policies.size());
+            engine.apply(policy.action(engine, actions, count, generator));
+            moveCount += 1;
+        }
+
+        statistics.add(players, engine, moveCount);
+        return engine;
+    }
+
+    /**
+     * Task playing the games whose index is in the given range, split in halves until a single
+     * game is left.
+     */
+    private static final class Games extends RecursiveTask<GameStatistics> {
+        private static final long serialVersionUID = 1;
+
+        private final int from;
+        private final int to;
+        private final int playerCount;
+        private final long seed;
+        private final List<Policy> policies;
+
+        private Games(int from, int to, int playerCount, long seed, List<Policy> policies) {
+            this.from = from;
+            this.to = to;
+            this.playerCount = playerCount;
+            this.seed = seed;
+            this.policies = policies;
+        }
+
+        @Override
+        protected GameStatistics compute() {
+            if (to - from <= 1) {
+                GameStatistics statistics = new GameStatistics();
+                if (from < to) play(playerCount, seed + from, policies, statistics);
+                return statistics;
+            }
+
+            int middle = (from + to) >>> 1;
+            Games first = new Games(from, middle, playerCount, seed, policies);
+            first.fork();
+            GameStatistics statistics = new Games(middle, to, playerCount, seed, policies).compute();
+            statistics.combine(first.join());
+            return statistics;
+        }
+    }
+}
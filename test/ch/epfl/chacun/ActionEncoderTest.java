@@ -1,7 +1,133 @@
 package ch.epfl.chacun;
 
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ActionEncoderTest {
+    private static GameState startedState(long seed) {
+        return TestGames.initialState(PlayerColor.ALL.subList(0, 2), seed).withStartingTilePlaced();
+    }
+
+    @Test
+    void actionEncoderLegalActionsAreThoseWhichApply() {
+        var random = new Random(7);
+        var state = startedState(4);
+        var actions = new int[1 << 10];
+
+        while (state.nextAction() != GameState.Action.END_GAME) {
+            int count = ActionEncoder.legalActions(state, actions);
+            var expected = TestGames.legalActionsByTrial(state);
+            assertEquals(expected, Arrays.stream(actions, 0, count).boxed().toList());
+            state = ActionEncoder.apply(state, actions[random.nextInt(count)]);
+        }
+        assertEquals(0, ActionEncoder.legalActions(state, actions));
+    }
+
+    @Test
+    void actionEncoderLegalActionsAgreeWithPotentialOccupantsAndPawns() {
+        var random = new Random(10);
+        var actions = new int[1 << 10];
+        for (int seed = 0; seed < 10; seed += 1) {
+            var state = startedState(seed);
+            while (state.nextAction() != GameState.Action.END_GAME) {
+                int count = ActionEncoder.legalActions(state, actions);
+                var codes = new TreeSet<Integer>();
+                switch (state.nextAction()) {
+                    case OCCUPY_TILE -> {
+                        for (var occupant : state.lastTilePotentialOccupants())
+                            codes.add(occupant.kind().ordinal() << 4 | occupant.zoneId() % 10);
+                        codes.add(0b11111);
+                    }
+                    case RETAKE_PAWN -> {
+                        var pawns = state.board().occupants().stream()
+                                .filter(o -> o.kind() == Occupant.Kind.PAWN)
+                                .sorted(Comparator.comparingInt(Occupant::zoneId))
+                                .toList();
+                        for (int index = 0; index < pawns.size(); index += 1) {
+                            var tile = state.board().tileWithId(pawns.get(index).zoneId() / 10);
+                            if (tile.placer() == state.currentPlayer()) codes.add(index);
+                        }
+                        codes.add(0b11111);
+                    }
+                    default -> Arrays.stream(actions, 0, count).forEach(codes::add);
+                }
+                assertEquals(List.copyOf(codes), Arrays.stream(actions, 0, count).boxed().toList());
+                state = ActionEncoder.apply(state, actions[random.nextInt(count)]);
+            }
+        }
+    }
+
+    @Test
+    void actionEncoderLegalActionsOnlyWritesWhatFits() {
+        var state = startedState(5);
+        var actions = new int[1 << 10];
+        int count = ActionEncoder.legalActions(state, actions);
+        assertTrue(count > 2);
+
+        var shortActions = new int[2];
+        assertEquals(count, ActionEncoder.legalActions(state, shortActions));
+        assertArrayEquals(Arrays.copyOf(actions, 2), shortActions);
+        assertEquals(count, ActionEncoder.legalActions(state, new int[0]));
+    }
+
+    @Test
+    void actionEncoderLegalActionsAgreeWithEncodedPlacements() {
+        var state = startedState(6);
+        var actions = new int[1 << 10];
+        int count = ActionEncoder.legalActions(state, actions);
+
+        for (int i = 0; i < count; i += 1) {
+            var encoded = Base32.encodeBits10(actions[i]);
+            var decoded = ActionEncoder.decodeAndApply(state, encoded);
+            assertNotNull(decoded);
+            var placedTile = decoded.gameState().board().lastPlacedTile();
+            assertEquals(encoded, ActionEncoder.withPlacedTile(state, placedTile.withNoOccupant()).string());
+        }
+    }
+
+    @Test
+    void actionEncoderAppliesBatchesOrReportsTheFirstInvalidAction() {
+        var random = new Random(8);
+        var initial = startedState(9);
+        var state = initial;
+        var actions = new int[1 << 10];
+        var played = new ArrayList<Integer>();
+        var strings = new ArrayList<String>();
+        while (state.nextAction() != GameState.Action.END_GAME) {
+            int action = actions[random.nextInt(ActionEncoder.legalActions(state, actions))];
+            strings.add(state.nextAction() == GameState.Action.PLACE_TILE
+                    ? Base32.encodeBits10(action)
+                    : Base32.encodeBits5(action));
+            played.add(action);
+            state = ActionEncoder.apply(state, action);
+        }
+
+        var result = ActionEncoder.applyAll(initial, played.stream().mapToInt(i -> i).toArray());
+        assertTrue(result.isSuccess());
+        assertEquals(ActionEncoder.BatchResult.NO_FAILURE, result.failureIndex());
+        assertEquals(state.board(), result.gameState().board());
+        assertEquals(state.board(), ActionEncoder.decodeAndApplyAll(initial, strings).gameState().board());
+
+        var tooLong = new ArrayList<>(strings);
+        tooLong.add("7");
+        var afterEnd = ActionEncoder.decodeAndApplyAll(initial, tooLong);
+        assertEquals(strings.size(), afterEnd.failureIndex());
+        assertEquals(ActionEncoder.Failure.UNEXPECTED_ACTION, afterEnd.failure());
+        assertEquals(state.board(), afterEnd.gameState().board());
+
+        var invalidString = new ArrayList<>(strings);
+        invalidString.set(3, "a");
+        var invalid = ActionEncoder.decodeAndApplyAll(initial, invalidString);
+        assertFalse(invalid.isSuccess());
+        assertEquals(3, invalid.failureIndex());
+        assertEquals(ActionEncoder.Failure.INVALID_STRING, invalid.failure());
 
-}
\ No newline at end of file
+        var outOfFringe = ActionEncoder.applyAll(initial, new int[]{1023});
+        assertEquals(0, outOfFringe.failureIndex());
+        assertEquals(ActionEncoder.Failure.INVALID_POSITION, outOfFringe.failure());
+        assertSame(initial, outOfFringe.gameState());
+    }
+}
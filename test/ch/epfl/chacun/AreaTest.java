@@ -379,6 +379,28 @@ class AreaTest {
         }
     }
 
+    @Test
+    void areaConnectToCountsSharedZonesOnce() {
+        var shared = new Zone.Forest(1_0, Zone.Forest.Kind.WITH_MUSHROOMS);
+        var forest1 = new Area<>(Set.of(
+                new Zone.Forest(0_0, Zone.Forest.Kind.WITH_MUSHROOMS), shared), List.of(), 2);
+        var forest2 = new Area<>(Set.of(
+                shared, new Zone.Forest(2_0, Zone.Forest.Kind.PLAIN)), List.of(PlayerColor.RED), 2);
+        var forest = forest1.connectTo(forest2);
+
+        assertEquals(3, forest.zones().size());
+        assertEquals(3, forest.tileCount());
+        assertEquals(2, Area.mushroomGroupCount(forest));
+        assertEquals(List.of(PlayerColor.RED), forest.occupants());
+        assertEquals(2, forest.openConnections());
+        assertEquals(new Area<>(forest.zones(), List.of(PlayerColor.RED), 2), forest);
+
+        var river = new Zone.River(3_1, 2, null);
+        var river1 = new Area<>(Set.of(river), List.of(), 2);
+        var river2 = new Area<>(Set.of(river, new Zone.River(4_1, 1, null)), List.of(), 2);
+        assertEquals(3, Area.riverFishCount(river1.connectTo(river2)));
+    }
+
     @Test
     void areaWithInitialOccupantThrowsIfAreaAlreadyOccupied() {
         var area = new Area<>(
@@ -515,4 +537,54 @@ class AreaTest {
         assertEquals(zones.get(3), area.zoneWithSpecialPower(Zone.SpecialPower.PIT_TRAP));
         assertEquals(zones.get(5), area.zoneWithSpecialPower(Zone.SpecialPower.WILD_FIRE));
     }
-}
\ No newline at end of file
+
+    @Test
+    void areaAggregatesAreKeptByConnectTo() {
+        var lake = new Zone.Lake(12_8, 3, Zone.SpecialPower.RAFT);
+        var river1 = new Area<>(Set.of(new Zone.River(10_1, 1, lake)), List.of(PlayerColor.RED), 1);
+        var river2 = new Area<>(Set.of(new Zone.River(11_1, 2, null)), List.of(), 2);
+        var river3 = new Area<>(Set.of(new Zone.River(12_1, 0, lake)), List.of(PlayerColor.BLUE), 1);
+        var river = river1.connectTo(river2).connectTo(river3);
+
+        assertEquals(6, Area.riverFishCount(river));
+        assertEquals(new Area<>(Set.copyOf(river.zones()), river.occupants(), 0), river);
+        assertEquals(Area.riverFishCount(new Area<>(Set.copyOf(river.zones()), List.of(), 0)),
+                Area.riverFishCount(river));
+        assertEquals(Set.of(10, 11, 12), river.tileIds());
+        assertEquals(3, river.tileCount());
+        assertEquals(List.of(PlayerColor.RED, PlayerColor.BLUE), river.occupants());
+
+        var forest1 = new Area<>(Set.of(new Zone.Forest(1_0, Zone.Forest.Kind.WITH_MENHIR)), List.of(), 1);
+        var forest2 = new Area<>(Set.of(
+                new Zone.Forest(2_0, Zone.Forest.Kind.WITH_MUSHROOMS),
+                new Zone.Forest(2_1, Zone.Forest.Kind.WITH_MUSHROOMS)), List.of(), 1);
+        var forest = forest1.connectTo(forest2);
+        assertTrue(Area.hasMenhir(forest));
+        assertFalse(Area.hasMenhir(forest2));
+        assertEquals(2, Area.mushroomGroupCount(forest));
+        assertEquals(2, forest.tileCount());
+        assertTrue(forest.contains(new Zone.Forest(2_1, Zone.Forest.Kind.WITH_MUSHROOMS)));
+        assertFalse(forest.contains(new Zone.Forest(2_2, Zone.Forest.Kind.PLAIN)));
+
+        var deer = new Animal(3_0_0, Animal.Kind.DEER);
+        var tiger = new Animal(4_0_0, Animal.Kind.TIGER);
+        var meadow = new Area<>(Set.of(new Zone.Meadow(3_0, List.of(deer), null)), List.of(), 1)
+                .connectTo(new Area<>(Set.of(new Zone.Meadow(4_0, List.of(tiger), null)), List.of(), 1))
+                .withInitialOccupant(PlayerColor.GREEN);
+        assertEquals(Set.of(deer, tiger), Area.animals(meadow, Set.of()));
+        assertEquals(Set.of(tiger), Area.animals(meadow, Set.of(deer)));
+        assertEquals(1, Area.animalCount(meadow, Animal.Kind.DEER, Set.of()));
+        assertEquals(0, Area.animalCount(meadow, Animal.Kind.DEER, Set.of(deer)));
+        // animals cancelled in other meadows are not subtracted
+        var otherDeer = new Animal(5_0_0, Animal.Kind.DEER);
+        assertEquals(1, Area.animalCount(meadow, Animal.Kind.DEER, Set.of(otherDeer, tiger)));
+        assertEquals(0, Area.animalCount(meadow, Animal.Kind.MAMMOTH, Set.of()));
+        assertEquals(List.of(deer, tiger), Area.animalList(meadow));
+
+        var riverSystem = new Area<Zone.Water>(Set.of(new Zone.River(5_1, 2, null)), List.of(), 1)
+                .connectTo(new Area<>(Set.of(lake), List.of(), 1));
+        assertEquals(5, Area.riverSystemFishCount(riverSystem));
+        assertEquals(1, Area.lakeCount(riverSystem));
+        assertEquals(lake, riverSystem.zoneWithSpecialPower(Zone.SpecialPower.RAFT));
+    }
+}
@@ -1,7 +1,70 @@
 package ch.epfl.chacun;
 
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class Base32Test {
+    @Test
+    void base32EncodesAndDecodesAllValues() {
+        for (int bit = 0; bit < 1 << 5; bit += 1) {
+            assertEquals(String.valueOf(Base32.ALPHABET.charAt(bit)), Base32.encodeBits5(bit));
+            assertEquals(bit, Base32.decode(Base32.encodeBits5(bit)));
+        }
+        for (int bit = 0; bit < 1 << 10; bit += 1) {
+            var string = Base32.encodeBits10(bit);
+            assertTrue(Base32.isValid(string));
+            assertEquals(bit, Base32.decode(new StringBuilder(string)));
+        }
+        assertSame(Base32.encodeBits10(100), Base32.encodeBits10(100));
+        assertThrows(IllegalArgumentException.class, () -> Base32.encodeBits5(32));
+        assertThrows(IllegalArgumentException.class, () -> Base32.encodeBits10(-1));
+    }
+
+    @Test
+    void base32IsValidRejectsOtherStrings() {
+        assertTrue(Base32.isValid("A7"));
+        assertFalse(Base32.isValid(null));
+        assertFalse(Base32.isValid(""));
+        assertFalse(Base32.isValid("ABC"));
+        assertFalse(Base32.isValid("a"));
+        assertFalse(Base32.isValid("1"));
+        assertFalse(Base32.isValid("é"));
+        assertThrows(IllegalArgumentException.class, () -> Base32.decode("8"));
+    }
+
+    @Test
+    void base32DecodesWholeLogs() {
+        var log = new StringBuilder();
+        Base32.appendTo(log, 1000, 10);
+        Base32.appendTo(log, 31, 5);
+        Base32.appendTo(log, 3, 10);
+        assertEquals("7I 7 AD", log.toString());
+
+        var buffer = ByteBuffer.allocate(16);
+        Base32.putTo(buffer, 1000, 10);
+        Base32.putTo(buffer, 31, 5);
+        Base32.putTo(buffer, 3, 10);
+        buffer.flip();
+        assertEquals("7I 7 AD", StandardCharsets.US_ASCII.decode(buffer.duplicate()).toString());
+
+        var actions = new int[3];
+        assertEquals(3, Base32.decodeAll(buffer, actions));
+        assertArrayEquals(new int[]{1000, 31, 3}, actions);
+        assertEquals(0, buffer.position());
+
+        var shortActions = new int[2];
+        assertEquals(4, Base32.decodeAll(" 7I,7\nAD  B ", shortActions));
+        assertArrayEquals(new int[]{1000, 31}, shortActions);
+        assertEquals(0, Base32.decodeAll("", shortActions));
 
-}
\ No newline at end of file
+        assertThrows(IllegalArgumentException.class, () -> Base32.decodeAll("ABC", actions));
+        assertThrows(IllegalArgumentException.class, () -> Base32.decodeAll("AB;C", actions));
+        assertThrows(IllegalArgumentException.class,
+                () -> Base32.decodeAll(ByteBuffer.wrap(new byte[]{(byte) 0xC3}), actions));
+        assertThrows(IllegalArgumentException.class, () -> Base32.appendTo(log, 3, 6));
+    }
+}
@@ -67,6 +67,33 @@ class BoardTest {
         }
     }
 
+    @Test
+    void boardZobristKeyOnlyDependsOnContents() {
+        var allTiles = allTiles();
+        var t56 = new PlacedTile(allTiles.get(56), null, Rotation.NONE, new Pos(0, 0));
+        var t17 = new PlacedTile(allTiles.get(17), PlayerColor.RED, Rotation.NONE, new Pos(-1, 0));
+        var t27 = new PlacedTile(allTiles.get(27), PlayerColor.RED, Rotation.NONE, new Pos(1, 0));
+
+        var board = Board.EMPTY.withNewTile(t56).withNewTile(t17).withNewTile(t27);
+        var transposedBoard = Board.EMPTY.withNewTile(t56).withNewTile(t27).withNewTile(t17);
+        assertNotEquals(board, transposedBoard);
+        assertEquals(board.zobristKey(), transposedBoard.zobristKey());
+        assertNotEquals(Board.EMPTY.zobristKey(), board.zobristKey());
+
+        var occupant = t17.potentialOccupants().stream()
+                .min(Comparator.comparingInt(Occupant::zoneId))
+                .orElseThrow();
+        var occupiedBoard = board.withOccupant(occupant);
+        assertNotEquals(board.zobristKey(), occupiedBoard.zobristKey());
+        assertEquals(board.zobristKey(), occupiedBoard.withoutOccupant(occupant).zobristKey());
+        assertEquals(board.hashCode(), occupiedBoard.withoutOccupant(occupant).hashCode());
+
+        var deer = new Animal(17_2_0, Animal.Kind.DEER);
+        var cancelledBoard = board.withMoreCancelledAnimals(Set.of(deer));
+        assertNotEquals(board.zobristKey(), cancelledBoard.zobristKey());
+        assertEquals(cancelledBoard.zobristKey(), cancelledBoard.withMoreCancelledAnimals(Set.of(deer)).zobristKey());
+    }
+
     @Test
     void boardCancelledAnimalsIsImmutable() {
         var allTiles = allTiles();
@@ -424,6 +451,62 @@ class BoardTest {
             expectedInsertionPositions.addAll(Set.of(new Pos(x, -1), new Pos(x, 1)));
 
         assertEquals(expectedInsertionPositions, board.insertionPositions());
+        assertEquals(Board.REACH, board.extent());
+    }
+
+    @Test
+    void boardUnboundedGrowsBeyondReach() {
+        var allTiles = allTiles();
+        var tileIds = List.of(56, 1, 3, 5, 6, 8, 10, 11, 13, 46, 47, 48, 49);
+
+        var board = Board.EMPTY_UNBOUNDED;
+        assertEquals(Board.UNBOUNDED_REACH, board.reach());
+        assertEquals(0, board.extent());
+        for (int i = 0; i < tileIds.size(); i += 1)
+            board = board.withNewTile(
+                    new PlacedTile(allTiles.get(tileIds.get(i)), null, Rotation.NONE, new Pos(-i, 0)));
+
+        var expectedInsertionPositions = new HashSet<>(Set.of(new Pos(1, 0), new Pos(-13, 0)));
+        for (int x = -12; x <= 0; x += 1)
+            expectedInsertionPositions.addAll(Set.of(new Pos(x, -1), new Pos(x, 1)));
+
+        assertEquals(expectedInsertionPositions, board.insertionPositions());
+        assertEquals(Board.REACH + 1, board.extent());
+        assertEquals(allTiles.get(49), board.tileAt(new Pos(-12, 0)).tile());
+        assertNull(board.tileAt(new Pos(-13, 0)));
+        assertNull(board.tileAt(new Pos(Integer.MIN_VALUE, Integer.MAX_VALUE)));
+        assertEquals(allTiles.get(49), board.tileWithId(49).tile());
+        assertNotEquals(Board.EMPTY, Board.EMPTY_UNBOUNDED);
+    }
+
+    @Test
+    void boardInsertionPositionsAreKeptAcrossOccupantChangesAndImmutable() {
+        var allTiles = allTiles();
+        var t56 = new PlacedTile(allTiles.get(56), null, Rotation.NONE, new Pos(0, 0));
+        var t17 = new PlacedTile(allTiles.get(17), PlayerColor.RED, Rotation.NONE, new Pos(-1, 0));
+
+        var board = Board.EMPTY
+                .withNewTile(t56)
+                .withNewTile(t17);
+        var expectedInsertionPositions = Set.of(
+                new Pos(-2, 0),
+                new Pos(-1, -1),
+                new Pos(-1, 1),
+                new Pos(0, -1),
+                new Pos(0, 1),
+                new Pos(1, 0));
+
+        var occupiedBoard = board.withOccupant(new Occupant(Occupant.Kind.PAWN, 17_0));
+        assertEquals(expectedInsertionPositions, occupiedBoard.insertionPositions());
+        assertEquals(expectedInsertionPositions,
+                occupiedBoard.withoutOccupant(new Occupant(Occupant.Kind.PAWN, 17_0)).insertionPositions());
+
+        try {
+            board.insertionPositions().clear();
+        } catch (UnsupportedOperationException e) {
+            // nothing to do
+        }
+        assertEquals(expectedInsertionPositions, board.insertionPositions());
     }
 
     @Test
@@ -552,6 +635,53 @@ class BoardTest {
         assertEquals(Set.of(forest1, forest2, forest3), board.forestsClosedByLastTile());
     }
 
+    @Test
+    void boardAreasTouchedByLastTileAreThoseOfItsZones() {
+        var allTiles = allTiles();
+
+        var t56 = new PlacedTile(allTiles.get(56), PlayerColor.RED, Rotation.NONE, new Pos(0,0));
+        var t67 = new PlacedTile(allTiles.get(67), PlayerColor.RED, Rotation.NONE, new Pos(0,1));
+        var t54 = new PlacedTile(allTiles.get(54), PlayerColor.RED, Rotation.NONE, new Pos(1,1));
+        var t53 = new PlacedTile(allTiles.get(53), PlayerColor.RED, Rotation.NONE, new Pos(2,1));
+        var t34 = new PlacedTile(allTiles.get(34), PlayerColor.RED, Rotation.NONE, new Pos(2,0));
+        var t14 = new PlacedTile(allTiles.get(14), PlayerColor.RED, Rotation.NONE, new Pos(1,0));
+
+        assertEquals(Set.of(), Board.EMPTY.forestsTouchedByLastTile());
+        assertEquals(Set.of(), Board.EMPTY.riverSystemsTouchedByLastTile());
+
+        var board = Board.EMPTY;
+        for (var tile : List.of(t56, t67, t54, t53, t34, t14)) {
+            board = board.withNewTile(tile);
+
+            var forests = new HashSet<Area<Zone.Forest>>();
+            var meadows = new HashSet<Area<Zone.Meadow>>();
+            var rivers = new HashSet<Area<Zone.River>>();
+            var riverSystems = new HashSet<Area<Zone.Water>>();
+            for (var zone : tile.tile().zones()) {
+                switch (zone) {
+                    case Zone.Forest forest -> forests.add(board.forestArea(forest));
+                    case Zone.Meadow meadow -> meadows.add(board.meadowArea(meadow));
+                    case Zone.River river -> {
+                        rivers.add(board.riverArea(river));
+                        riverSystems.add(board.riverSystemArea(river));
+                    }
+                    case Zone.Lake lake -> riverSystems.add(board.riverSystemArea(lake));
+                }
+            }
+
+            assertEquals(forests, board.forestsTouchedByLastTile());
+            assertEquals(meadows, board.meadowsTouchedByLastTile());
+            assertEquals(rivers, board.riversTouchedByLastTile());
+            assertEquals(riverSystems, board.riverSystemsTouchedByLastTile());
+        }
+
+        // the areas are resolved when asked for, so they reflect later occupant changes
+        var occupant = new Occupant(Occupant.Kind.PAWN, 14_5);
+        var occupiedBoard = board.withOccupant(occupant);
+        assertTrue(occupiedBoard.forestsClosedByLastTile().stream()
+                .anyMatch(area -> area.occupants().equals(List.of(PlayerColor.RED))));
+    }
+
     @Test
     void boardRiversClosedByLastTileWorksWithNoRiverClosed() {
         var allTiles = allTiles();
@@ -851,6 +981,11 @@ class BoardTest {
         var board1 = board.withoutGatherersOrFishersIn(Set.of(occupiedForest), Set.of());
         assertEquals(List.of(), board1.forestArea(forest56).occupants());
         assertEquals(List.of(PlayerColor.GREEN), board1.meadowArea(meadow42).occupants());
+        assertEquals(1, board.occupantCount(PlayerColor.RED, Occupant.Kind.PAWN));
+        assertEquals(0, board1.occupantCount(PlayerColor.RED, Occupant.Kind.PAWN));
+        assertEquals(1, board1.occupantCount(PlayerColor.GREEN, Occupant.Kind.PAWN));
+        assertEquals(Set.of(new Occupant(Occupant.Kind.PAWN, 42_1)), board1.occupants());
+        assertEquals(t28.withNoOccupant(), board1.tileWithId(28));
     }
 
     @Test
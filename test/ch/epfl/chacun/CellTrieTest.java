@@ -0,0 +1,83 @@
+package ch.epfl.chacun;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CellTrieTest {
+    private static PlacedTile tile(int id) {
+        var forestSide = new TileSide.Forest(new Zone.Forest(id * 10, Zone.Forest.Kind.PLAIN));
+        var tile = new Tile(id, Tile.Kind.NORMAL, forestSide, forestSide, forestSide, forestSide);
+        return new PlacedTile(tile, null, Rotation.NONE, Pos.ORIGIN);
+    }
+
+    @Test
+    void cellTrieEmptyContainsNoTile() {
+        for (long key : new long[]{0, 1, -1, Long.MIN_VALUE, Long.MAX_VALUE, 1L << 32})
+            assertNull(CellTrie.EMPTY.get(key));
+        assertEquals(0, CellTrie.EMPTY.size());
+    }
+
+    @Test
+    void cellTrieWithDoesNotModifyReceiver() {
+        var t1 = tile(1);
+        var t2 = tile(2);
+        var empty = CellTrie.EMPTY;
+        var trie1 = empty.with(0, t1);
+        var trie2 = trie1.with(-1L << 32 | 7, t2);
+        var trie3 = trie2.with(0, null);
+
+        assertNull(empty.get(0));
+        assertEquals(t1, trie1.get(0));
+        assertNull(trie1.get(-1L << 32 | 7));
+        assertEquals(t1, trie2.get(0));
+        assertEquals(t2, trie2.get(-1L << 32 | 7));
+        assertNull(trie3.get(0));
+        assertEquals(t2, trie3.get(-1L << 32 | 7));
+        assertEquals(1, trie1.size());
+        assertEquals(2, trie2.size());
+        assertEquals(1, trie3.size());
+    }
+
+    @Test
+    void cellTrieEqualsComparesByContent() {
+        var t1 = tile(1);
+        var t2 = tile(2);
+        var trie1 = CellTrie.EMPTY.with(31, t1).with(32, t2);
+        var trie2 = CellTrie.EMPTY.with(32, t2).with(31, t1);
+
+        assertEquals(trie1, trie2);
+        assertEquals(trie1.hashCode(), trie2.hashCode());
+        assertNotEquals(trie1, trie2.with(31, t2));
+        assertEquals(CellTrie.EMPTY, CellTrie.EMPTY.with(3, t1).with(3, null));
+        assertEquals(trie1, trie1.with(5, t1).with(5, null));
+    }
+
+    @Test
+    void cellTrieAgreesWithHashMapOnManyKeys() {
+        var random = new Random(2024);
+        var tiles = new PlacedTile[]{tile(1), tile(2), tile(3)};
+        var expected = new HashMap<Long, PlacedTile>();
+        var trie = CellTrie.EMPTY;
+
+        for (int i = 0; i < 5_000; i += 1) {
+            long key = (long) (random.nextInt(41) - 20) << 32 | (random.nextInt(41) - 20) & 0xFFFF_FFFFL;
+            var tile = random.nextInt(4) == 0 ? null : tiles[random.nextInt(tiles.length)];
+            trie = trie.with(key, tile);
+            if (tile == null) expected.remove(key);
+            else expected.put(key, tile);
+        }
+
+        assertEquals(expected.size(), trie.size());
+        var rebuilt = CellTrie.EMPTY;
+        for (Map.Entry<Long, PlacedTile> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), trie.get(entry.getKey()));
+            rebuilt = rebuilt.with(entry.getKey(), entry.getValue());
+        }
+        assertEquals(rebuilt, trie);
+    }
+}
@@ -0,0 +1,78 @@
+package ch.epfl.chacun;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FringeTreeTest {
+    @Test
+    void fringeTreeEmptyContainsNoPosition() {
+        assertEquals(0, FringeTree.EMPTY.size());
+        assertEquals(0, FringeTree.EMPTY.constraintAt(Pos.ORIGIN));
+        assertEquals(-1, FringeTree.EMPTY.rankOf(Pos.ORIGIN));
+        assertEquals(Set.of(), FringeTree.EMPTY.positions());
+        assertSame(FringeTree.EMPTY, FringeTree.EMPTY.without(Pos.ORIGIN));
+    }
+
+    @Test
+    void fringeTreeUpdatesDoNotModifyReceiver() {
+        var p1 = new Pos(0, 1);
+        var p2 = new Pos(-3, 7);
+        var tree1 = FringeTree.EMPTY.with(p1, 0b01);
+        var tree2 = tree1.with(p2, 0b10);
+        var tree3 = tree2.with(p1, 0b11);
+        var tree4 = tree3.without(p2);
+
+        assertEquals(0b01, tree1.constraintAt(p1));
+        assertEquals(0, tree1.constraintAt(p2));
+        assertEquals(0b01, tree2.constraintAt(p1));
+        assertEquals(0b10, tree2.constraintAt(p2));
+        assertEquals(0b11, tree3.constraintAt(p1));
+        assertEquals(0, tree4.constraintAt(p2));
+        assertEquals(List.of(1, 2, 2, 1),
+                List.of(tree1.size(), tree2.size(), tree3.size(), tree4.size()));
+        assertSame(tree4, tree4.without(p2));
+    }
+
+    @Test
+    void fringeTreeAgreesWithSortedMap() {
+        var random = new Random(2024);
+        var order = Comparator.comparingInt(Pos::x).thenComparingInt(Pos::y);
+        var expected = new TreeMap<Pos, Integer>(order);
+        var tree = FringeTree.EMPTY;
+
+        for (int i = 0; i < 2_000; i += 1) {
+            var pos = new Pos(random.nextInt(-12, 13), random.nextInt(-12, 13));
+            if (random.nextInt(3) == 0) {
+                expected.remove(pos);
+                tree = tree.without(pos);
+            } else {
+                var constraint = random.nextInt(1, FringeTree.SIGNATURE_COUNT);
+                expected.put(pos, constraint);
+                tree = tree.with(pos, constraint);
+            }
+
+            assertEquals(expected.size(), tree.size());
+            assertEquals(expected.getOrDefault(pos, 0), tree.constraintAt(pos));
+            if (i % 100 == 0) {
+                var positions = new ArrayList<>(expected.keySet());
+                assertEquals(positions, List.copyOf(tree.positions()));
+                var signatures = new long[FringeTree.SIGNATURE_COUNT / Long.SIZE];
+                for (int rank = 0; rank < positions.size(); rank += 1) {
+                    assertEquals(positions.get(rank), tree.positionAt(rank));
+                    assertEquals(rank, tree.rankOf(positions.get(rank)));
+                    var constraint = expected.get(positions.get(rank));
+                    signatures[constraint / Long.SIZE] |= 1L << constraint;
+                }
+                assertArrayEquals(signatures, tree.signatures());
+            }
+        }
+    }
+}
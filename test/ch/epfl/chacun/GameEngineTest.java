@@ -0,0 +1,183 @@
+package ch.epfl.chacun;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static ch.epfl.chacun.TestGames.legalActions;
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEngineTest {
+    private static final List<PlayerColor> PLAYERS = PlayerColor.ALL.subList(0, 3);
+
+    // compares what the engine computes by itself with the given state, never with toGameState
+    private static void assertAgrees(GameState state, GameEngine engine) {
+        assertEquals(state.nextAction(), engine.nextAction());
+        assertEquals(state.currentPlayer(), engine.currentPlayer());
+        for (var player : PlayerColor.ALL)
+            assertEquals(state.messageBoard().points(player), engine.points(player));
+        assertArrayEquals(legalActions(state), legalActions(engine));
+    }
+
+    @Test
+    void gameEngineAgreesWithGameStateAndUndoesAllActions() {
+        for (int seed = 0; seed < 40; seed += 1) {
+            var random = new Random(seed);
+            var players = PlayerColor.ALL.subList(0, 2 + seed % 4);
+            var state = TestGames.initialState(players, seed);
+            var engine = new GameEngine(state);
+            var states = new ArrayList<GameState>();
+            assertAgrees(state, engine);
+
+            engine.startGame();
+            states.add(state);
+            state = state.withStartingTilePlaced();
+            assertAgrees(state, engine);
+
+            while (!engine.isOver()) {
+                var legalActions = legalActions(state);
+                int action = legalActions[random.nextInt(legalActions.length)];
+                engine.apply(action);
+                states.add(state);
+                state = ActionEncoder.apply(state, action);
+                assertAgrees(state, engine);
+                assertEquals(states.size(), engine.depth());
+            }
+            assertEquals(state, engine.toGameState());
+
+            while (engine.depth() > 0) {
+                engine.undo();
+                assertAgrees(states.removeLast(), engine);
+            }
+            assertThrows(IllegalArgumentException.class, engine::undo);
+        }
+    }
+
+    @Test
+    void gameEngineAgreesWithGameStateFromAnyState() {
+        var random = new Random(2024);
+        for (int seed = 0; seed < 40; seed += 1) {
+            var state = TestGames.initialState(PLAYERS, seed).withStartingTilePlaced();
+            int moveCount = random.nextInt(120);
+            for (int move = 0; move < moveCount && state.nextAction() != GameState.Action.END_GAME;
+                 move += 1) {
+                var legalActions = legalActions(state);
+                int action = legalActions[random.nextInt(legalActions.length)];
+                state = ActionEncoder.apply(state, action);
+            }
+
+            var engine = new GameEngine(state);
+            assertSame(state, engine.toGameState());
+            assertAgrees(state, engine);
+            while (!engine.isOver()) {
+                var legalActions = legalActions(state);
+                int action = legalActions[random.nextInt(legalActions.length)];
+                engine.apply(action);
+                state = ActionEncoder.apply(state, action);
+                assertAgrees(state, engine);
+            }
+        }
+    }
+
+    @Test
+    void gameEngineToGameStateReplaysTheActions() {
+        var random = new Random(2024);
+        var state = TestGames.initialState(PLAYERS, 1);
+        var engine = new GameEngine(state);
+        var states = new ArrayList<GameState>();
+
+        engine.startGame();
+        states.add(state);
+        state = state.withStartingTilePlaced();
+        assertEquals(state, engine.toGameState());
+
+        while (!engine.isOver()) {
+            var legalActions = TestGames.legalActionsByTrial(state);
+            assertFalse(legalActions.isEmpty());
+            int action = legalActions.get(random.nextInt(legalActions.size()));
+            var string = state.nextAction() == GameState.Action.PLACE_TILE
+                    ? Base32.encodeBits10(action)
+                    : Base32.encodeBits5(action);
+
+            engine.apply(action);
+            states.add(state);
+            state = ActionEncoder.decodeAndApply(state, string).gameState();
+            assertEquals(state, engine.toGameState());
+        }
+
+        while (engine.depth() > 0) {
+            engine.undo();
+            assertEquals(states.removeLast(), engine.toGameState());
+        }
+    }
+
+    @Test
+    void gameEngineIsUnchangedByIllegalActions() {
+        var engine = new GameEngine(TestGames.initialState(PLAYERS, 2));
+        assertThrows(IllegalArgumentException.class, () -> engine.apply(0));
+
+        engine.startGame();
+        var state = engine.toGameState();
+        var legalActions = TestGames.legalActionsByTrial(state);
+        var illegalActions = new ArrayList<Integer>();
+        for (int action = 0; action < 1 << 10; action += 1)
+            if (!legalActions.contains(action)) illegalActions.add(action);
+
+        for (int action : illegalActions.subList(0, 10)) {
+            assertThrows(IllegalArgumentException.class, () -> engine.apply(action));
+            assertSame(state, engine.toGameState());
+            assertEquals(1, engine.depth());
+            assertAgrees(state, engine);
+        }
+        assertThrows(IllegalArgumentException.class, () -> engine.apply(-1));
+    }
+
+    @Test
+    void gameEngineUndoUntilGoesBackToGivenDepth() {
+        var engine = new GameEngine(TestGames.initialState(PLAYERS, 3));
+        engine.startGame();
+        var started = engine.toGameState();
+
+        for (int i = 0; i < 6 && !engine.isOver(); i += 1)
+            engine.apply(TestGames.legalActionsByTrial(engine.toGameState()).getFirst());
+        assertTrue(engine.depth() > 1);
+
+        engine.undoUntil(1);
+        assertEquals(1, engine.depth());
+        assertSame(started, engine.toGameState());
+        assertAgrees(started, engine);
+        assertThrows(IllegalArgumentException.class, () -> engine.undoUntil(2));
+    }
+
+    @Test
+    void gameEngineShufflesTheRemainingDecks() {
+        var random = new Random(5);
+        var state = TestGames.initialState(PLAYERS, 4).withStartingTilePlaced();
+        var engine = new GameEngine(state);
+        assertThrows(IllegalArgumentException.class, () -> {
+            engine.apply(legalActions(engine)[0]);
+            engine.shuffleDecks(random);
+        });
+
+        engine.undoUntil(0);
+        engine.shuffleDecks(random);
+        var shuffledState = engine.toGameState();
+        assertEquals(state.tileToPlace(), shuffledState.tileToPlace());
+        assertEquals(state.board(), shuffledState.board());
+        assertNotEquals(state.tileDecks().normalTiles(), shuffledState.tileDecks().normalTiles());
+        assertEquals(Set.copyOf(state.tileDecks().normalTiles()),
+                Set.copyOf(shuffledState.tileDecks().normalTiles()));
+        assertEquals(Set.copyOf(state.tileDecks().menhirTiles()),
+                Set.copyOf(shuffledState.tileDecks().menhirTiles()));
+
+        // the engine plays with the shuffled decks
+        state = shuffledState;
+        while (!engine.isOver()) {
+            var legalActions = legalActions(state);
+            int action = legalActions[random.nextInt(legalActions.length)];
+            engine.apply(action);
+            state = ActionEncoder.apply(state, action);
+            assertAgrees(state, engine);
+        }
+    }
+}
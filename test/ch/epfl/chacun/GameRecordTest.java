@@ -0,0 +1,74 @@
+package ch.epfl.chacun;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRecordTest {
+    @Test
+    void gameRecordBytesRoundTrip() {
+        for (long seed = 0; seed < 10; seed += 1) {
+            var players = PlayerColor.ALL.subList(0, 2 + (int) seed % 4);
+            var gameRecord = TestGames.randomGame(players, seed * 0x9E3779B97F4A7C15L);
+            var bytes = gameRecord.toBytes();
+
+            // header, players and seed, action count, and at most 10 bits per action
+            assertTrue(bytes.length <= 5 + (3 + 3 * players.size() + 64 + 32 + 10 * gameRecord.actions().size() + 7) / 8);
+            assertEquals(gameRecord, GameRecord.fromBytes(bytes));
+        }
+    }
+
+    @Test
+    void gameRecordReplayRebuildsTheGame() {
+        var players = List.of(PlayerColor.GREEN, PlayerColor.RED, PlayerColor.BLUE);
+        var gameRecord = TestGames.randomGame(players, 2024);
+        var state = gameRecord.replay(null);
+
+        assertEquals(GameState.Action.END_GAME, state.nextAction());
+        assertEquals(gameRecord.initialState(null).tileDecks(), GameRecord.tileDecks(2024));
+
+        var halfRecord = new GameRecord(players, 2024, gameRecord.actions().subList(0, 10));
+        assertEquals(GameRecord.fromBytes(halfRecord.toBytes()).replay(null).board(), halfRecord.replay(null).board());
+        assertEquals(state.board(), GameRecord.fromBytes(gameRecord.toBytes()).replay(null).board());
+        assertEquals(state.messageBoard().points(), gameRecord.replay(new BasicTextMaker()).messageBoard().points());
+    }
+
+    @Test
+    void gameRecordOfDecodesBase32Actions() {
+        var gameRecord = GameRecord.of(List.of(PlayerColor.RED, PlayerColor.BLUE), 1, List.of("AB", "7"));
+        assertEquals(List.of(1, 31), gameRecord.actions());
+
+        var playedRecord = TestGames.randomGame(List.of(PlayerColor.RED, PlayerColor.BLUE), 5);
+        var strings = playedRecord.actionStrings();
+        assertEquals(2, strings.getFirst().length());
+        assertEquals(playedRecord, GameRecord.of(playedRecord.players(), 5, strings));
+        assertThrows(IllegalArgumentException.class,
+                () -> GameRecord.of(List.of(PlayerColor.RED, PlayerColor.BLUE), 1, List.of("ab")));
+
+        var log = playedRecord.actionLog();
+        assertEquals(String.join(" ", strings), log);
+        assertEquals(playedRecord, GameRecord.ofLog(playedRecord.players(), 5, log));
+    }
+
+    @Test
+    void gameRecordRejectsInvalidData() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameRecord(List.of(PlayerColor.RED, PlayerColor.RED), 0, List.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameRecord(List.of(PlayerColor.RED, PlayerColor.BLUE), 0, List.of(1023)).toBytes());
+
+        var bytes = TestGames.randomGame(List.of(PlayerColor.RED, PlayerColor.BLUE), 3).toBytes();
+        var wrongVersion = bytes.clone();
+        wrongVersion[4] = GameRecord.VERSION + 1;
+        var wrongMagic = bytes.clone();
+        wrongMagic[0] = 'X';
+        assertThrows(IllegalArgumentException.class, () -> GameRecord.fromBytes(wrongVersion));
+        assertThrows(IllegalArgumentException.class, () -> GameRecord.fromBytes(wrongMagic));
+        assertThrows(IllegalArgumentException.class,
+                () -> GameRecord.fromBytes(Arrays.copyOf(bytes, bytes.length - 3)));
+        assertThrows(IllegalArgumentException.class, () -> GameRecord.fromBytes(new byte[0]));
+    }
+}
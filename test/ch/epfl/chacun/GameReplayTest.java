@@ -0,0 +1,49 @@
+package ch.epfl.chacun;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameReplayTest {
+    @Test
+    void gameReplayReachesEveryMoveFromItsKeyframes() {
+        var gameRecord = TestGames.randomGame(List.of(PlayerColor.RED, PlayerColor.BLUE, PlayerColor.GREEN), 7);
+        var engine = new GameEngine(gameRecord.initialState(null));
+        engine.startGame();
+        var expectedStates = new ArrayList<GameState>();
+        expectedStates.add(engine.toGameState());
+        for (int action : gameRecord.actions()) {
+            engine.apply(action);
+            expectedStates.add(engine.toGameState());
+        }
+
+        for (int interval : new int[]{1, 3, GameReplay.DEFAULT_KEYFRAME_INTERVAL, 1000}) {
+            var replay = new GameReplay(gameRecord, null, interval);
+            assertEquals(gameRecord.actions().size(), replay.moveCount());
+            for (int move = replay.moveCount(); move >= 0; move -= 1)
+                assertEquals(expectedStates.get(move).zobristKey(), replay.stateAt(move).zobristKey());
+            assertSame(replay.finalState(), replay.stateAt(replay.moveCount()));
+            assertEquals(GameState.Action.END_GAME, replay.finalState().nextAction());
+            assertThrows(IndexOutOfBoundsException.class, () -> replay.stateAt(-1));
+            assertThrows(IndexOutOfBoundsException.class, () -> replay.stateAt(replay.moveCount() + 1));
+        }
+    }
+
+    @Test
+    void gameReplayRejectsIllegalActions() {
+        var gameRecord = TestGames.randomGame(List.of(PlayerColor.RED, PlayerColor.BLUE), 11);
+        var tooLong = new ArrayList<>(gameRecord.actions());
+        tooLong.add(31);
+        var players = gameRecord.players();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameReplay(new GameRecord(players, 11, List.of(1023))));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameReplay(new GameRecord(players, 11, tooLong)));
+        assertThrows(IllegalArgumentException.class, () -> new GameReplay(gameRecord, null, 0));
+        assertEquals(0, new GameReplay(new GameRecord(players, 11, List.of())).moveCount());
+    }
+}
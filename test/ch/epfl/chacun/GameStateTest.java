@@ -289,6 +289,50 @@ class GameStateTest {
         assertEquals(1, state.messageBoard().messages().size());
     }
 
+    @Test
+    void gameStateWithPlacedTileScoresAllForestsClosedWithOneWithMenhir() {
+        var state = initialGameState(List.of(67, 54, 53, 34, 14, 0), List.of());
+        var topMenhirTile = state.tileDecks().topTile(Tile.Kind.MENHIR);
+
+        var t67 = new PlacedTile(state.tileToPlace(), state.currentPlayer(), Rotation.NONE, new Pos(0, 1));
+        state = state.withPlacedTile(t67).withNewOccupant(new Occupant(Occupant.Kind.PAWN, 67_1));
+        var t54 = new PlacedTile(state.tileToPlace(), state.currentPlayer(), Rotation.NONE, new Pos(1, 1));
+        state = state.withPlacedTile(t54).withNewOccupant(null);
+        var t53 = new PlacedTile(state.tileToPlace(), state.currentPlayer(), Rotation.NONE, new Pos(2, 1));
+        state = state.withPlacedTile(t53).withNewOccupant(null);
+        var t34 = new PlacedTile(state.tileToPlace(), state.currentPlayer(), Rotation.NONE, new Pos(2, 0));
+        state = state.withPlacedTile(t34).withNewOccupant(new Occupant(Occupant.Kind.PAWN, 34_3));
+
+        // closes three forests, one of which (that of the starting tile) contains a menhir
+        var placer = state.currentPlayer();
+        var t14 = new PlacedTile(state.tileToPlace(), placer, Rotation.NONE, new Pos(1, 0));
+        state = state.withPlacedTile(t14).withNewOccupant(null);
+
+        var expectedForestMessage2 = new MessageBoard.Message(
+                "{RED}|6|0|3",
+                6,
+                Set.of(PlayerColor.RED),
+                Set.of(67, 54, 14));
+        var expectedForestMessage3 = new MessageBoard.Message(
+                "{YELLOW}|4|0|2",
+                4,
+                Set.of(PlayerColor.YELLOW),
+                Set.of(34, 14));
+        var messages = state.messageBoard().messages();
+        assertTrue(messages.contains(expectedForestMessage2));
+        assertTrue(messages.contains(expectedForestMessage3));
+        // both the forest of the starting tile and that of tile 54 contain a menhir, the one touched
+        // by the zone of the last tile with the smallest identifier is reported
+        assertEquals(Set.of(67, 54, 14), messages.getLast().tileIds());
+        assertEquals(Set.of(), messages.getLast().scorers());
+
+        assertEquals(Action.PLACE_TILE, state.nextAction());
+        assertEquals(topMenhirTile, state.tileToPlace());
+        assertEquals(placer, state.currentPlayer());
+        assertEquals(5, state.freeOccupantsCount(PlayerColor.RED, Occupant.Kind.PAWN));
+        assertEquals(5, state.freeOccupantsCount(PlayerColor.YELLOW, Occupant.Kind.PAWN));
+    }
+
     @Test
     void gameStateWithPlacedTileWorksWhenPlacingShamanButNoOccupantCanBeRetaken() {
         var state = initialGameState(List.of(37, 41, 0), List.of(88));
@@ -638,6 +682,47 @@ class GameStateTest {
         assertEquals("{RED}|13", state.messageBoard().messages().getLast().text());
     }
 
+    @Test
+    void gameStateWithPlacedTileWorksAtEndOfGameWithoutPoints() {
+        var positions = Map.of(
+                61, new Pos(0, -1),
+                55, new Pos(0, 1));
+
+        var normalTilesIds = List.of(61, 55);
+        var state = initialGameState(List.of(PlayerColor.RED, PlayerColor.BLUE), normalTilesIds, List.of());
+        state = truncateDeck(state, Tile.Kind.NORMAL, normalTilesIds.size() - 1);
+
+        for (var placer : List.of(PlayerColor.RED, PlayerColor.BLUE)) {
+            var t = state.tileToPlace();
+            state = state.withPlacedTile(new PlacedTile(t, placer, Rotation.NONE, positions.get(t.id())))
+                    .withNewOccupant(null);
+        }
+
+        assertEquals(Action.END_GAME, state.nextAction());
+        assertEquals(Map.of(), state.messageBoard().points());
+        assertEquals("{RED,BLUE}|0", state.messageBoard().messages().getLast().text());
+    }
+
+    @Test
+    void gameStateZobristKeyDistinguishesTurnsAndDetectsEqualStates() {
+        var state = initialGameState(List.of(61, 55), List.of());
+        var sameState = new GameState(new ArrayList<>(state.players()),
+                state.tileDecks(),
+                state.tileToPlace(),
+                Board.EMPTY.withNewTile(state.board().tileAt(Pos.ORIGIN)),
+                state.nextAction(),
+                new MessageBoard(state.messageBoard().textMaker(), List.of()));
+        assertEquals(state, sameState);
+        assertEquals(state.zobristKey(), sameState.zobristKey());
+        assertEquals(state.hashCode(), sameState.hashCode());
+
+        var placedState = state.withPlacedTile(
+                new PlacedTile(state.tileToPlace(), state.currentPlayer(), Rotation.NONE, new Pos(0, -1)));
+        var nextTurnState = placedState.withNewOccupant(null);
+        var keys = Set.of(state.zobristKey(), placedState.zobristKey(), nextTurnState.zobristKey());
+        assertEquals(3, keys.size());
+    }
+
     @Test
     void gameStateWithPlacedTileWorksAtEndOfGameWithFire() {
         var positions = Map.ofEntries(
@@ -3,7 +3,6 @@ package ch.epfl.chacun;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static ch.epfl.chacun.PlayerColor.*;
 import static ch.epfl.chacun.Zone.Forest.*;
@@ -113,6 +112,78 @@ class MessageBoardTest {
         assertEquals(List.of(expectedMessage), mb.messages());
     }
 
+    @Test
+    void messageBoardKeepsBranchesAndTotalsApart() {
+        var l1 = new Zone.Lake(18, 1, null);
+        var r1 = new Zone.River(10, 4, l1);
+        var riverSystem = new Area<Zone.Water>(Set.of(l1, r1), List.of(), 0);
+        var forest = new Area<>(Set.of(new Zone.Forest(20, Kind.WITH_MENHIR)), List.of(), 0);
+
+        var mb0 = new MessageBoard(new BasicTextMaker(), List.of());
+        var mb1 = mb0.withScoredLogboat(RED, riverSystem);
+        var mb2 = mb1.withScoredLogboat(BLUE, riverSystem);
+        var mb2b = mb1.withClosedForestWithMenhir(GREEN, forest);
+        var mb3 = mb2.withScoredLogboat(RED, riverSystem);
+
+        assertEquals(1, mb1.messages().size());
+        assertEquals(List.of(BLUE), List.copyOf(mb2.messages().getLast().scorers()));
+        assertEquals(Set.of(), mb2b.messages().getLast().scorers());
+        assertEquals(mb2.messages(), mb3.messages().subList(0, 2));
+        assertEquals(mb1.messages(), mb2b.messages().subList(0, 1));
+
+        for (var mb : List.of(mb0, mb1, mb2, mb2b, mb3)) {
+            var rebuilt = new MessageBoard(mb.textMaker(), new ArrayList<>(mb.messages()));
+            assertEquals(rebuilt, mb);
+            assertEquals(rebuilt.points(), mb.points());
+            for (var player : PlayerColor.ALL)
+                assertEquals(mb.points().getOrDefault(player, 0), mb.points(player));
+        }
+        assertEquals(Map.of(RED, 4, BLUE, 2), mb3.points());
+        assertEquals(Map.of(RED, 2), mb2b.points());
+    }
+
+    @Test
+    void messageBoardProducesTextsOnlyWhenAskedFor() {
+        var l1 = new Zone.Lake(18, 1, null);
+        var r1 = new Zone.River(10, 4, l1);
+        var riverSystem = new Area<Zone.Water>(Set.of(l1, r1), List.of(RED, YELLOW), 0);
+        var textCount = new int[1];
+        var countingTextMaker = new BasicTextMaker() {
+            @Override
+            public String playersScoredRaft(Set<PlayerColor> scorers, int points, int lakeCount) {
+                textCount[0] += 1;
+                return super.playersScoredRaft(scorers, points, lakeCount);
+            }
+        };
+
+        var mb = new MessageBoard(countingTextMaker, List.of()).withScoredRaft(riverSystem);
+        var message = mb.messages().getFirst();
+        var sameMessage = new MessageBoard(countingTextMaker, List.of())
+                .withScoredRaft(riverSystem)
+                .messages()
+                .getFirst();
+        assertEquals(message, sameMessage);
+        assertEquals(message.hashCode(), sameMessage.hashCode());
+        assertEquals(0, textCount[0]);
+        assertEquals(new ScoringEvent.RaftScored(Set.of(RED, YELLOW), 1, 1, Set.of(1)), message.event());
+        assertEquals(Map.of(RED, 1, YELLOW, 1), mb.points());
+        assertEquals("{RED,YELLOW}|1|1", message.text());
+        assertEquals("{RED,YELLOW}|1|1", message.text());
+        assertEquals(1, textCount[0]);
+
+        var textFreeMessage = new MessageBoard(null, List.of()).withScoredRaft(riverSystem).messages().getFirst();
+        assertEquals("", textFreeMessage.text());
+        assertEquals(message.event(), textFreeMessage.event());
+        assertEquals(message.points(), textFreeMessage.points());
+        assertNull(new MessageBoard.Message("text", 0, Set.of(), Set.of()).event());
+
+        var raftMessage = new MessageBoard.Message(
+                new ScoringEvent.RaftScored(Set.of(RED), 1, 1, Set.of(1)), null);
+        var fishMessage = new MessageBoard.Message(
+                new ScoringEvent.RiverSystemScored(Set.of(RED), 1, 1, Set.of(1)), null);
+        assertNotEquals(raftMessage, fishMessage);
+    }
+
     @Test
     void messageBoardWithClosedForestWithMenhirWorks() {
         var f1 = new Zone.Forest(10, Kind.PLAIN);
@@ -407,130 +478,3 @@ class MessageBoardTest {
         assertEquals(expectedMessage.tileIds(), actualMessage.tileIds());
     }
 }
-
-class BasicTextMaker implements TextMaker {
-    private static String scorers(Set<PlayerColor> scorers) {
-        return scorers.stream()
-                .sorted()
-                .map(Object::toString)
-                .collect(Collectors.joining(",", "{", "}"));
-    }
-
-    private static String animals(Map<Animal.Kind, Integer> animals) {
-        return Arrays.stream(Animal.Kind.values())
-                .map(k -> animals.getOrDefault(k, 0) + "×" + k)
-                .collect(Collectors.joining("/"));
-    }
-
-    @Override
-    public String playerName(PlayerColor playerColor) {
-        return playerColor.name();
-    }
-
-    @Override
-    public String points(int points) {
-        return String.valueOf(points);
-    }
-
-    @Override
-    public String playerClosedForestWithMenhir(PlayerColor player) {
-        return playerName(player);
-    }
-
-    @Override
-    public String playersScoredForest(Set<PlayerColor> scorers,
-                                      int points,
-                                      int mushroomGroupCount,
-                                      int tileCount) {
-        return String.join("|",
-                scorers(scorers),
-                points(points),
-                String.valueOf(mushroomGroupCount),
-                String.valueOf(tileCount));
-    }
-
-    @Override
-    public String playersScoredRiver(Set<PlayerColor> scorers,
-                                     int points,
-                                     int fishCount,
-                                     int tileCount) {
-        return String.join("|",
-                scorers(scorers),
-                points(points),
-                String.valueOf(fishCount),
-                String.valueOf(tileCount));
-    }
-
-    @Override
-    public String playerScoredHuntingTrap(PlayerColor scorer,
-                                          int points,
-                                          Map<Animal.Kind, Integer> animals) {
-        return String.join("|",
-                playerName(scorer),
-                String.valueOf(points),
-                animals(animals));
-    }
-
-    @Override
-    public String playerScoredLogboat(PlayerColor scorer, int points, int lakeCount) {
-        return String.join("|",
-                playerName(scorer),
-                points(points),
-                String.valueOf(lakeCount));
-    }
-
-    @Override
-    public String playersScoredMeadow(Set<PlayerColor> scorers,
-                                      int points,
-                                      Map<Animal.Kind, Integer> animals) {
-        return String.join(
-                "|",
-                scorers(scorers),
-                points(points),
-                animals(animals));
-    }
-
-    @Override
-    public String playersScoredRiverSystem(Set<PlayerColor> scorers, int points, int fishCount) {
-        return String.join(
-                "|",
-                scorers(scorers),
-                points(points),
-                String.valueOf(fishCount));
-    }
-
-    @Override
-    public String playersScoredPitTrap(Set<PlayerColor> scorers,
-                                       int points,
-                                       Map<Animal.Kind, Integer> animals) {
-        return String.join("|",
-                scorers(scorers),
-                String.valueOf(points),
-                animals(animals));
-    }
-
-    @Override
-    public String playersScoredRaft(Set<PlayerColor> scorers, int points, int lakeCount) {
-        return String.join("|",
-                scorers(scorers),
-                String.valueOf(points),
-                String.valueOf(lakeCount));
-    }
-
-    @Override
-    public String playersWon(Set<PlayerColor> winners, int points) {
-        return String.join("|",
-                scorers(winners),
-                points(points));
-    }
-
-    @Override
-    public String clickToOccupy() {
-        return "clickToOccupy";
-    }
-
-    @Override
-    public String clickToUnoccupy() {
-        return "clickToUnoccupy";
-    }
-}
\ No newline at end of file
@@ -0,0 +1,135 @@
+package ch.epfl.chacun;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlacementOracleTest {
+    private static Tile forestTile(int id) {
+        var forestSide = new TileSide.Forest(new Zone.Forest(id * 10, Zone.Forest.Kind.PLAIN));
+        return new Tile(id, Tile.Kind.NORMAL, forestSide, forestSide, forestSide, forestSide);
+    }
+
+    private static Tile meadowTile(int id) {
+        var meadowSide = new TileSide.Meadow(new Zone.Meadow(id * 10, List.of(), null));
+        return new Tile(id, Tile.Kind.NORMAL, meadowSide, meadowSide, meadowSide, meadowSide);
+    }
+
+    // forest on the north side, meadow everywhere else
+    private static Tile northForestTile(int id) {
+        var forestSide = new TileSide.Forest(new Zone.Forest(id * 10, Zone.Forest.Kind.PLAIN));
+        var meadowSide = new TileSide.Meadow(new Zone.Meadow(id * 10 + 1, List.of(), null));
+        return new Tile(id, Tile.Kind.NORMAL, forestSide, meadowSide, meadowSide, meadowSide);
+    }
+
+    private static PlacementOracle oracleWith(PlacedTile... tiles) {
+        var board = Board.EMPTY;
+        for (var tile : tiles) board = board.withNewTile(tile);
+        return board.placementOracle();
+    }
+
+    @Test
+    void placementOracleEmptyHasNoPosition() {
+        assertEquals(Set.of(), PlacementOracle.EMPTY.positions());
+        assertFalse(PlacementOracle.EMPTY.canPlaceAnywhere(forestTile(1)));
+        assertEquals(0, PlacementOracle.EMPTY.rotationsAt(forestTile(1), Pos.ORIGIN));
+    }
+
+    @Test
+    void placementOracleSignatureFollowsRotation() {
+        var tile = northForestTile(1);
+        var forest = tile.n().kindCode();
+        var meadow = tile.e().kindCode();
+
+        assertNotEquals(forest, meadow);
+        assertEquals(forest | meadow << 2 | meadow << 4 | meadow << 6,
+                tile.sideKinds(Rotation.NONE));
+        assertEquals(meadow | forest << 2 | meadow << 4 | meadow << 6,
+                tile.sideKinds(Rotation.RIGHT));
+        assertEquals(meadow | meadow << 2 | forest << 4 | meadow << 6,
+                tile.sideKinds(Rotation.HALF_TURN));
+        assertEquals(meadow | meadow << 2 | meadow << 4 | forest << 6,
+                tile.sideKinds(Rotation.LEFT));
+    }
+
+    @Test
+    void placementOracleAnswersAroundSingleTile() {
+        var oracle = oracleWith(new PlacedTile(forestTile(1), null, Rotation.NONE, Pos.ORIGIN));
+
+        assertEquals(Set.of(new Pos(0, -1), new Pos(1, 0), new Pos(0, 1), new Pos(-1, 0)),
+                oracle.positions());
+        assertTrue(oracle.canPlaceAnywhere(forestTile(2)));
+        assertFalse(oracle.canPlaceAnywhere(meadowTile(2)));
+        assertEquals(Set.of(), oracle.placeablePositions(meadowTile(2)));
+        assertEquals(oracle.positions(), oracle.placeablePositions(northForestTile(2)));
+
+        var tile = northForestTile(2);
+        assertEquals(1 << Rotation.NONE.ordinal(), oracle.rotationsAt(tile, new Pos(0, 1)));
+        assertEquals(1 << Rotation.LEFT.ordinal(), oracle.rotationsAt(tile, new Pos(1, 0)));
+        assertEquals(1 << Rotation.HALF_TURN.ordinal(), oracle.rotationsAt(tile, new Pos(0, -1)));
+        assertEquals(1 << Rotation.RIGHT.ordinal(), oracle.rotationsAt(tile, new Pos(-1, 0)));
+        assertEquals(0, oracle.rotationsAt(tile, new Pos(1, 1)));
+        assertTrue(oracle.canPlace(tile, Rotation.LEFT, new Pos(1, 0)));
+        assertFalse(oracle.canPlace(tile, Rotation.NONE, new Pos(1, 0)));
+    }
+
+    @Test
+    void placementOracleCountsPlaceableTilesAsTheFringeChanges() {
+        var tiles = List.of(forestTile(5), meadowTile(6), northForestTile(7), meadowTile(8));
+        var board = Board.EMPTY.withNewTile(new PlacedTile(forestTile(1), null, Rotation.NONE, Pos.ORIGIN));
+        assertEquals(2, board.placementOracle().placeableCount(tiles));
+
+        // the fringe only faces forests, as before
+        var forestBoard = board.withNewTile(new PlacedTile(forestTile(2), null, Rotation.NONE, new Pos(1, 0)));
+        assertEquals(2, forestBoard.placementOracle().placeableCount(tiles));
+        assertFalse(forestBoard.couldPlaceTile(meadowTile(9)));
+
+        // the fringe now faces meadows too
+        var meadowBoard = board.withNewTile(new PlacedTile(northForestTile(2), null, Rotation.LEFT, new Pos(1, 0)));
+        assertEquals(4, meadowBoard.placementOracle().placeableCount(tiles));
+        assertTrue(meadowBoard.couldPlaceTile(meadowTile(9)));
+        assertEquals(0, PlacementOracle.EMPTY.placeableCount(tiles));
+    }
+
+    @Test
+    void placementOracleCombinesConstraintsOfAllNeighbors() {
+        // (1, 1) touches the south side of the forest tile at (1, 0) and the east side of the
+        // meadow tile at (0, 1)
+        var oracle = oracleWith(
+                new PlacedTile(forestTile(1), null, Rotation.NONE, Pos.ORIGIN),
+                new PlacedTile(forestTile(2), PlayerColor.RED, Rotation.NONE, new Pos(1, 0)),
+                new PlacedTile(northForestTile(3), PlayerColor.RED, Rotation.NONE, new Pos(0, 1)));
+
+        var tile = northForestTile(4);
+        assertFalse(oracle.positions().contains(new Pos(1, 0)));
+        assertEquals(1 << Rotation.NONE.ordinal(), oracle.rotationsAt(tile, new Pos(1, 1)));
+        assertEquals(0, oracle.rotationsAt(forestTile(4), new Pos(1, 1)));
+        assertEquals(0, oracle.rotationsAt(meadowTile(4), new Pos(1, 1)));
+    }
+
+    @Test
+    void placementOracleRanksPositionsByXThenY() {
+        var oracle = oracleWith(
+                new PlacedTile(forestTile(1), null, Rotation.NONE, Pos.ORIGIN),
+                new PlacedTile(forestTile(2), PlayerColor.RED, Rotation.NONE, new Pos(1, 0)),
+                new PlacedTile(forestTile(3), PlayerColor.RED, Rotation.NONE, new Pos(0, -1)));
+
+        var expected = oracle.positions().stream()
+                .sorted(Comparator.comparingInt(Pos::x).thenComparingInt(Pos::y))
+                .toList();
+        assertEquals(7, oracle.positionCount());
+        for (int rank = 0; rank < expected.size(); rank += 1) {
+            assertEquals(expected.get(rank), oracle.positionAt(rank));
+            assertEquals(rank, oracle.rankOf(expected.get(rank)));
+        }
+        assertEquals(new Pos(-1, -1), oracle.positionAt(0));
+        assertEquals(-1, oracle.rankOf(Pos.ORIGIN));
+        assertEquals(-1, oracle.rankOf(new Pos(5, -5)));
+        assertThrows(IndexOutOfBoundsException.class, () -> oracle.positionAt(7));
+        assertEquals(0, PlacementOracle.EMPTY.positionCount());
+    }
+}
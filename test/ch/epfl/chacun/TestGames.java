@@ -0,0 +1,73 @@
+package ch.epfl.chacun;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Games shared by the tests which play whole games.
+ */
+public final class TestGames {
+    private TestGames() {}
+
+    /**
+     * Returns the initial state of a game between the given players, with the tile decks of the
+     * given seed and the texts of BasicTextMaker.
+     */
+    static GameState initialState(List<PlayerColor> players, long seed) {
+        return GameState.initial(players, GameRecord.tileDecks(seed), new BasicTextMaker());
+    }
+
+    /**
+     * Returns the codes of the legal actions of the current state of the given engine.
+     */
+    public static int[] legalActions(GameEngine engine) {
+        var actions = new int[1 << 10];
+        return Arrays.copyOf(actions, engine.legalActions(actions));
+    }
+
+    /**
+     * Returns the codes of the legal actions of the given state (see ActionEncoder.legalActions).
+     */
+    static int[] legalActions(GameState state) {
+        var actions = new int[1 << 10];
+        return Arrays.copyOf(actions, ActionEncoder.legalActions(state, actions));
+    }
+
+    /**
+     * Returns the codes of the actions which can be applied to the given state, found by applying
+     * every code of its next action.
+     */
+    static List<Integer> legalActionsByTrial(GameState state) {
+        var legalActions = new ArrayList<Integer>();
+        int codeCount = state.nextAction() == GameState.Action.PLACE_TILE ? 1 << 10 : 1 << 5;
+        for (int action = 0; action < codeCount; action += 1) {
+            try {
+                ActionEncoder.apply(state, action);
+                legalActions.add(action);
+            } catch (IllegalArgumentException e) {
+                // not a legal action
+            }
+        }
+        return legalActions;
+    }
+
+    /**
+     * Returns the record of a game between the given players, with the tile decks of the given
+     * seed, whose actions are drawn at random among the legal ones.
+     */
+    static GameRecord randomGame(List<PlayerColor> players, long seed) {
+        var random = new Random(seed);
+        var engine = new GameEngine(GameState.initial(players, GameRecord.tileDecks(seed), null));
+        engine.startGame();
+        var actions = new int[1 << 10];
+        var playedActions = new ArrayList<Integer>();
+        while (!engine.isOver()) {
+            var action = actions[random.nextInt(engine.legalActions(actions))];
+            engine.apply(action);
+            playedActions.add(action);
+        }
+        return new GameRecord(players, seed, playedActions);
+    }
+}
@@ -3,8 +3,11 @@ package ch.epfl.chacun;
 import ch.epfl.chacun.*;
 import org.junit.jupiter.api.Test;
 
+import java.io.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -193,6 +196,50 @@ class TileDecksTest {
                 decks.withTopTileDrawnUntil(Tile.Kind.MENHIR, falsePredicate).menhirTiles());
     }
 
+    @Test
+    void tileDecksShuffledGroupsTilesByKindInShuffledOrder() {
+        var tiles = List.of(getTile(0, Tile.Kind.START),
+                getTile(1, Tile.Kind.NORMAL),
+                getTile(2, Tile.Kind.NORMAL),
+                getTile(3, Tile.Kind.MENHIR),
+                getTile(4, Tile.Kind.NORMAL));
+        var decks = TileDecks.shuffled(tiles, new Random(1));
+
+        var shuffledTiles = new ArrayList<>(tiles);
+        Collections.shuffle(shuffledTiles, new Random(1));
+        assertEquals(List.of(tiles.get(0)), decks.startTiles());
+        assertEquals(shuffledTiles.stream().filter(t -> t.kind() == Tile.Kind.NORMAL).toList(),
+                decks.normalTiles());
+        assertEquals(List.of(tiles.get(3)), decks.menhirTiles());
+        assertEquals(List.of(), TileDecks.shuffled(List.of(), new Random(1)).menhirTiles());
+    }
+
+    @Test
+    void tileDecksDrawsKeepTheRemainingTilesInOrder() throws IOException, ClassNotFoundException {
+        var tiles = new ArrayList<Tile>();
+        for (int i = 0; i < 10; i += 1)
+            tiles.add(getTile(i, i == 0 ? Tile.Kind.START : Tile.Kind.NORMAL));
+        var decks = TileDecks.shuffled(tiles, new Random(2));
+        var normalTiles = List.copyOf(decks.normalTiles());
+
+        var drawnDecks = decks.withTopTileDrawn(Tile.Kind.NORMAL).withTopTileDrawn(Tile.Kind.NORMAL);
+        var tile = normalTiles.get(4);
+        assertEquals(normalTiles.subList(2, 9), drawnDecks.normalTiles());
+        assertEquals(normalTiles.subList(4, 9),
+                decks.withTopTileDrawnUntil(Tile.Kind.NORMAL, t -> t == tile).normalTiles());
+        assertEquals(normalTiles.subList(3, 5), drawnDecks.normalTiles().subList(1, 3));
+        assertSame(decks, decks.withTopTileDrawnUntil(Tile.Kind.NORMAL, t -> true));
+        assertEquals(normalTiles, decks.normalTiles());
+
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new ObjectOutputStream(bytes)) {
+            out.writeObject(drawnDecks);
+        }
+        try (var in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertEquals(drawnDecks, in.readObject());
+        }
+    }
+
     record ConstantPredicate(boolean b) implements Predicate<Tile> {
         @Override
         public boolean test(Tile tile) {
@@ -67,4 +67,30 @@ class TileTest {
 
         assertEquals(Set.of(z0, z1, z2, z3, z4, z5, l0), tile.zones());
     }
-}
\ No newline at end of file
+
+    @Test
+    void tileSideKindsAgreeWithRotatedSides() {
+        var l0 = new Zone.Lake(1_8, 3, null);
+        var z0 = new Zone.Meadow(1_0, List.of(), null);
+        var z1 = new Zone.River(1_1, 0, l0);
+        var z2 = new Zone.Meadow(1_2, List.of(), null);
+        var z3 = new Zone.Forest(1_3, Zone.Forest.Kind.PLAIN);
+        var sN = new TileSide.Meadow(z0);
+        var sE = new TileSide.River(z0, z1, z2);
+        var sS = new TileSide.Forest(z3);
+        var tile = new Tile(1, Tile.Kind.NORMAL, sN, sE, sS, sN);
+
+        for (var rotation : Rotation.ALL) {
+            var placedTile = new PlacedTile(tile, null, rotation, Pos.ORIGIN);
+            var expectedKinds = 0;
+            for (var direction : Direction.ALL) {
+                var side = placedTile.side(direction);
+                assertEquals(side, tile.side(rotation, direction));
+                assertEquals(side.kindCode(), tile.sideKind(rotation, direction));
+                expectedKinds |= side.kindCode() << 2 * direction.ordinal();
+            }
+            assertEquals(expectedKinds, tile.sideKinds(rotation));
+        }
+        assertEquals(sE, tile.side(Direction.E));
+    }
+}
@@ -2,6 +2,7 @@ package ch.epfl.chacun;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -313,4 +314,73 @@ class ZonePartitionTest {
         var expectedArea1 = new Area<>(a1.zones(), a1.occupants(), a1.openConnections() - 2);
         assertEquals(Set.of(a0, expectedArea1), partitionBuilder.build().areas());
     }
-}
\ No newline at end of file
+
+    @Test
+    void zonePartitionBuilderUnionWorksWithLongChains() {
+        var zones = new ArrayList<Zone.Forest>();
+        var builder = new ZonePartition.Builder<>(new ZonePartition<Zone.Forest>());
+        for (int i = 0; i < 100; i += 1) {
+            var zone = new Zone.Forest(i * 10, Zone.Forest.Kind.PLAIN);
+            zones.add(zone);
+            builder.addSingleton(zone, 2);
+        }
+        // connect even zones together and odd zones together, in an interleaved order
+        for (int i = 2; i < 100; i += 1)
+            builder.union(zones.get(i), zones.get(i % 2 == 0 ? i / 2 / 2 * 2 : i - 2));
+
+        var partition = builder.build();
+        var even = partition.areaContaining(zones.get(0));
+        var odd = partition.areaContaining(zones.get(1));
+        assertEquals(2, partition.areas().size());
+        assertEquals(50, even.zones().size());
+        assertEquals(50, odd.zones().size());
+        assertEquals(2, even.openConnections());
+        for (int i = 0; i < 100; i += 1)
+            assertSame(i % 2 == 0 ? even : odd, partition.areaContaining(zones.get(i)));
+    }
+
+    @Test
+    void zonePartitionIsNotModifiedByBuilderCreatedFromIt() {
+        var f0 = new Zone.Forest(0, Zone.Forest.Kind.PLAIN);
+        var f1 = new Zone.Forest(1, Zone.Forest.Kind.PLAIN);
+        var f2 = new Zone.Forest(2_000, Zone.Forest.Kind.PLAIN);
+        var a0 = new Area<>(Set.of(f0), List.of(), 1);
+        var a1 = new Area<>(Set.of(f1), List.of(), 1);
+        var partition = new ZonePartition<>(Set.of(a0, a1));
+
+        var builder = new ZonePartition.Builder<>(partition);
+        builder.union(f0, f1);
+        builder.addSingleton(f2, 0);
+        var partition1 = builder.build();
+        builder.addInitialOccupant(f2, PlayerColor.RED);
+
+        assertEquals(Set.of(a0, a1), partition.areas());
+        assertEquals(a0, partition.areaContaining(f0));
+        assertThrows(IllegalArgumentException.class, () -> partition.areaContaining(f2));
+        assertEquals(new Area<>(Set.of(f0, f1), List.of(), 0), partition1.areaContaining(f1));
+        assertEquals(new Area<>(Set.of(f2), List.of(), 0), partition1.areaContaining(f2));
+        assertEquals(new Area<>(Set.of(f2), List.of(PlayerColor.RED), 0),
+                builder.build().areaContaining(f2));
+    }
+
+    @Test
+    void zonePartitionBuilderBuildsInitialPartitionWhenUnmodified() {
+        var f0 = new Zone.Forest(0, Zone.Forest.Kind.PLAIN);
+        var f1 = new Zone.Forest(1, Zone.Forest.Kind.PLAIN);
+        var partition = new ZonePartition<>(Set.of(
+                new Area<>(Set.of(f0), List.of(), 1),
+                new Area<>(Set.of(f1), List.of(), 1)));
+
+        var builder = new ZonePartition.Builder<>(partition);
+        assertSame(partition, builder.build());
+
+        builder.union(f0, f1);
+        var partition1 = builder.build();
+        assertSame(partition1, builder.build());
+
+        builder.addInitialOccupant(f0, PlayerColor.RED);
+        var partition2 = builder.build();
+        assertEquals(List.of(), partition1.areaContaining(f1).occupants());
+        assertEquals(List.of(PlayerColor.RED), partition2.areaContaining(f1).occupants());
+    }
+}
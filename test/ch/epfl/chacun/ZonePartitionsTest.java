@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class ZonePartitionsTest {
@@ -958,4 +959,26 @@ class ZonePartitionsTest {
         assertEquals(forests, partition.forests());
         assertEquals(riverSystems, partition.riverSystems());
     }
+
+    @Test
+    void zonePartitionsBuilderSharesUnmodifiedPartitions() {
+        var f0 = new Zone.Forest(1_0, Zone.Forest.Kind.PLAIN);
+        var m1 = new Zone.Meadow(1_1, List.of(), null);
+        var forests = new ZonePartition<>(Set.of(new Area<>(Set.of(f0), List.of(), 1)));
+        var meadows = new ZonePartition<>(Set.of(new Area<>(Set.of(m1), List.of(), 3)));
+        var initial = new ZonePartitions(forests, meadows, new ZonePartition<>(), new ZonePartition<>());
+
+        assertSame(initial, new ZonePartitions.Builder(initial).build());
+
+        var b = new ZonePartitions.Builder(initial);
+        b.addInitialOccupant(PlayerColor.RED, Occupant.Kind.PAWN, f0);
+        var partitions = b.build();
+
+        assertEquals(new ZonePartition<>(Set.of(new Area<>(Set.of(f0), List.of(PlayerColor.RED), 1))),
+                partitions.forests());
+        assertEquals(forests, initial.forests());
+        assertSame(meadows, partitions.meadows());
+        assertSame(initial.rivers(), partitions.rivers());
+        assertSame(initial.riverSystems(), partitions.riverSystems());
+    }
 }
\ No newline at end of file
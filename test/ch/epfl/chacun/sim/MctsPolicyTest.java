@@ -0,0 +1,71 @@
+package ch.epfl.chacun.sim;
+
+import ch.epfl.chacun.*;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static ch.epfl.chacun.TestGames.legalActions;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MctsPolicyTest {
+    private static GameEngine startedEngine(long seed) {
+        var tileDecks = TileDecks.shuffled(Tiles.TILES, new Random(seed));
+        var players = PlayerColor.ALL.subList(0, 2);
+        var engine = new GameEngine(GameState.initial(players, tileDecks,
+                new TextMakerFr(Map.of(PlayerColor.RED, "Rouge", PlayerColor.BLUE, "Bleu"))));
+        engine.startGame();
+        return engine;
+    }
+
+    @Test
+    void mctsPolicyChoosesLegalActionsUntilTheEndOfTheGame() {
+        var policy = new MctsPolicy(Duration.ofSeconds(10), 1, 8);
+        var engine = startedEngine(1);
+        var random = new Random(1);
+
+        while (!engine.isOver()) {
+            var actions = legalActions(engine);
+            var state = engine.toGameState();
+            int action = policy.action(engine, actions, actions.length, random);
+            assertTrue(Arrays.stream(actions).anyMatch(a -> a == action));
+            assertSame(state, engine.toGameState());
+            engine.apply(action);
+        }
+    }
+
+    @Test
+    void mctsPolicyIsDeterministicOnOneThread() {
+        var policy = new MctsPolicy(Duration.ofSeconds(10), 1, 50);
+        var state = startedEngine(2).toGameState();
+
+        assertEquals(policy.bestAction(state, 3), policy.bestAction(state, 3));
+    }
+
+    @Test
+    void mctsPolicySearchesOnManyThreads() {
+        var policy = new MctsPolicy(Duration.ofSeconds(10), 4, 40);
+        var engine = startedEngine(3);
+        var actions = legalActions(engine);
+
+        // the threads of the policy are reused by the following searches
+        for (int seed = 4; seed < 7; seed += 1) {
+            int action = policy.bestAction(engine.toGameState(), seed);
+            assertTrue(Arrays.stream(actions).anyMatch(a -> a == action));
+        }
+    }
+
+    @Test
+    void mctsPolicyRejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new MctsPolicy(Duration.ofMillis(-1), 1));
+        assertThrows(IllegalArgumentException.class, () -> new MctsPolicy(Duration.ofMillis(1), 0));
+        var initialState = GameState.initial(PlayerColor.ALL.subList(0, 2),
+                TileDecks.shuffled(Tiles.TILES, new Random(0)),
+                new TextMakerFr(Map.of()));
+        assertThrows(IllegalArgumentException.class,
+                () -> new MctsPolicy(Duration.ofMillis(1), 1).bestAction(initialState, 0));
+    }
+}
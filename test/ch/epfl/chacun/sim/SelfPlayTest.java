@@ -0,0 +1,40 @@
+package ch.epfl.chacun.sim;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SelfPlayTest {
+    @Test
+    void selfPlayGamesOnlyDependOnTheirSeed() {
+        var policies = List.of(Policy.RANDOM, Policy.GREEDY);
+        var sequential = SelfPlay.run(6, 3, 42, policies, 1);
+        var parallel = SelfPlay.run(6, 3, 42, policies, 4);
+
+        assertEquals(6, sequential.games());
+        assertEquals(sequential.moves(), parallel.moves());
+        assertEquals(sequential.scores().toString(), parallel.scores().toString());
+        assertEquals(sequential.winningScores().toString(), parallel.winningScores().toString());
+        assertEquals(18, sequential.scores().getCount());
+
+        var single = new GameStatistics();
+        var finalState = SelfPlay.play(3, 42, policies, single).toGameState();
+        assertEquals(1, single.games());
+        assertEquals(finalState.players().stream()
+                        .mapToInt(finalState.messageBoard()::points)
+                        .sum(),
+                single.scores().getSum());
+        var replayedState = SelfPlay.play(3, 42, policies, new GameStatistics()).toGameState();
+        assertEquals(finalState.board(), replayedState.board());
+        assertEquals(finalState.messageBoard().messages(), replayedState.messageBoard().messages());
+    }
+
+    @Test
+    void selfPlayRejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> SelfPlay.run(1, 1, 0, List.of(Policy.RANDOM), 1));
+        assertThrows(IllegalArgumentException.class, () -> SelfPlay.run(1, 2, 0, List.of(), 1));
+        assertThrows(IllegalArgumentException.class, () -> Policy.named("clever"));
+    }
+}